@@ -46,6 +46,16 @@ public abstract class AbstractFlattrCallable<R> implements FlattrCallable<R> {
         setAccessToken(new AccessToken(token));
     }
 
+    /**
+     * Returns the {@link AccessToken} to be used, or {@code null} if no authorization
+     * is needed.
+     *
+     * @since 2.15
+     */
+    public AccessToken getAccessToken() {
+        return token;
+    }
+
     /**
      * Returns the {@link RateLimit} state after this callable was successfully executed,
      * or {@code null} if the call failed or was not invoked yet.
@@ -90,9 +100,35 @@ public abstract class AbstractFlattrCallable<R> implements FlattrCallable<R> {
         rateLimit = null;
         FlattrService service = createFlattrService(token);
         service.setFullMode(full);
-        result = call(service);
-        rateLimit = new RateLimit(service.getLastRateLimit());
-        return result;
+        try {
+            result = call(service);
+            rateLimit = new RateLimit(service.getLastRateLimit());
+            return result;
+        } finally {
+            service.clearThreadRateLimit();
+        }
+    }
+
+    /**
+     * Executes the call with the given {@link FlattrService}, instead of creating a new
+     * one. The {@link FlattrService} must be configured with the access token and full
+     * mode of this callable. It may be shared with other threads.
+     *
+     * @param service
+     *            {@link FlattrService} to be used
+     * @return Result returned from the Flattr method.
+     * @since 2.15
+     */
+    public R callShared(FlattrService service) throws Exception { //NOSONAR: accept all exceptions
+        rateLimit = null;
+        try {
+            result = call(service);
+            rateLimit = service.getThreadRateLimit();
+            return result;
+        } finally {
+            // The executor thread is pooled, so do not keep the rate limit in it
+            service.clearThreadRateLimit();
+        }
     }
 
     @Override
@@ -0,0 +1,238 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.model.Activity;
+import org.shredzone.flattr4j.model.AutoSubmission;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Flattr;
+import org.shredzone.flattr4j.model.Language;
+import org.shredzone.flattr4j.model.MiniThing;
+import org.shredzone.flattr4j.model.SearchQuery;
+import org.shredzone.flattr4j.model.SearchResult;
+import org.shredzone.flattr4j.model.Submission;
+import org.shredzone.flattr4j.model.Subscription;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.model.User;
+import org.shredzone.flattr4j.model.UserId;
+
+/**
+ * An asynchronous variant of {@link FlattrService}. All methods return immediately.
+ * The Flattr call is executed in the background, and its result is delivered via the
+ * returned {@link FlattrFuture}.
+ * <p>
+ * Exceptions thrown by the Flattr call (e.g. {@link org.shredzone.flattr4j.exception.FlattrException})
+ * are passed to {@link FlattrCallback#onFailure(Throwable)}, or thrown as cause of an
+ * {@link java.util.concurrent.ExecutionException} by {@link FlattrFuture#get()}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface AsyncFlattrService {
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getThing(ThingId)}.
+     */
+    FlattrFuture<Thing> getThing(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getThingByUrl(String)}.
+     */
+    FlattrFuture<Thing> getThingByUrl(String url);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getThingBySubmission(AutoSubmission)}.
+     */
+    FlattrFuture<Thing> getThingBySubmission(AutoSubmission submission);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getThings(UserId, Integer, Integer)}.
+     */
+    FlattrFuture<List<Thing>> getThings(UserId user, Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getThings(Collection)}.
+     */
+    FlattrFuture<List<Thing>> getThings(Collection<? extends ThingId> thingIds);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#searchThings(SearchQuery, Integer, Integer)}.
+     */
+    FlattrFuture<SearchResult> searchThings(SearchQuery query, Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getUser(UserId)}.
+     */
+    FlattrFuture<User> getUser(UserId user);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getFlattrs(UserId, Integer, Integer)}.
+     */
+    FlattrFuture<List<Flattr>> getFlattrs(UserId user, Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getFlattrs(ThingId, Integer, Integer)}.
+     */
+    FlattrFuture<List<Flattr>> getFlattrs(ThingId thing, Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getActivities(UserId, Activity.Type)}.
+     */
+    FlattrFuture<List<Activity>> getActivities(UserId user, Activity.Type type);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getCategories()}.
+     */
+    FlattrFuture<List<Category>> getCategories();
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getLanguages()}.
+     */
+    FlattrFuture<List<Language>> getLanguages();
+
+    /**
+     * Asynchronously invokes {@link FlattrService#create(Submission)}.
+     */
+    FlattrFuture<ThingId> create(Submission thing);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#update(Thing)}.
+     */
+    FlattrFuture<Void> update(Thing thing);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#delete(ThingId)}.
+     */
+    FlattrFuture<Void> delete(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#flattr(ThingId)}.
+     */
+    FlattrFuture<MiniThing> flattr(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#flattr(ThingId)} for a collection of
+     * things. The things are flattred concurrently. If flattring a thing fails, the other
+     * things are flattred anyway. If the rate limit is exceeded, the remaining things
+     * are not sent to the server, but fail with the same exception.
+     *
+     * @since 2.15
+     */
+    FlattrFuture<BulkResult<ThingId, MiniThing>> flattr(Collection<? extends ThingId> thingIds);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#flattr(AutoSubmission)}.
+     */
+    FlattrFuture<MiniThing> flattr(AutoSubmission submission);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#flattr(String)}.
+     */
+    FlattrFuture<MiniThing> flattr(String url);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#subscribe(ThingId)}.
+     */
+    FlattrFuture<Void> subscribe(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#subscribe(ThingId)} for a collection
+     * of things. The things are subscribed concurrently. If subscribing a thing fails,
+     * the other things are subscribed anyway. If the rate limit is exceeded, the
+     * remaining things are not sent to the server, but fail with the same exception.
+     *
+     * @since 2.15
+     */
+    FlattrFuture<BulkResult<ThingId, Void>> subscribe(Collection<? extends ThingId> thingIds);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#unsubscribe(ThingId)}.
+     */
+    FlattrFuture<Void> unsubscribe(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getMyself()}.
+     */
+    FlattrFuture<User> getMyself();
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getMyThings(Integer, Integer)}.
+     */
+    FlattrFuture<List<Thing>> getMyThings(Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getMyFlattrs(Integer, Integer)}.
+     */
+    FlattrFuture<List<Flattr>> getMyFlattrs(Integer count, Integer page);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getMyActivities(Activity.Type)}.
+     */
+    FlattrFuture<List<Activity>> getMyActivities(Activity.Type type);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getMySubscriptions()}.
+     */
+    FlattrFuture<List<Subscription>> getMySubscriptions();
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getSubscription(ThingId)}.
+     */
+    FlattrFuture<Subscription> getSubscription(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#toggleSubscription(ThingId)}.
+     */
+    FlattrFuture<Boolean> toggleSubscription(ThingId thingId);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#pauseSubscription(ThingId, boolean)}.
+     */
+    FlattrFuture<Void> pauseSubscription(ThingId thingId, boolean paused);
+
+    /**
+     * Asynchronously invokes {@link FlattrService#getCurrentRateLimit()}.
+     */
+    FlattrFuture<RateLimit> getCurrentRateLimit();
+
+    /**
+     * Sets the full mode for all subsequent calls.
+     *
+     * @see FlattrService#setFullMode(boolean)
+     */
+    void setFullMode(boolean full);
+
+    /**
+     * Returns {@code true} if full mode is enabled.
+     */
+    boolean isFullMode();
+
+    /**
+     * Returns the {@link RateLimit} of the Flattr call that was completed last, or
+     * {@code null} if no call has been completed yet.
+     */
+    RateLimit getLastRateLimit();
+
+}
@@ -0,0 +1,182 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of a bulk operation. For every item, it contains either the result of the
+ * call, or the exception that was thrown by the call. A failing item does not abort the
+ * other items of the bulk operation.
+ * <p>
+ * The results and failures are in the order of the items that were passed to the bulk
+ * operation. This class is immutable.
+ *
+ * @param <K>
+ *            Item type
+ * @param <R>
+ *            Result type
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class BulkResult<K, R> {
+
+    private final Map<K, R> results;
+    private final Map<K, Throwable> failures;
+
+    private BulkResult(Map<K, R> results, Map<K, Throwable> failures) {
+        this.results = Collections.unmodifiableMap(results);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Collects the results of a number of {@link FlattrFuture}.
+     *
+     * @param futures
+     *            Map of items and the {@link FlattrFuture} of their calls
+     * @return {@link FlattrFuture} of the {@link BulkResult}. It is completed when all
+     *         the given {@link FlattrFuture} are completed, and is never failing.
+     */
+    public static <K, R> FlattrFuture<BulkResult<K, R>> collect(
+                final Map<K, ? extends FlattrFuture<? extends R>> futures) {
+        final List<K> keys = new ArrayList<K>(futures.keySet());
+        final Map<K, R> results = new HashMap<K, R>();
+        final Map<K, Throwable> failures = new HashMap<K, Throwable>();
+
+        final FlattrFuture<BulkResult<K, R>> future = new FlattrFuture<BulkResult<K, R>>(
+                new Callable<BulkResult<K, R>>() {
+            @Override
+            public BulkResult<K, R> call() throws Exception {
+                Map<K, R> orderedResults = new LinkedHashMap<K, R>();
+                Map<K, Throwable> orderedFailures = new LinkedHashMap<K, Throwable>();
+                synchronized (results) {
+                    for (K key : keys) {
+                        if (results.containsKey(key)) {
+                            orderedResults.put(key, results.get(key));
+                        } else {
+                            orderedFailures.put(key, failures.get(key));
+                        }
+                    }
+                }
+                return new BulkResult<K, R>(orderedResults, orderedFailures);
+            }
+        });
+
+        if (futures.isEmpty()) {
+            future.run();
+            return future;
+        }
+
+        final AtomicInteger pending = new AtomicInteger(futures.size());
+        for (Map.Entry<K, ? extends FlattrFuture<? extends R>> entry : futures.entrySet()) {
+            final K key = entry.getKey();
+            entry.getValue().addCallback(new FlattrCallback<R>() {
+                @Override
+                public void onSuccess(R result) {
+                    synchronized (results) {
+                        results.put(key, result);
+                    }
+                    completed();
+                }
+
+                @Override
+                public void onFailure(Throwable cause) {
+                    synchronized (results) {
+                        failures.put(key, cause);
+                    }
+                    completed();
+                }
+
+                private void completed() {
+                    if (pending.decrementAndGet() == 0) {
+                        future.run();
+                    }
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns the results of all successful items. Items of a {@link Void} operation
+     * have a {@code null} result.
+     */
+    public Map<K, R> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the exceptions of all failed items. A
+     * {@link java.util.concurrent.CancellationException} indicates that the item was
+     * cancelled.
+     */
+    public Map<K, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns {@code true} if all items were successful.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if the given item was successful.
+     *
+     * @param item
+     *            Item to check
+     */
+    public boolean isSuccessful(K item) {
+        return results.containsKey(item);
+    }
+
+    /**
+     * Returns the result of an item.
+     *
+     * @param item
+     *            Item to get the result of
+     * @return Result, or {@code null} if the item failed or was not part of the bulk
+     *         operation
+     */
+    public R getResult(K item) {
+        return results.get(item);
+    }
+
+    /**
+     * Returns the exception of an item.
+     *
+     * @param item
+     *            Item to get the exception of
+     * @return Exception, or {@code null} if the item was successful or was not part of
+     *         the bulk operation
+     */
+    public Throwable getFailure(K item) {
+        return failures.get(item);
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+/**
+ * A callback that is invoked when an asynchronous Flattr call is completed.
+ * <p>
+ * The callback is invoked by the thread that executed the call, or by the thread that
+ * registered the callback if the call was already completed at that time.
+ *
+ * @param <R>
+ *            Result type
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface FlattrCallback<R> {
+
+    /**
+     * Invoked when the call was successful.
+     *
+     * @param result
+     *            Result of the call
+     */
+    void onSuccess(R result);
+
+    /**
+     * Invoked when the call failed or was cancelled.
+     *
+     * @param cause
+     *            Exception that was thrown by the call, or a
+     *            {@link java.util.concurrent.CancellationException} if the call was
+     *            cancelled
+     */
+    void onFailure(Throwable cause);
+
+}
@@ -0,0 +1,386 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.shredzone.flattr4j.FlattrFactory;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+/**
+ * Executes {@link AbstractFlattrCallable} on a bounded thread pool.
+ * <p>
+ * {@link FlattrExecutor} can also be passed to
+ * {@link org.shredzone.flattr4j.async.impl.AsyncFlattrServiceImpl}.
+ * <p>
+ * Unlike {@link AbstractFlattrCallable#call()}, a new {@link FlattrService} is not
+ * created for each call. Instead, the {@link FlattrService} of an access token is
+ * reused for all calls with that token, so the connections to the Flattr server can be
+ * kept alive. Besides the total number of threads, the number of concurrent calls per
+ * access token is limited as well. Calls exceeding this limit are queued, without
+ * blocking a thread of the pool.
+ * <p>
+ * Note that {@link AbstractFlattrCallable#createFlattrService(AccessToken)} is not
+ * invoked. Override {@link #createFlattrService(AccessToken)} if the
+ * {@link FlattrService} needs a special configuration.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class FlattrExecutor implements Executor {
+    private static final int DEFAULT_THREADS = 4;
+    private static final int MAX_SERVICES = 100;
+
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<String, Lane>();
+    private final Map<String, FlattrService> services;
+    private volatile int maxConcurrentPerToken = 2;
+
+    /**
+     * Creates a new {@link FlattrExecutor} with a default number of threads.
+     */
+    public FlattrExecutor() {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * Creates a new {@link FlattrExecutor} with its own thread pool. Idle threads are
+     * terminated after a while.
+     *
+     * @param threads
+     *            Maximum number of threads
+     */
+    public FlattrExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                        60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                        new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        this.ownExecutor = pool;
+        this.executor = pool;
+        this.services = createServiceMap();
+    }
+
+    /**
+     * Creates a new {@link FlattrExecutor} that uses the given {@link Executor}. This
+     * way, the calls can be executed by an application's thread pool, or on virtual
+     * threads if they are available. The {@link Executor} is not shut down by
+     * {@link #shutdown()}.
+     *
+     * @param executor
+     *            {@link Executor} that executes the calls
+     */
+    public FlattrExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is required");
+        }
+        this.ownExecutor = null;
+        this.executor = executor;
+        this.services = createServiceMap();
+    }
+
+    /**
+     * Maximum number of calls per access token that are executed concurrently. Further
+     * calls are queued. Defaults to 2.
+     */
+    public int getMaxConcurrentPerToken()       { return maxConcurrentPerToken; }
+    public void setMaxConcurrentPerToken(int maxConcurrentPerToken) {
+        if (maxConcurrentPerToken < 1) {
+            throw new IllegalArgumentException("maxConcurrentPerToken must be at least 1");
+        }
+        this.maxConcurrentPerToken = maxConcurrentPerToken;
+    }
+
+    /**
+     * Submits an {@link AbstractFlattrCallable} for execution. The access token and full
+     * mode of the callable are used.
+     *
+     * @param callable
+     *            {@link AbstractFlattrCallable} to be executed
+     * @return {@link FlattrFuture} of the result
+     * @throws RejectedExecutionException
+     *             if the executor has been shut down
+     */
+    public <R> FlattrFuture<R> submit(final AbstractFlattrCallable<R> callable) {
+        final AccessToken token = callable.getAccessToken();
+        final boolean full = callable.isFullMode();
+
+        FlattrFuture<R> future = new FlattrFuture<R>(new Callable<R>() {
+            @Override
+            public R call() throws Exception {
+                return callable.callShared(getFlattrService(token, full));
+            }
+        });
+
+        String key = (token != null ? token.getToken() : "");
+        while (true) {
+            Lane lane = lanes.get(key);
+            if (lane == null) {
+                Lane newLane = new Lane(key);
+                lane = lanes.putIfAbsent(key, newLane);
+                if (lane == null) {
+                    lane = newLane;
+                }
+            }
+            if (lane.submit(future)) {
+                return future;
+            }
+            // The lane was closed meanwhile, so try again with a new one
+        }
+    }
+
+    /**
+     * Submits an {@link AbstractFlattrCallable} for execution, and adds a
+     * {@link FlattrCallback} that is invoked on completion.
+     *
+     * @param callable
+     *            {@link AbstractFlattrCallable} to be executed
+     * @param callback
+     *            {@link FlattrCallback} to be invoked
+     * @return {@link FlattrFuture} of the result
+     * @throws RejectedExecutionException
+     *             if the executor has been shut down
+     */
+    public <R> FlattrFuture<R> submit(AbstractFlattrCallable<R> callable, FlattrCallback<? super R> callback) {
+        return submit(callable).addCallback(callback);
+    }
+
+    /**
+     * Submits a bulk operation. Every {@link AbstractFlattrCallable} is executed with
+     * its own access token, so a bulk operation can act on behalf of several users.
+     * <p>
+     * The calls are executed concurrently, limited by the size of the thread pool and
+     * the maximum number of concurrent calls per access token. A failing call does not
+     * abort the other calls. If the rate limit of an access token is exceeded, the
+     * remaining calls of that access token are not sent to the server, but fail with
+     * a {@link RateLimitExceededException} (see {@link RateLimitGuard}).
+     *
+     * @param callables
+     *            Map of items and the {@link AbstractFlattrCallable} to be executed for
+     *            them
+     * @return {@link FlattrFuture} of the {@link BulkResult}, which is completed when
+     *         all calls are completed
+     * @throws RejectedExecutionException
+     *             if the executor has been shut down
+     */
+    public <K, R> FlattrFuture<BulkResult<K, R>> submitAll(Map<K, ? extends AbstractFlattrCallable<R>> callables) {
+        RateLimitGuard guard = new RateLimitGuard();
+
+        Map<K, FlattrFuture<R>> futures = new LinkedHashMap<K, FlattrFuture<R>>();
+        for (Map.Entry<K, ? extends AbstractFlattrCallable<R>> entry : callables.entrySet()) {
+            futures.put(entry.getKey(), submit(guard.guard(entry.getValue())));
+        }
+
+        return BulkResult.collect(futures);
+    }
+
+    /**
+     * Executes a {@link Runnable} on the thread pool. It is not subject to the limit of
+     * concurrent calls per access token.
+     */
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Shuts down the thread pool. Calls that have already been submitted are still
+     * executed. If an {@link Executor} was passed to the constructor, it is not shut
+     * down.
+     */
+    public void shutdown() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Creates a new {@link FlattrService} for the given {@link AccessToken}. Can be
+     * overridden by subclasses if the {@link FlattrService} needs a special
+     * configuration. The {@link FlattrService} will be shared by concurrent calls.
+     *
+     * @param token
+     *            {@link AccessToken}, or {@code null} for anonymous calls
+     * @return {@link FlattrService} that was created
+     */
+    protected FlattrService createFlattrService(AccessToken token) {
+        if (token == null) {
+            return FlattrFactory.getInstance().createFlattrService();
+        }
+        return FlattrFactory.getInstance().createFlattrService(token);
+    }
+
+    /**
+     * Returns the shared {@link FlattrService} for the given access token and full
+     * mode. A new {@link FlattrService} is created if there is none yet.
+     */
+    private FlattrService getFlattrService(AccessToken token, boolean full) {
+        String key = (full ? "F:" : "S:") + (token != null ? token.getToken() : "");
+        synchronized (services) {
+            FlattrService service = services.get(key);
+            if (service == null) {
+                service = createFlattrService(token);
+                service.setFullMode(full);
+                services.put(key, service);
+            }
+            return service;
+        }
+    }
+
+    private static Map<String, FlattrService> createServiceMap() {
+        return new LinkedHashMap<String, FlattrService>(16, 0.75f, true) {
+            private static final long serialVersionUID = 5489221783216307396L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FlattrService> eldest) {
+                return size() > MAX_SERVICES;
+            }
+        };
+    }
+
+    /**
+     * Queues the calls of a single access token, and limits the number of their
+     * concurrent executions.
+     */
+    private class Lane {
+        private final String key;
+        private final Queue<FlattrFuture<?>> pending = new LinkedList<FlattrFuture<?>>();
+        private int running = 0;
+        private boolean closed = false;
+
+        public Lane(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Submits a call. It is executed immediately if the limit has not been reached
+         * yet, otherwise it is queued.
+         *
+         * @return {@code false} if the lane has been closed, and a new lane must be used
+         */
+        public boolean submit(FlattrFuture<?> future) {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (running >= maxConcurrentPerToken) {
+                    pending.add(future);
+                    return true;
+                }
+                running++;
+            }
+
+            try {
+                dispatch(future);
+            } catch (RejectedExecutionException ex) {
+                finished();
+                throw ex;
+            }
+            return true;
+        }
+
+        /**
+         * Hands the call to the executor. When it is completed, the next queued call of
+         * this lane is dispatched.
+         */
+        private void dispatch(final FlattrFuture<?> future) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.run();
+                    } finally {
+                        next();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Dispatches the next queued call.
+         */
+        private void next() {
+            while (true) {
+                FlattrFuture<?> future;
+                synchronized (this) {
+                    future = pending.poll();
+                    if (future == null) {
+                        finished();
+                        return;
+                    }
+                }
+
+                try {
+                    dispatch(future);
+                    return;
+                } catch (RejectedExecutionException ex) {
+                    future.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * Marks that a running call has been finished. If the lane is idle, it is
+         * closed and removed.
+         */
+        private synchronized void finished() {
+            running--;
+            if (running == 0 && pending.isEmpty()) {
+                closed = true;
+                lanes.remove(key, this);
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads, so a running pool does not prevent the JVM from exiting.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "flattr4j-executor-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.shredzone.flattr4j.connector.impl.Logger;
+
+/**
+ * A {@link FutureTask} that invokes {@link FlattrCallback} when the task is completed.
+ *
+ * @param <R>
+ *            Result type
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class FlattrFuture<R> extends FutureTask<R> {
+    private static final Logger LOG = new Logger("flattr4j", FlattrFuture.class.getName());
+
+    private final List<FlattrCallback<? super R>> callbacks = new ArrayList<FlattrCallback<? super R>>();
+    private boolean completed = false;
+
+    /**
+     * Creates a new {@link FlattrFuture}.
+     *
+     * @param callable
+     *            {@link Callable} to be executed
+     */
+    public FlattrFuture(Callable<R> callable) {
+        super(callable);
+    }
+
+    /**
+     * Adds a {@link FlattrCallback} that is invoked when the task is completed. If the
+     * task is already completed, the callback is invoked immediately.
+     *
+     * @param callback
+     *            {@link FlattrCallback} to be invoked
+     * @return this
+     */
+    public FlattrFuture<R> addCallback(FlattrCallback<? super R> callback) {
+        synchronized (callbacks) {
+            if (!completed) {
+                callbacks.add(callback);
+                return this;
+            }
+        }
+        fire(callback);
+        return this;
+    }
+
+    @Override
+    protected void done() {
+        List<FlattrCallback<? super R>> pending;
+        synchronized (callbacks) {
+            completed = true;
+            pending = new ArrayList<FlattrCallback<? super R>>(callbacks);
+            callbacks.clear();
+        }
+
+        for (FlattrCallback<? super R> callback : pending) {
+            fire(callback);
+        }
+    }
+
+    /**
+     * Invokes the {@link FlattrCallback} with the result of this task.
+     */
+    private void fire(FlattrCallback<? super R> callback) {
+        R result;
+        try {
+            result = get();
+        } catch (ExecutionException ex) {
+            invokeFailure(callback, ex.getCause());
+            return;
+        } catch (CancellationException ex) {
+            invokeFailure(callback, ex);
+            return;
+        } catch (InterruptedException ex) {
+            // Cannot happen, as the task is done
+            Thread.currentThread().interrupt();
+            invokeFailure(callback, ex);
+            return;
+        }
+
+        try {
+            callback.onSuccess(result);
+        } catch (RuntimeException ex) {
+            LOG.error("Callback failed: {0}", ex);
+        }
+    }
+
+    /**
+     * Invokes the failure method of the {@link FlattrCallback}.
+     */
+    private void invokeFailure(FlattrCallback<? super R> callback, Throwable cause) {
+        try {
+            callback.onFailure(cause);
+        } catch (RuntimeException ex) {
+            LOG.error("Callback failed: {0}", ex);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+/**
+ * Guards the calls of a bulk operation against an exceeded rate limit.
+ * <p>
+ * When a guarded call fails because the rate limit of its access token was exceeded,
+ * all further guarded calls of the same access token are not sent to the server.
+ * Instead they fail with a new {@link RateLimitExceededException}, which has the
+ * original exception as cause. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class RateLimitGuard {
+
+    private final ConcurrentMap<String, RateLimitExceededException> exceeded =
+                    new ConcurrentHashMap<String, RateLimitExceededException>();
+
+    /**
+     * Wraps an {@link AbstractFlattrCallable} into a guarded callable. The access token
+     * and full mode of the callable must be set before.
+     *
+     * @param callable
+     *            {@link AbstractFlattrCallable} to be guarded
+     * @return Guarded {@link AbstractFlattrCallable}, with the same access token and
+     *         full mode
+     */
+    public <R> AbstractFlattrCallable<R> guard(final AbstractFlattrCallable<R> callable) {
+        AccessToken token = callable.getAccessToken();
+        final String key = (token != null ? token.getToken() : "");
+
+        AbstractFlattrCallable<R> guarded = new AbstractFlattrCallable<R>() {
+            @Override
+            public R call(FlattrService service) throws Exception {
+                RateLimitExceededException first = exceeded.get(key);
+                if (first != null) {
+                    throw new RateLimitExceededException(first.getCode(), first.getMessage(), first);
+                }
+
+                try {
+                    // callShared() would consume the rate limit of this thread
+                    return callable.call(service);
+                } catch (RateLimitExceededException ex) {
+                    exceeded.putIfAbsent(key, ex);
+                    throw ex;
+                }
+            }
+        };
+        guarded.setAccessToken(token);
+        guarded.setFullMode(callable.isFullMode());
+        return guarded;
+    }
+
+}
@@ -0,0 +1,376 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async.impl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.async.AbstractFlattrCallable;
+import org.shredzone.flattr4j.async.AsyncFlattrService;
+import org.shredzone.flattr4j.async.BulkResult;
+import org.shredzone.flattr4j.async.FlattrExecutor;
+import org.shredzone.flattr4j.async.FlattrFuture;
+import org.shredzone.flattr4j.async.PaginatedFlattrCallable;
+import org.shredzone.flattr4j.async.RateLimitGuard;
+import org.shredzone.flattr4j.async.activity.GetActivitiesMethod;
+import org.shredzone.flattr4j.async.activity.GetMyActivitiesMethod;
+import org.shredzone.flattr4j.async.common.GetCategoriesMethod;
+import org.shredzone.flattr4j.async.common.GetLanguagesMethod;
+import org.shredzone.flattr4j.async.flattr.GetFlattrsMethod;
+import org.shredzone.flattr4j.async.flattr.GetMyFlattrsMethod;
+import org.shredzone.flattr4j.async.subscription.GetMySubscriptions;
+import org.shredzone.flattr4j.async.subscription.GetSubscriptionMethod;
+import org.shredzone.flattr4j.async.subscription.PauseSubscriptionMethod;
+import org.shredzone.flattr4j.async.subscription.SubscribeMethod;
+import org.shredzone.flattr4j.async.subscription.ToggleSubscriptionMethod;
+import org.shredzone.flattr4j.async.subscription.UnsubscribeMethod;
+import org.shredzone.flattr4j.async.thing.CreateMethod;
+import org.shredzone.flattr4j.async.thing.DeleteMethod;
+import org.shredzone.flattr4j.async.thing.FlattrMethod;
+import org.shredzone.flattr4j.async.thing.GetMyThingsMethod;
+import org.shredzone.flattr4j.async.thing.GetThingMethod;
+import org.shredzone.flattr4j.async.thing.GetThingsFromCollectionMethod;
+import org.shredzone.flattr4j.async.thing.GetThingsMethod;
+import org.shredzone.flattr4j.async.thing.SearchThingsMethod;
+import org.shredzone.flattr4j.async.thing.UpdateMethod;
+import org.shredzone.flattr4j.async.user.GetMyselfMethod;
+import org.shredzone.flattr4j.async.user.GetUserMethod;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+import org.shredzone.flattr4j.model.Activity;
+import org.shredzone.flattr4j.model.AutoSubmission;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Flattr;
+import org.shredzone.flattr4j.model.Language;
+import org.shredzone.flattr4j.model.MiniThing;
+import org.shredzone.flattr4j.model.SearchQuery;
+import org.shredzone.flattr4j.model.SearchResult;
+import org.shredzone.flattr4j.model.Submission;
+import org.shredzone.flattr4j.model.Subscription;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.model.User;
+import org.shredzone.flattr4j.model.UserId;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+/**
+ * Default implementation of {@link AsyncFlattrService}. Every call is wrapped into the
+ * corresponding {@link AbstractFlattrCallable} and handed to an {@link Executor}.
+ * <p>
+ * The number of concurrent connections to the Flattr server is limited by the
+ * {@link Executor}, so a bounded thread pool should be used. Alternatively, a
+ * {@link FlattrExecutor} can be used, which also reuses the {@link FlattrService} and
+ * limits the number of concurrent calls per access token. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class AsyncFlattrServiceImpl implements AsyncFlattrService {
+
+    private final AccessToken accessToken;
+    private final Executor executor;
+    private final AtomicReference<RateLimit> lastRateLimit = new AtomicReference<RateLimit>();
+    private volatile boolean fullMode = false;
+
+    /**
+     * Creates a new {@link AsyncFlattrServiceImpl}.
+     *
+     * @param accessToken
+     *            {@link AccessToken} to be used for all calls, or {@code null} for
+     *            anonymous calls
+     * @param executor
+     *            {@link Executor} that executes the calls. If it is a
+     *            {@link FlattrExecutor}, the calls are submitted to it.
+     */
+    public AsyncFlattrServiceImpl(AccessToken accessToken, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is required");
+        }
+        this.accessToken = accessToken;
+        this.executor = executor;
+    }
+
+    @Override
+    public void setFullMode(boolean full)       { this.fullMode = full; }
+
+    @Override
+    public boolean isFullMode()                 { return fullMode; }
+
+    @Override
+    public RateLimit getLastRateLimit() {
+        return lastRateLimit.get();
+    }
+
+    @Override
+    public FlattrFuture<Thing> getThing(ThingId thingId) {
+        return submit(new GetThingMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<Thing> getThingByUrl(String url) {
+        return submit(new GetThingMethod(url));
+    }
+
+    @Override
+    public FlattrFuture<Thing> getThingBySubmission(AutoSubmission submission) {
+        return submit(new GetThingMethod(submission));
+    }
+
+    @Override
+    public FlattrFuture<List<Thing>> getThings(UserId user, Integer count, Integer page) {
+        return submit(paginate(new GetThingsMethod(user), count, page));
+    }
+
+    @Override
+    public FlattrFuture<List<Thing>> getThings(Collection<? extends ThingId> thingIds) {
+        return submit(new GetThingsFromCollectionMethod(thingIds));
+    }
+
+    @Override
+    public FlattrFuture<SearchResult> searchThings(SearchQuery query, Integer count, Integer page) {
+        return submit(paginate(new SearchThingsMethod(query), count, page));
+    }
+
+    @Override
+    public FlattrFuture<User> getUser(UserId user) {
+        return submit(new GetUserMethod(user));
+    }
+
+    @Override
+    public FlattrFuture<List<Flattr>> getFlattrs(UserId user, Integer count, Integer page) {
+        return submit(paginate(new GetFlattrsMethod(user), count, page));
+    }
+
+    @Override
+    public FlattrFuture<List<Flattr>> getFlattrs(ThingId thing, Integer count, Integer page) {
+        return submit(paginate(new GetFlattrsMethod(thing), count, page));
+    }
+
+    @Override
+    public FlattrFuture<List<Activity>> getActivities(UserId user, Activity.Type type) {
+        return submit(new GetActivitiesMethod(user, type));
+    }
+
+    @Override
+    public FlattrFuture<List<Category>> getCategories() {
+        return submit(new GetCategoriesMethod());
+    }
+
+    @Override
+    public FlattrFuture<List<Language>> getLanguages() {
+        return submit(new GetLanguagesMethod());
+    }
+
+    @Override
+    public FlattrFuture<ThingId> create(Submission thing) {
+        return submit(new CreateMethod(thing));
+    }
+
+    @Override
+    public FlattrFuture<Void> update(Thing thing) {
+        return submit(new UpdateMethod(thing));
+    }
+
+    @Override
+    public FlattrFuture<Void> delete(ThingId thingId) {
+        return submit(new DeleteMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<MiniThing> flattr(ThingId thingId) {
+        return submit(new FlattrMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<BulkResult<ThingId, MiniThing>> flattr(Collection<? extends ThingId> thingIds) {
+        Map<ThingId, FlattrMethod> callables = new LinkedHashMap<ThingId, FlattrMethod>();
+        for (ThingId thingId : thingIds) {
+            callables.put(thingId, new FlattrMethod(thingId));
+        }
+        return submitAll(callables);
+    }
+
+    @Override
+    public FlattrFuture<MiniThing> flattr(AutoSubmission submission) {
+        return submit(new FlattrMethod(submission));
+    }
+
+    @Override
+    public FlattrFuture<MiniThing> flattr(String url) {
+        return submit(new FlattrMethod(url));
+    }
+
+    @Override
+    public FlattrFuture<Void> subscribe(ThingId thingId) {
+        return submit(new SubscribeMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<BulkResult<ThingId, Void>> subscribe(Collection<? extends ThingId> thingIds) {
+        Map<ThingId, SubscribeMethod> callables = new LinkedHashMap<ThingId, SubscribeMethod>();
+        for (ThingId thingId : thingIds) {
+            callables.put(thingId, new SubscribeMethod(thingId));
+        }
+        return submitAll(callables);
+    }
+
+    @Override
+    public FlattrFuture<Void> unsubscribe(ThingId thingId) {
+        return submit(new UnsubscribeMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<User> getMyself() {
+        return submit(new GetMyselfMethod());
+    }
+
+    @Override
+    public FlattrFuture<List<Thing>> getMyThings(Integer count, Integer page) {
+        return submit(paginate(new GetMyThingsMethod(), count, page));
+    }
+
+    @Override
+    public FlattrFuture<List<Flattr>> getMyFlattrs(Integer count, Integer page) {
+        return submit(paginate(new GetMyFlattrsMethod(), count, page));
+    }
+
+    @Override
+    public FlattrFuture<List<Activity>> getMyActivities(Activity.Type type) {
+        return submit(new GetMyActivitiesMethod(type));
+    }
+
+    @Override
+    public FlattrFuture<List<Subscription>> getMySubscriptions() {
+        return submit(new GetMySubscriptions());
+    }
+
+    @Override
+    public FlattrFuture<Subscription> getSubscription(ThingId thingId) {
+        return submit(new GetSubscriptionMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<Boolean> toggleSubscription(ThingId thingId) {
+        return submit(new ToggleSubscriptionMethod(thingId));
+    }
+
+    @Override
+    public FlattrFuture<Void> pauseSubscription(ThingId thingId, boolean paused) {
+        return submit(new PauseSubscriptionMethod(thingId, paused));
+    }
+
+    @Override
+    public FlattrFuture<RateLimit> getCurrentRateLimit() {
+        return submit(new AbstractFlattrCallable<RateLimit>() {
+            @Override
+            public RateLimit call(FlattrService service) throws Exception {
+                return service.getCurrentRateLimit();
+            }
+        });
+    }
+
+    /**
+     * Submits an {@link AbstractFlattrCallable} for execution. The callable is
+     * configured with the access token and full mode of this service.
+     * <p>
+     * This method can be used for invoking custom {@link AbstractFlattrCallable}
+     * implementations.
+     *
+     * @param callable
+     *            {@link AbstractFlattrCallable} to be executed
+     * @return {@link FlattrFuture} of the result
+     */
+    public <R> FlattrFuture<R> submit(final AbstractFlattrCallable<R> callable) {
+        callable.setAccessToken(accessToken);
+        callable.setFullMode(fullMode);
+
+        if (executor instanceof FlattrExecutor) {
+            AbstractFlattrCallable<R> wrapper = new AbstractFlattrCallable<R>() {
+                @Override
+                public R call(FlattrService service) throws Exception {
+                    R result = callable.callShared(service);
+                    lastRateLimit.set(callable.getRateLimit());
+                    return result;
+                }
+            };
+            wrapper.setAccessToken(accessToken);
+            wrapper.setFullMode(fullMode);
+            return ((FlattrExecutor) executor).submit(wrapper);
+        }
+
+        FlattrFuture<R> future = new FlattrFuture<R>(new Callable<R>() {
+            @Override
+            public R call() throws Exception {
+                R result = callable.call();
+                lastRateLimit.set(callable.getRateLimit());
+                return result;
+            }
+        });
+
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Submits a bulk operation. Every {@link AbstractFlattrCallable} is configured with
+     * the access token and full mode of this service, and is submitted for execution.
+     * <p>
+     * A failing call does not abort the other calls. If the rate limit is exceeded, the
+     * remaining calls are not sent to the server, but fail with a
+     * {@link RateLimitExceededException} (see {@link RateLimitGuard}).
+     * <p>
+     * This method can be used for bulk invocations of custom
+     * {@link AbstractFlattrCallable} implementations.
+     *
+     * @param callables
+     *            Map of items and the {@link AbstractFlattrCallable} to be executed for
+     *            them
+     * @return {@link FlattrFuture} of the {@link BulkResult}, which is completed when
+     *         all calls are completed
+     */
+    public <K, R> FlattrFuture<BulkResult<K, R>> submitAll(Map<K, ? extends AbstractFlattrCallable<R>> callables) {
+        RateLimitGuard guard = new RateLimitGuard();
+
+        Map<K, FlattrFuture<R>> futures = new LinkedHashMap<K, FlattrFuture<R>>();
+        for (Map.Entry<K, ? extends AbstractFlattrCallable<R>> entry : callables.entrySet()) {
+            AbstractFlattrCallable<R> callable = entry.getValue();
+            callable.setAccessToken(accessToken);
+            callable.setFullMode(fullMode);
+            futures.put(entry.getKey(), submit(guard.guard(callable)));
+        }
+
+        return BulkResult.collect(futures);
+    }
+
+    /**
+     * Sets the pagination parameters of a {@link PaginatedFlattrCallable}.
+     */
+    private static <C extends PaginatedFlattrCallable<?>> C paginate(C callable, Integer count, Integer page) {
+        callable.setCount(count);
+        callable.setPage(page);
+        return callable;
+    }
+
+}
@@ -142,12 +142,32 @@ public class AbstractFlattrCallableTest {
             sameInstance(callable.getResult())
         ));
         verify(mockService).getLastRateLimit();
+        verify(mockService).clearThreadRateLimit();
         assertThat(callable.getRateLimit(), allOf(
             notNullValue(),
             not(sameInstance(mockService.getLastRateLimit()))
         ));
     }
 
+    @Test
+    public void testCallShared() throws Exception {
+        final FlattrService mockService = mock(FlattrService.class);
+        RateLimit limit = new RateLimit();
+        limit.setRemaining(42L);
+        when(mockService.getThreadRateLimit()).thenReturn(limit);
+
+        final AbstractFlattrCallable<String> callable = new AbstractFlattrCallable<String>() {
+            @Override
+            public String call(FlattrService service) throws Exception {
+                return "result";
+            }
+        };
+
+        assertThat(callable.callShared(mockService), is("result"));
+        assertThat(callable.getRateLimit().getRemaining(), is(42L));
+        verify(mockService).clearThreadRateLimit();
+    }
+
     @Test
     public void testSetFullMode() throws Exception {
         final FlattrService mockService = mock(FlattrService.class);
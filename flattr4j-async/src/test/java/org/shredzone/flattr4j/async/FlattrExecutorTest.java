@@ -0,0 +1,262 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.ForbiddenException;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+/**
+ * Unit tests for {@link FlattrExecutor}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class FlattrExecutorTest {
+
+    private final List<AccessToken> createdFor = new ArrayList<AccessToken>();
+    private FlattrExecutor executor;
+
+    @Before
+    public void setup() {
+        executor = new FlattrExecutor(4) {
+            @Override
+            protected FlattrService createFlattrService(AccessToken token) {
+                synchronized (createdFor) {
+                    createdFor.add(token);
+                }
+                FlattrService service = mock(FlattrService.class);
+                when(service.getThreadRateLimit()).thenReturn(new RateLimit());
+                return service;
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Test that the {@link FlattrService} is reused for the same access token and full
+     * mode.
+     */
+    @Test
+    public void testServiceReuse() throws Exception {
+        AccessToken token1 = new AccessToken("token1");
+        AccessToken token2 = new AccessToken("token2");
+
+        FlattrService s1 = executor.submit(new ServiceCallable(token1, false)).get();
+        FlattrService s2 = executor.submit(new ServiceCallable(new AccessToken("token1"), false)).get();
+        FlattrService s3 = executor.submit(new ServiceCallable(token1, true)).get();
+        FlattrService s4 = executor.submit(new ServiceCallable(token2, false)).get();
+        FlattrService s5 = executor.submit(new ServiceCallable(null, false)).get();
+
+        assertThat(s2, is(sameInstance(s1)));
+        assertThat(s3, is(not(sameInstance(s1))));
+        assertThat(s4, is(not(sameInstance(s1))));
+        assertThat(s5, is(not(sameInstance(s1))));
+        assertThat(createdFor.size(), is(4));
+        verify(s3).setFullMode(true);
+    }
+
+    /**
+     * Test that the number of concurrent calls per token is limited, while calls of
+     * other tokens are still executed.
+     */
+    @Test
+    public void testLimitPerToken() throws Exception {
+        executor.setMaxConcurrentPerToken(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<FlattrFuture<FlattrService>> futures = new ArrayList<FlattrFuture<FlattrService>>();
+        for (int ix = 0; ix < 3; ix++) {
+            futures.add(executor.submit(new ServiceCallable(new AccessToken("busy"), false) {
+                @Override
+                public FlattrService call(FlattrService service) throws Exception {
+                    int now = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+                    release.await(10, TimeUnit.SECONDS);
+                    running.decrementAndGet();
+                    return service;
+                }
+            }));
+        }
+
+        // Another token is not blocked by the busy token
+        executor.submit(new ServiceCallable(new AccessToken("other"), false)).get(10, TimeUnit.SECONDS);
+        assertThat(futures.get(2).isDone(), is(false));
+
+        release.countDown();
+        for (FlattrFuture<FlattrService> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(maxRunning.get(), is(1));
+    }
+
+    /**
+     * Test that callbacks are invoked, and the rate limit is set.
+     */
+    @Test
+    public void testCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicReference<Object> success = new AtomicReference<Object>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        FlattrCallback<Object> callback = new FlattrCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                success.set(result);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                failure.set(cause);
+                latch.countDown();
+            }
+        };
+
+        ServiceCallable good = new ServiceCallable(null, false);
+        executor.submit(good, callback);
+        executor.submit(new ServiceCallable(null, false) {
+            @Override
+            public FlattrService call(FlattrService service) throws Exception {
+                throw new FlattrException("failed");
+            }
+        }, callback);
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(success.get(), is(notNullValue()));
+        assertThat(failure.get(), is(instanceOf(FlattrException.class)));
+        assertThat(good.getRateLimit(), is(notNullValue()));
+    }
+
+    /**
+     * Test that bulk operations return the result or exception of every item, and stop
+     * sending calls of an access token when its rate limit is exceeded.
+     */
+    @Test
+    public void testSubmitAll() throws Exception {
+        executor.setMaxConcurrentPerToken(1);
+
+        final AtomicInteger limitedCalls = new AtomicInteger();
+        Map<String, ServiceCallable> callables = new LinkedHashMap<String, ServiceCallable>();
+        callables.put("good1", new ServiceCallable(new AccessToken("token1"), false));
+        callables.put("forbidden", new ServiceCallable(new AccessToken("token1"), false) {
+            @Override
+            public FlattrService call(FlattrService service) throws Exception {
+                throw new ForbiddenException("forbidden", "forbidden");
+            }
+        });
+        callables.put("good2", new ServiceCallable(new AccessToken("token1"), false));
+        for (int ix = 0; ix < 3; ix++) {
+            callables.put("limited" + ix, new ServiceCallable(new AccessToken("token2"), false) {
+                @Override
+                public FlattrService call(FlattrService service) throws Exception {
+                    limitedCalls.incrementAndGet();
+                    throw new RateLimitExceededException("rate_limit_exceeded", "exceeded");
+                }
+            });
+        }
+
+        BulkResult<String, FlattrService> result = executor.submitAll(callables).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.isSuccessful(), is(false));
+        assertThat(result.getResults().keySet(), contains("good1", "good2"));
+        assertThat(result.getFailures().keySet(), contains("forbidden", "limited0", "limited1", "limited2"));
+        assertThat(result.isSuccessful("good1"), is(true));
+        assertThat(result.getResult("good1"), is(notNullValue()));
+        assertThat(result.getFailure("forbidden"), is(instanceOf(ForbiddenException.class)));
+        assertThat(result.getFailure("limited2"), is(instanceOf(RateLimitExceededException.class)));
+        assertThat(limitedCalls.get(), is(1));
+
+        // Further calls fail with their own exception, caused by the first one
+        Throwable first = result.getFailure("limited0");
+        assertThat(first.getCause(), is(nullValue()));
+        assertThat(result.getFailure("limited1"), is(not(sameInstance(first))));
+        assertThat(result.getFailure("limited1").getCause(), is(sameInstance(first)));
+        assertThat(result.getFailure("limited2").getCause(), is(sameInstance(first)));
+    }
+
+    /**
+     * Test that an empty bulk operation is completed immediately.
+     */
+    @Test
+    public void testSubmitAllEmpty() throws Exception {
+        BulkResult<String, FlattrService> result =
+                        executor.submitAll(new LinkedHashMap<String, ServiceCallable>()).get(10, TimeUnit.SECONDS);
+        assertThat(result.isSuccessful(), is(true));
+        assertThat(result.getResults().isEmpty(), is(true));
+    }
+
+    /**
+     * Test that calls are rejected after shutdown.
+     */
+    @Test
+    public void testShutdown() throws Exception {
+        executor.shutdown();
+        try {
+            executor.submit(new ServiceCallable(null, false));
+            fail("call was accepted after shutdown");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * A callable that returns the {@link FlattrService} it was invoked with.
+     */
+    private static class ServiceCallable extends AbstractFlattrCallable<FlattrService> {
+        public ServiceCallable(AccessToken token, boolean full) {
+            setAccessToken(token);
+            setFullMode(full);
+        }
+
+        @Override
+        public FlattrService call(FlattrService service) throws Exception {
+            return service;
+        }
+    }
+
+}
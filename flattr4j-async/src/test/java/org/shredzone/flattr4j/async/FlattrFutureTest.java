@@ -0,0 +1,155 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+import org.shredzone.flattr4j.exception.NotFoundException;
+
+/**
+ * Unit tests for {@link FlattrFuture}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class FlattrFutureTest {
+
+    @Test
+    public void testSuccess() throws Exception {
+        FlattrFuture<String> future = new FlattrFuture<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "result";
+            }
+        });
+
+        RecordingCallback early = new RecordingCallback();
+        future.addCallback(early);
+        assertThat(early.calls, is(0));
+
+        future.run();
+        assertThat(future.get(), is("result"));
+        assertThat(early.calls, is(1));
+        assertThat(early.result, is((Object) "result"));
+        assertThat(early.cause, nullValue());
+
+        RecordingCallback late = new RecordingCallback();
+        future.addCallback(late);
+        assertThat(late.calls, is(1));
+        assertThat(late.result, is((Object) "result"));
+        assertThat(early.calls, is(1));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final NotFoundException ex = new NotFoundException("not_found", "not found");
+
+        FlattrFuture<String> future = new FlattrFuture<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw ex;
+            }
+        });
+
+        RecordingCallback callback = new RecordingCallback();
+        future.addCallback(callback);
+        future.run();
+
+        assertThat(callback.calls, is(1));
+        assertThat(callback.result, nullValue());
+        assertThat(callback.cause, sameInstance((Throwable) ex));
+
+        try {
+            future.get();
+            fail("no exception was thrown");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), sameInstance((Throwable) ex));
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        FlattrFuture<String> future = new FlattrFuture<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "result";
+            }
+        });
+
+        RecordingCallback callback = new RecordingCallback();
+        future.addCallback(callback);
+        future.cancel(false);
+
+        assertThat(callback.calls, is(1));
+        assertThat(callback.cause, instanceOf(CancellationException.class));
+    }
+
+    @Test
+    public void testFailingCallback() throws Exception {
+        FlattrFuture<String> future = new FlattrFuture<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "result";
+            }
+        });
+
+        future.addCallback(new FlattrCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                throw new IllegalStateException("callback failed");
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                fail("onFailure was invoked");
+            }
+        });
+
+        RecordingCallback callback = new RecordingCallback();
+        future.addCallback(callback);
+        future.run();
+
+        assertThat(future.get(), is("result"));
+        assertThat(callback.calls, is(1));
+    }
+
+    private static class RecordingCallback implements FlattrCallback<Object> {
+        private int calls = 0;
+        private Object result;
+        private Throwable cause;
+
+        @Override
+        public void onSuccess(Object result) {
+            this.calls++;
+            this.result = result;
+        }
+
+        @Override
+        public void onFailure(Throwable cause) {
+            this.calls++;
+            this.cause = cause;
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.async.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.async.AbstractFlattrCallable;
+import org.shredzone.flattr4j.async.BulkResult;
+import org.shredzone.flattr4j.async.FlattrExecutor;
+import org.shredzone.flattr4j.async.FlattrFuture;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.NoMoneyException;
+import org.shredzone.flattr4j.model.MiniThing;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+/**
+ * Unit tests for {@link AsyncFlattrServiceImpl}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class AsyncFlattrServiceImplTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        final AccessToken accessToken = new AccessToken("token123");
+
+        RateLimit limit = new RateLimit();
+        limit.setRemaining(42L);
+
+        final FlattrService mockService = mock(FlattrService.class);
+        when(mockService.getLastRateLimit()).thenReturn(limit);
+
+        AsyncFlattrServiceImpl service = new AsyncFlattrServiceImpl(accessToken, executor);
+        service.setFullMode(true);
+        assertThat(service.getLastRateLimit(), nullValue());
+
+        FlattrFuture<String> future = service.submit(new AbstractFlattrCallable<String>() {
+            @Override
+            public String call(FlattrService service) throws Exception {
+                return "result";
+            }
+
+            @Override
+            protected FlattrService createFlattrService(AccessToken token) {
+                assertThat(token, sameInstance(accessToken));
+                return mockService;
+            }
+        });
+
+        assertThat(future.get(10, TimeUnit.SECONDS), is("result"));
+        verify(mockService).setFullMode(true);
+        assertThat(service.getLastRateLimit().getRemaining(), is(42L));
+    }
+
+    @Test
+    public void testFlattrExecutor() throws Exception {
+        final AccessToken accessToken = new AccessToken("token123");
+
+        RateLimit limit = new RateLimit();
+        limit.setRemaining(42L);
+
+        final FlattrService mockService = mock(FlattrService.class);
+        when(mockService.getThreadRateLimit()).thenReturn(limit);
+
+        FlattrExecutor flattrExecutor = new FlattrExecutor(executor) {
+            @Override
+            protected FlattrService createFlattrService(AccessToken token) {
+                assertThat(token.getToken(), is(accessToken.getToken()));
+                return mockService;
+            }
+        };
+
+        AsyncFlattrServiceImpl service = new AsyncFlattrServiceImpl(accessToken, flattrExecutor);
+        service.setFullMode(true);
+
+        FlattrFuture<String> future = service.submit(new AbstractFlattrCallable<String>() {
+            @Override
+            public String call(FlattrService service) throws Exception {
+                assertThat(service, sameInstance(mockService));
+                return "result";
+            }
+        });
+
+        assertThat(future.get(10, TimeUnit.SECONDS), is("result"));
+        verify(mockService).setFullMode(true);
+        assertThat(service.getLastRateLimit().getRemaining(), is(42L));
+    }
+
+    @Test
+    public void testBulkFlattr() throws Exception {
+        // The rate limit of a call can only be read once, like after a
+        // FlattrService.clearThreadRateLimit() invocation
+        final ThreadLocal<RateLimit> threadRateLimit = new ThreadLocal<RateLimit>();
+
+        final FlattrService mockService = mock(FlattrService.class);
+        when(mockService.getThreadRateLimit()).thenAnswer(new Answer<RateLimit>() {
+            @Override
+            public RateLimit answer(InvocationOnMock invocation) throws Throwable {
+                RateLimit limit = threadRateLimit.get();
+                threadRateLimit.remove();
+                return limit;
+            }
+        });
+        when(mockService.flattr(any(ThingId.class))).thenAnswer(new Answer<MiniThing>() {
+            @Override
+            public MiniThing answer(InvocationOnMock invocation) throws Throwable {
+                RateLimit limit = new RateLimit();
+                limit.setRemaining(42L);
+                threadRateLimit.set(limit);
+
+                ThingId thingId = (ThingId) invocation.getArguments()[0];
+                if ("2".equals(thingId.getThingId())) {
+                    throw new NoMoneyException("no_means", "no money");
+                }
+                return new MiniThing(new FlattrObject("{\"id\":" + thingId.getThingId() + "}"));
+            }
+        });
+
+        FlattrExecutor flattrExecutor = new FlattrExecutor(executor) {
+            @Override
+            protected FlattrService createFlattrService(AccessToken token) {
+                return mockService;
+            }
+        };
+
+        AsyncFlattrServiceImpl service = new AsyncFlattrServiceImpl(new AccessToken("token123"), flattrExecutor);
+
+        ThingId t1 = Thing.withId("1");
+        ThingId t2 = Thing.withId("2");
+        ThingId t3 = Thing.withId("3");
+
+        BulkResult<ThingId, MiniThing> result = service.flattr(Arrays.asList(t1, t2, t3))
+                        .get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getResults().keySet(), contains(t1, t3));
+        assertThat(result.getResult(t3).getThingId(), is("3"));
+        assertThat(result.getFailure(t2), is(instanceOf(NoMoneyException.class)));
+        verify(mockService, times(3)).flattr(any(ThingId.class));
+        assertThat(service.getLastRateLimit().getRemaining(), is(42L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoExecutor() {
+        new AsyncFlattrServiceImpl(null, null);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.benchmark;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.model.Activity;
+
+/**
+ * Benchmarks the publication date of {@link Activity}, compared to the previous
+ * implementation that used {@link SimpleDateFormat} and a regular expression.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ActivityBenchmark {
+
+    private FlattrObject data;
+    private Activity activity;
+    private String published;
+
+    @Setup
+    public void setup() {
+        data = new FlattrObject(Fixtures.load("activity.json"));
+        activity = new Activity(data);
+        published = data.get("published");
+    }
+
+    @Benchmark
+    public Date published() {
+        return new Activity(data).getPublished();
+    }
+
+    @Benchmark
+    public Date publishedCached() {
+        return activity.getPublished();
+    }
+
+    @Benchmark
+    public Date publishedLegacy() {
+        try {
+            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+            return fmt.parse(published.replaceAll("(\\d\\d):(\\d\\d)$", "$1$2"));
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+}
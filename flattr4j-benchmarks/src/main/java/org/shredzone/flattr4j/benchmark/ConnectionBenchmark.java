@@ -0,0 +1,111 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.impl.FlattrConnector;
+import org.shredzone.flattr4j.connector.impl.PooledTransport;
+import org.shredzone.flattr4j.exception.FlattrException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Benchmarks a complete request via {@link org.shredzone.flattr4j.connector.impl.FlattrConnection#result()},
+ * against a local HTTP server that returns a page of things.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int pageSize;
+
+    @Param({"default", "pooled"})
+    private String transport;
+
+    private HttpServer server;
+    private PooledTransport pooledTransport;
+    private FlattrConnector connector;
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] body = Fixtures.array(Fixtures.load("thing.json"), pageSize).getBytes("utf-8");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+
+        connector = new FlattrConnector();
+        connector.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/");
+        if ("pooled".equals(transport)) {
+            pooledTransport = new PooledTransport();
+            connector.setTransport(pooledTransport);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pooledTransport != null) {
+            pooledTransport.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Collection<FlattrObject> result() throws FlattrException {
+        return connector.create().call("things/:id").parameter("id", "268185").result();
+    }
+
+}
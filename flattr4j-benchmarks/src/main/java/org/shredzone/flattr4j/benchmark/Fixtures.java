@@ -0,0 +1,101 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Loads the JSON fixtures used by the benchmarks.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+        // utility class without constructor
+    }
+
+    /**
+     * Loads a JSON fixture from the class path.
+     *
+     * @param name
+     *            Resource name, e.g. "thing.json"
+     * @return JSON string
+     */
+    public static String load(String name) {
+        InputStream in = Fixtures.class.getResourceAsStream("/" + name);
+        if (in == null) {
+            throw new IllegalArgumentException("no such fixture: " + name);
+        }
+
+        try (Reader reader = new InputStreamReader(in, "utf-8")) {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[1024];
+            int len;
+            while ((len = reader.read(buffer)) >= 0) {
+                sb.append(buffer, 0, len);
+            }
+            return sb.toString();
+        } catch (IOException ex) {
+            throw new IllegalStateException("could not read fixture: " + name, ex);
+        }
+    }
+
+    /**
+     * Creates a JSON array containing the given element several times.
+     *
+     * @param element
+     *            JSON element
+     * @param count
+     *            Number of elements
+     * @return JSON array
+     */
+    public static String array(String element, int count) {
+        StringBuilder sb = new StringBuilder(element.length() * count + count + 2);
+        sb.append('[');
+        for (int ix = 0; ix < count; ix++) {
+            if (ix > 0) {
+                sb.append(',');
+            }
+            sb.append(element);
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Creates a search result page containing the given thing several times, like
+     * "searchresult.json" but with a larger page.
+     *
+     * @param thing
+     *            JSON of a thing
+     * @param count
+     *            Number of things
+     * @return JSON search result
+     */
+    public static String searchResult(String thing, int count) {
+        return "{\"total_items\":" + count + ",\"items\":" + count + ",\"page\":1,\"things\":"
+                + array(thing, count) + "}";
+    }
+
+}
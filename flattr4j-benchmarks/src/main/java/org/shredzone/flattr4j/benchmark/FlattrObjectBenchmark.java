@@ -0,0 +1,113 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.shredzone.flattr4j.connector.FlattrObject;
+
+/**
+ * Benchmarks the accessors of {@link FlattrObject}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlattrObjectBenchmark {
+
+    private String json;
+    private FlattrObject thing;
+
+    @Setup
+    public void setup() {
+        json = Fixtures.load("thing.json");
+        thing = new FlattrObject(json);
+    }
+
+    @Benchmark
+    public FlattrObject parse() {
+        return new FlattrObject(json);
+    }
+
+    @Benchmark
+    public FlattrObject parseEager() {
+        return new FlattrObject(new JSONObject(json));
+    }
+
+    @Benchmark
+    public void listing(Blackhole bh) {
+        FlattrObject fo = new FlattrObject(json);
+        bh.consume(fo.getInt("id"));
+        bh.consume(fo.getInt("flattrs"));
+    }
+
+    @Benchmark
+    public void listingEager(Blackhole bh) {
+        FlattrObject fo = new FlattrObject(new JSONObject(json));
+        bh.consume(fo.getInt("id"));
+        bh.consume(fo.getInt("flattrs"));
+    }
+
+    @Benchmark
+    public void getters(Blackhole bh) {
+        bh.consume(thing.get("title"));
+        bh.consume(thing.get("url"));
+        bh.consume(thing.getInt("flattrs"));
+        bh.consume(thing.getBoolean("hidden"));
+    }
+
+    @Benchmark
+    public void getDate(Blackhole bh) {
+        bh.consume(thing.getDate("created_at"));
+    }
+
+    @Benchmark
+    public void getStrings(Blackhole bh) {
+        bh.consume(thing.getStrings("tags"));
+    }
+
+    @Benchmark
+    public void getNested(Blackhole bh) {
+        bh.consume(thing.getSubString("owner", "username"));
+        bh.consume(thing.getFlattrObject("owner"));
+    }
+
+    @Benchmark
+    public String serialize() {
+        return thing.toString();
+    }
+
+}
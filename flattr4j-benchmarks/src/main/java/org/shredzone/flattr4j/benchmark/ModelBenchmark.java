@@ -0,0 +1,93 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.model.Activity;
+import org.shredzone.flattr4j.model.Flattr;
+import org.shredzone.flattr4j.model.Thing;
+
+/**
+ * Benchmarks the construction of model objects from JSON, and their most common
+ * getters.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    private String thingJson;
+    private String flattrJson;
+    private String activityJson;
+
+    @Setup
+    public void setup() {
+        thingJson = Fixtures.load("thing.json");
+        flattrJson = Fixtures.load("flattr.json");
+        activityJson = Fixtures.load("activity.json");
+    }
+
+    @Benchmark
+    public void thing(Blackhole bh) {
+        Thing thing = new Thing(new FlattrObject(thingJson));
+        bh.consume(thing.getThingId());
+        bh.consume(thing.getTitle());
+        bh.consume(thing.getCreated());
+        bh.consume(thing.getTags());
+        bh.consume(thing.getUserId());
+    }
+
+    @Benchmark
+    public void flattr(Blackhole bh) {
+        Flattr flattr = new Flattr(new FlattrObject(flattrJson));
+        bh.consume(flattr.getThingId());
+        bh.consume(flattr.getCreated());
+        bh.consume(flattr.getThing().getTitle());
+        bh.consume(flattr.getUserId());
+    }
+
+    @Benchmark
+    public void activity(Blackhole bh) {
+        Activity activity = new Activity(new FlattrObject(activityJson));
+        bh.consume(activity.getPublished());
+        bh.consume(activity.getTitle());
+        bh.consume(activity.getActor("displayName"));
+        bh.consume(activity.getObject("url"));
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.shredzone.flattr4j.benchmark.Fixtures;
+import org.shredzone.flattr4j.connector.FlattrObject;
+
+/**
+ * Benchmarks the parsing of large JSON responses. It is located in the connector
+ * implementation package, so the package private {@link JsonArrayReader} can be
+ * measured as well.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private String thingPage;
+    private String searchPage;
+
+    @Setup
+    public void setup() {
+        String thing = Fixtures.load("thing.json");
+        thingPage = Fixtures.array(thing, pageSize);
+        searchPage = Fixtures.searchResult(thing, pageSize);
+    }
+
+    /**
+     * Parses the page as a whole, like flattr4j did before responses were streamed.
+     */
+    @Benchmark
+    public void tokenizer(Blackhole bh) {
+        JSONArray array = (JSONArray) new JSONTokener(thingPage).nextValue();
+        for (int ix = 0; ix < array.length(); ix++) {
+            bh.consume(new FlattrObject(array.getJSONObject(ix)));
+        }
+    }
+
+    /**
+     * Parses the page element by element, like {@link FlattrConnection} does.
+     */
+    @Benchmark
+    public void arrayReader(Blackhole bh) throws IOException {
+        JsonArrayReader reader = new JsonArrayReader(new StringReader(thingPage));
+        reader.startArray();
+        String element;
+        while ((element = reader.nextElement()) != null) {
+            bh.consume(new FlattrObject(new JSONObject(element)));
+        }
+    }
+
+    /**
+     * Parses a search result page, which is a single JSON object.
+     */
+    @Benchmark
+    public void searchResult(Blackhole bh) {
+        FlattrObject result = new FlattrObject(searchPage);
+        bh.consume(result.getObjects("things"));
+    }
+
+}
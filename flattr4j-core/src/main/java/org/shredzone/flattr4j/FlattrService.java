@@ -105,12 +105,27 @@ public interface FlattrService {
      */
     List<Thing> getThings(UserId user, Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Thing} submitted by the given user. The entries are fetched page by page
+     * while iterating.
+     *
+     * @param user
+     *            {@link UserId} to get the things of
+     * @return Lazy {@link Iterable} of {@link Thing}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    Iterable<Thing> iterateThings(UserId user);
+
     /**
      * Gets a list of {@link Thing} by a collection of thing IDs.
+     * <p>
+     * Since v2.15, the {@link Thing} are returned in the order of the provided IDs.
+     * Duplicate IDs are only returned once, and unknown IDs are skipped. Large
+     * collections are fetched in several requests.
      *
      * @param thingIds
-     *            Collection of {@link ThingId}. The order of {@link Thing} returned may
-     *            not match the order of the provided IDs.
+     *            Collection of {@link ThingId}
      * @return List of {@link Thing} fetched
      * @since 2.0
      */
@@ -130,6 +145,18 @@ public interface FlattrService {
      */
     SearchResult searchThings(SearchQuery query, Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Thing} matching the search query. The entries are fetched page by page
+     * while iterating.
+     *
+     * @param query
+     *            {@link SearchQuery}, or {@code null} to search for everything
+     * @return Lazy {@link Iterable} of {@link Thing}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    Iterable<Thing> iterateSearch(SearchQuery query);
+
     /**
      * Gets the {@link User} profile of the given user ID.
      *
@@ -164,6 +191,18 @@ public interface FlattrService {
      */
     List<Flattr> getFlattrs(UserId user, Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Flattr} of the given user. The entries are fetched page by page
+     * while iterating.
+     *
+     * @param user
+     *            {@link UserId} to get the flattrs of
+     * @return Lazy {@link Iterable} of {@link Flattr}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    Iterable<Flattr> iterateFlattrs(UserId user);
+
     /**
      * Gets all {@link Flattr} most recently posted for the given thing ID.
      *
@@ -188,6 +227,18 @@ public interface FlattrService {
      */
     List<Flattr> getFlattrs(ThingId thing, Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Flattr} of the given thing. The entries are fetched page by page
+     * while iterating.
+     *
+     * @param thing
+     *            {@link ThingId} to get the flattrs of
+     * @return Lazy {@link Iterable} of {@link Flattr}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    Iterable<Flattr> iterateFlattrs(ThingId thing);
+
     /**
      * Returns all {@link Activity} of the given user ID.
      *
@@ -336,6 +387,17 @@ public interface FlattrService {
     @RequiredScope()
     List<Thing> getMyThings(Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Thing} submitted by the associated user. The entries are fetched page by page
+     * while iterating.
+     *
+     * @return Lazy {@link Iterable} of {@link Thing}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    @RequiredScope()
+    Iterable<Thing> iterateMyThings();
+
     /**
      * Returns all {@link Flattr} submitted by the associated user. Limited to 30 entries.
      *
@@ -358,6 +420,17 @@ public interface FlattrService {
     @RequiredScope()
     List<Flattr> getMyFlattrs(Integer count, Integer page) throws FlattrException;
 
+    /**
+     * Returns all {@link Flattr} submitted by the associated user. The entries are fetched page by page
+     * while iterating.
+     *
+     * @return Lazy {@link Iterable} of {@link Flattr}. If a page could not be fetched,
+     *         the iterator throws an {@link org.shredzone.flattr4j.exception.IterationException}.
+     * @since 2.15
+     */
+    @RequiredScope()
+    Iterable<Flattr> iterateMyFlattrs();
+
     /**
      * Returns all {@link Activity} of the associated user.
      *
@@ -385,6 +458,13 @@ public interface FlattrService {
      * Note: This call is emulated by flattr4j. Depending on the number of subscriptions
      * of the associated user, this call may take some time and cause increased network
      * traffic. It may also increment the rate counter by more than 1.
+     * <p>
+     * Since v2.15, {@link org.shredzone.flattr4j.impl.FlattrServiceImpl} looks up the
+     * subscription in an index that is kept for a TTL of 1 minute by default. Changes
+     * made via the same service instance are applied to the index, but changes made
+     * elsewhere (e.g. on the Flattr web site, or by another service instance) are not
+     * noticed before the TTL has expired. Set the TTL to 0 for always fetching the
+     * current state.
      *
      * @param thingId
      *            {@link ThingId} to get the subscription of
@@ -462,10 +542,37 @@ public interface FlattrService {
      * returned by the last API call.
      * <p>
      * This method does not block and does not connect to the network.
+     * <p>
+     * Since v2.15, the returned instance is a copy of a snapshot that is not updated by
+     * subsequent API calls.
      *
      * @return Rate limit.
      * @since 2.0
      */
     RateLimit getLastRateLimit();
 
+    /**
+     * Gets a {@link RateLimit} instance that reflects the rate limit and remaining rate
+     * returned by the last API call that was invoked by the current thread. Unlike
+     * {@link #getLastRateLimit()}, the result is not affected by calls of other threads
+     * sharing the same service instance.
+     * <p>
+     * This method does not block and does not connect to the network.
+     *
+     * @return Copy of the rate limit snapshot, or {@code null} if the current thread did
+     *         not invoke an API call yet, or if it was cleared
+     * @since 2.15
+     */
+    RateLimit getThreadRateLimit();
+
+    /**
+     * Clears the rate limit of the current thread, so {@link #getThreadRateLimit()}
+     * returns {@code null} until the next API call of this thread. Pooled threads should
+     * invoke this method when they are done with this service, so the rate limit is not
+     * kept in the thread.
+     *
+     * @since 2.15
+     */
+    void clearThreadRateLimit();
+
 }
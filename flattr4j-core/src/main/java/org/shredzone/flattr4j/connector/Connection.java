@@ -162,4 +162,18 @@ public interface Connection {
      */
     Collection<FlattrObject> result() throws FlattrException;
 
+    /**
+     * Invokes the call and passes each {@link FlattrObject} of the response to the
+     * given {@link ResultHandler}, while the response is being read. Large results are
+     * not kept in memory, and the first result can be processed before the response has
+     * been read completely.
+     *
+     * @param handler
+     *            {@link ResultHandler} that receives the results
+     * @throws FlattrException
+     *             if the call could not be invoked or the web service returned an error
+     * @since 2.15
+     */
+    void result(ResultHandler handler) throws FlattrException;
+
 }
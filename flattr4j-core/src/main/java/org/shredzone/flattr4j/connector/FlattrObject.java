@@ -18,6 +18,8 @@
  */
 package org.shredzone.flattr4j.connector;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -31,7 +33,6 @@ import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.shredzone.flattr4j.exception.MarshalException;
 
 /**
@@ -39,13 +40,24 @@ import org.shredzone.flattr4j.exception.MarshalException;
  * <p>
  * Basically, this is a wrapper around {@link JSONObject}, which takes care for the
  * {@link JSONException} and also for serialization of JSON structures.
+ * <p>
+ * If the {@link FlattrObject} was created from a JSON string, it is not parsed into a
+ * {@link JSONObject} right away. Instead, the offsets of all fields are indexed, and
+ * strings, integers, booleans and dates are decoded from the JSON string when they are
+ * read. The {@link JSONObject} is only created when it is actually needed, e.g. when
+ * the {@link FlattrObject} is changed, or nested objects or arrays are read. From then
+ * on, all values are read from the {@link JSONObject}, so changes are always visible.
+ * <p>
+ * A {@link FlattrObject} can be read by many threads concurrently, e.g. if it is
+ * shared by a cache. It must not be changed while other threads are reading it.
  *
  * @author Richard "Shred" Körber
  */
 public class FlattrObject implements Serializable, Externalizable {
     private static final long serialVersionUID = -6640392574244365803L;
 
-    private transient JSONObject data;
+    private transient volatile JSONObject data;
+    private transient volatile JsonFieldIndex index;
 
     /**
      * Creates a new, empty {@link FlattrObject}.
@@ -66,17 +78,17 @@ public class FlattrObject implements Serializable, Externalizable {
     }
 
     /**
-     * Creates a {@link FlattrObject} from the given JSON string.
+     * Creates a {@link FlattrObject} from the given JSON string. The JSON string is
+     * decoded lazily.
      *
      * @param json
-     *            JSON string to initialize the {@link FlattrObject} with
+     *            JSON string to initialize the {@link FlattrObject} with. It must
+     *            contain a JSON object.
+     * @throws MarshalException
+     *             if the JSON string does not contain a JSON object
      */
     public FlattrObject(String json) {
-        try {
-            this.data = (JSONObject) new JSONTokener(json).nextValue();
-        } catch (JSONException ex) {
-            throw new MarshalException(ex);
-        }
+        this.index = JsonFieldIndex.index(json);
     }
 
     /**
@@ -87,7 +99,11 @@ public class FlattrObject implements Serializable, Externalizable {
      * @return {@code true} if there is such a key (value may still be {@code null}).
      */
     public boolean has(String key) {
-        return data.has(key);
+        JsonFieldIndex ix = rawIndex();
+        if (ix != null) {
+            return ix.find(key) >= 0;
+        }
+        return data().has(key);
     }
 
     /**
@@ -101,7 +117,7 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     public Object getObject(String key) {
         try {
-            return data.get(key);
+            return data().get(key);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -117,8 +133,17 @@ public class FlattrObject implements Serializable, Externalizable {
      *             if there was no such key
      */
     public String get(String key) {
+        JsonFieldIndex raw = rawIndex();
+        int ix = (raw != null ? raw.find(key) : -1);
+        if (ix >= 0) {
+            String value = raw.getString(ix);
+            if (value != null) {
+                return value;
+            }
+        }
+
         try {
-            return data.getString(key);
+            return data().getString(key);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -136,8 +161,21 @@ public class FlattrObject implements Serializable, Externalizable {
      *             if there was no such key or subKey
      */
     public String getSubString(String key, String subKey) {
+        JsonFieldIndex raw = rawIndex();
+        int ix = (raw != null ? raw.find(key) : -1);
+        if (ix >= 0) {
+            JsonFieldIndex sub = raw.getObject(ix);
+            int subIx = (sub != null ? sub.find(subKey) : -1);
+            if (subIx >= 0) {
+                String value = sub.getString(subIx);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
         try {
-            JSONObject obj = data.getJSONObject(key);
+            JSONObject obj = data().getJSONObject(key);
             return obj.getString(subKey);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
@@ -155,7 +193,7 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     public FlattrObject getFlattrObject(String key) {
         try {
-            return new FlattrObject(data.getJSONObject(key));
+            return new FlattrObject(data().getJSONObject(key));
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -171,8 +209,14 @@ public class FlattrObject implements Serializable, Externalizable {
      *             if there was no such key, or if it did not contain the expected type
      */
     public int getInt(String key) {
+        JsonFieldIndex raw = rawIndex();
+        int ix = (raw != null ? raw.find(key) : -1);
+        if (ix >= 0 && raw.isInteger(ix, 9)) {
+            return (int) raw.getInteger(ix);
+        }
+
         try {
-            return data.getInt(key);
+            return data().getInt(key);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -189,8 +233,14 @@ public class FlattrObject implements Serializable, Externalizable {
      * @since 2.5
      */
     public long getLong(String key) {
+        JsonFieldIndex raw = rawIndex();
+        int ix = (raw != null ? raw.find(key) : -1);
+        if (ix >= 0 && raw.isInteger(ix, 18)) {
+            return raw.getInteger(ix);
+        }
+
         try {
-            return data.getLong(key);
+            return data().getLong(key);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -206,8 +256,18 @@ public class FlattrObject implements Serializable, Externalizable {
      *             if there was no such key, or if it did not contain the expected type
      */
     public boolean getBoolean(String key) {
+        JsonFieldIndex raw = rawIndex();
+        int ix = (raw != null ? raw.find(key) : -1);
+        if (ix >= 0) {
+            if (raw.isLiteral(ix, "true")) {
+                return true;
+            } else if (raw.isLiteral(ix, "false")) {
+                return false;
+            }
+        }
+
         try {
-            return data.getBoolean(key);
+            return data().getBoolean(key);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -223,12 +283,25 @@ public class FlattrObject implements Serializable, Externalizable {
      *             if there was no such key, or if it did not contain the expected type
      */
     public Date getDate(String key) {
+        JsonFieldIndex raw = rawIndex();
+        if (raw != null) {
+            int ix = raw.find(key);
+            if (ix < 0 || raw.isLiteral(ix, "null")) {
+                return null;
+            }
+            if (raw.isInteger(ix, 18)) {
+                long ts = raw.getInteger(ix);
+                return (ts != 0 ? new Date(ts * 1000L) : null);
+            }
+        }
+
         try {
-            if (data.isNull(key)) {
+            JSONObject obj = data();
+            if (obj.isNull(key)) {
                 return null;
             }
 
-            long ts = data.getLong(key);
+            long ts = obj.getLong(key);
             return (ts != 0 ? new Date(ts * 1000L) : null);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
@@ -246,7 +319,7 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     public List<String> getStrings(String key) {
         try {
-            JSONArray array = data.getJSONArray(key);
+            JSONArray array = data().getJSONArray(key);
             List<String> result = new ArrayList<String>(array.length());
             for (int ix = 0; ix < array.length(); ix++) {
                 result.add(array.getString(ix));
@@ -268,7 +341,7 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     public List<FlattrObject> getObjects(String key) {
         try {
-            JSONArray array = data.getJSONArray(key);
+            JSONArray array = data().getJSONArray(key);
             List<FlattrObject> result = new ArrayList<FlattrObject>(array.length());
             for (int ix = 0; ix < array.length(); ix++) {
                 result.add(new FlattrObject(array.getJSONObject(ix)));
@@ -291,7 +364,7 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     public void put(String key, Object value) {
         try {
-            data.put(key, value);
+            data().put(key, value);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -315,7 +388,7 @@ public class FlattrObject implements Serializable, Externalizable {
                     array.put(tag);
                 }
             }
-            data.put(key, array);
+            data().put(key, array);
         } catch (JSONException ex) {
             throw new MarshalException(key, ex);
         }
@@ -328,7 +401,11 @@ public class FlattrObject implements Serializable, Externalizable {
      */
     @Override
     public String toString() {
-        return data.toString();
+        JsonFieldIndex raw = rawIndex();
+        if (raw != null) {
+            return raw.getJson();
+        }
+        return data().toString();
     }
 
     /**
@@ -338,21 +415,97 @@ public class FlattrObject implements Serializable, Externalizable {
      * @return {@link JSONObject}
      */
     public JSONObject getJSONObject() {
-        return data;
+        return data();
     }
 
+    /**
+     * Writes the {@link FlattrObject} using the {@link FlattrObjectCodec}.
+     * <p>
+     * The binary encoding is preceded by an empty UTF string. Previous versions wrote
+     * the JSON string as UTF string, which is never empty, so both formats can be told
+     * apart when reading.
+     */
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        out.writeUTF(data.toString());
+        out.writeShort(0);
+        FlattrObjectCodec.write(this, out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int length = in.readUnsignedShort();
+        if (length == 0) {
+            data = FlattrObjectCodec.read(in).data();
+            index = null;
+            return;
+        }
+
+        // Legacy format, the JSON string was written by writeUTF()
+        byte[] utf = new byte[length + 2];
+        utf[0] = (byte) (length >> 8);
+        utf[1] = (byte) length;
+        in.readFully(utf, 2, length);
+        String str = new DataInputStream(new ByteArrayInputStream(utf)).readUTF();
         try {
-            data = new JSONObject(in.readUTF());
-        } catch (JSONException ex) {
+            data = null;
+            index = JsonFieldIndex.index(str);
+        } catch (MarshalException ex) {
             throw new IOException("JSON deserialization failed", ex);
         }
     }
 
+    /**
+     * Returns a {@link JSONObject} with the current state, without changing this
+     * {@link FlattrObject}. If it is still backed by the raw JSON string, a new
+     * {@link JSONObject} is parsed from it, but not kept. Used for serialization.
+     *
+     * @return {@link JSONObject}, must not be changed
+     */
+    JSONObject snapshot() {
+        JSONObject obj = data;
+        if (obj != null) {
+            return obj;
+        }
+        try {
+            return new JSONObject(index.getJson());
+        } catch (JSONException ex) {
+            throw new MarshalException(ex);
+        }
+    }
+
+    /**
+     * Returns the {@link JSONObject}. If this {@link FlattrObject} is still backed by
+     * the raw JSON string, it is parsed now. The raw JSON string and its index are
+     * kept, so concurrent readers are not disturbed, but are not used any more.
+     *
+     * @return {@link JSONObject}
+     */
+    private JSONObject data() {
+        JSONObject obj = data;
+        if (obj == null) {
+            synchronized (this) {
+                obj = data;
+                if (obj == null) {
+                    try {
+                        obj = new JSONObject(index.getJson());
+                    } catch (JSONException ex) {
+                        throw new MarshalException(ex);
+                    }
+                    data = obj;
+                }
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * Returns the index of the raw JSON string, if values can be read from it.
+     *
+     * @return {@link JsonFieldIndex}, or {@code null} if the values must be read from
+     *         the {@link JSONObject}
+     */
+    private JsonFieldIndex rawIndex() {
+        return (data == null ? index : null);
+    }
+
 }
@@ -0,0 +1,397 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A compact binary codec for {@link FlattrObject}.
+ * <p>
+ * The encoding starts with a version byte, followed by the tagged values of the JSON
+ * structure. Integers and longs (which includes all dates) are stored as variable
+ * length numbers. Strings are stored as UTF-8. Each key is only stored once, further
+ * occurences just refer to it. Keys are interned when decoded.
+ * <p>
+ * Lengths read from the encoded data are checked against the size of the input (if
+ * known) and {@link #MAX_LENGTH}, so corrupted data cannot trigger huge allocations.
+ * <p>
+ * This codec is also used for serialization of {@link FlattrObject}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public final class FlattrObjectCodec {
+    /**
+     * Version of the current encoding.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Maximum length of strings, arrays and objects that are accepted when decoding.
+     */
+    public static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_FALSE = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_DOUBLE = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_OBJECT = 7;
+    private static final int TAG_ARRAY = 8;
+
+    private FlattrObjectCodec() {
+        // Utility class without instances
+    }
+
+    /**
+     * Encodes a {@link FlattrObject}.
+     *
+     * @param fo
+     *            {@link FlattrObject} to encode
+     * @return Encoded {@link FlattrObject}
+     */
+    public static byte[] encode(FlattrObject fo) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bos);
+            write(fo, out);
+            out.close();
+            return bos.toByteArray();
+        } catch (IOException ex) {
+            // should never be thrown, as we are writing to a byte array
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Decodes a {@link FlattrObject}.
+     *
+     * @param data
+     *            Encoded {@link FlattrObject}
+     * @return Decoded {@link FlattrObject}
+     * @throws IOException
+     *             if the data could not be decoded
+     */
+    public static FlattrObject decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            return read(in, data.length);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes an encoded {@link FlattrObject}.
+     *
+     * @param fo
+     *            {@link FlattrObject} to encode
+     * @param out
+     *            {@link DataOutput} to write to
+     */
+    public static void write(FlattrObject fo, DataOutput out) throws IOException {
+        out.writeByte(VERSION);
+        new Encoder(out).writeObject(fo.snapshot());
+    }
+
+    /**
+     * Reads an encoded {@link FlattrObject}.
+     *
+     * @param in
+     *            {@link DataInput} to read from
+     * @return Decoded {@link FlattrObject}
+     * @throws IOException
+     *             if the data could not be decoded, or if the encoding version is not
+     *             supported
+     */
+    public static FlattrObject read(DataInput in) throws IOException {
+        return read(in, MAX_LENGTH);
+    }
+
+    /**
+     * Reads an encoded {@link FlattrObject}.
+     *
+     * @param in
+     *            {@link DataInput} to read from
+     * @param limit
+     *            Maximum number of bytes that can be read from the input
+     * @return Decoded {@link FlattrObject}
+     */
+    private static FlattrObject read(DataInput in, int limit) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported encoding version " + version);
+        }
+
+        Decoder decoder = new Decoder(in, Math.min(limit, MAX_LENGTH));
+        if (in.readUnsignedByte() != TAG_OBJECT) {
+            throw new IOException("encoded data does not contain an object");
+        }
+        try {
+            return new FlattrObject(decoder.readObject(0));
+        } catch (JSONException ex) {
+            throw new IOException("could not decode object", ex);
+        }
+    }
+
+    /**
+     * Encodes the values of a JSON structure.
+     */
+    private static class Encoder {
+        private final DataOutput out;
+        private final Map<String, Integer> keys = new HashMap<String, Integer>();
+
+        public Encoder(DataOutput out) {
+            this.out = out;
+        }
+
+        public void writeObject(JSONObject obj) throws IOException {
+            out.writeByte(TAG_OBJECT);
+            writeVarInt(obj.length());
+            Iterator<?> it = obj.keys();
+            while (it.hasNext()) {
+                String key = (String) it.next();
+                writeKey(key);
+                writeValue(obj.opt(key));
+            }
+        }
+
+        public void writeArray(JSONArray array) throws IOException {
+            out.writeByte(TAG_ARRAY);
+            writeVarInt(array.length());
+            for (int ix = 0; ix < array.length(); ix++) {
+                writeValue(array.opt(ix));
+            }
+        }
+
+        public void writeValue(Object value) throws IOException {
+            if (value == null || JSONObject.NULL.equals(value)) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte(((Boolean) value) ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(TAG_INT);
+                writeVarLong(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                out.writeByte(TAG_LONG);
+                writeVarLong((Long) value);
+            } else if (value instanceof Number) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof JSONObject) {
+                writeObject((JSONObject) value);
+            } else if (value instanceof JSONArray) {
+                writeArray((JSONArray) value);
+            } else {
+                out.writeByte(TAG_STRING);
+                writeString(value.toString());
+            }
+        }
+
+        /**
+         * Writes a key. The first occurence is written as 0 and the key string. Further
+         * occurences are written as the position of the key, starting from 1.
+         */
+        private void writeKey(String key) throws IOException {
+            Integer ref = keys.get(key);
+            if (ref != null) {
+                writeVarInt(ref);
+            } else {
+                keys.put(key, keys.size() + 1);
+                writeVarInt(0);
+                writeString(key);
+            }
+        }
+
+        private void writeString(String str) throws IOException {
+            byte[] data = str.getBytes("utf-8");
+            writeVarInt(data.length);
+            out.write(data);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+    }
+
+    /**
+     * Decodes the values of a JSON structure.
+     */
+    private static class Decoder {
+        private final DataInput in;
+        private final List<String> keys = new ArrayList<String>();
+        private final int limit;
+
+        public Decoder(DataInput in, int limit) {
+            this.in = in;
+            this.limit = limit;
+        }
+
+        public JSONObject readObject(int depth) throws IOException {
+            checkDepth(depth);
+            int length = readLength();
+            JSONObject obj = new JSONObject();
+            for (int ix = 0; ix < length; ix++) {
+                String key = readKey();
+                obj.put(key, readValue(depth));
+            }
+            return obj;
+        }
+
+        public JSONArray readArray(int depth) throws IOException {
+            checkDepth(depth);
+            int length = readLength();
+            JSONArray array = new JSONArray();
+            for (int ix = 0; ix < length; ix++) {
+                array.put(readValue(depth));
+            }
+            return array;
+        }
+
+        public Object readValue(int depth) throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case TAG_NULL:
+                    return JSONObject.NULL;
+
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+
+                case TAG_INT:
+                    return Integer.valueOf((int) readVarLong());
+
+                case TAG_LONG:
+                    return Long.valueOf(readVarLong());
+
+                case TAG_DOUBLE:
+                    return Double.valueOf(in.readDouble());
+
+                case TAG_STRING:
+                    return readString();
+
+                case TAG_OBJECT:
+                    return readObject(depth + 1);
+
+                case TAG_ARRAY:
+                    return readArray(depth + 1);
+
+                default:
+                    throw new IOException("unknown tag " + tag);
+            }
+        }
+
+        private String readKey() throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) {
+                String key = readString().intern();
+                keys.add(key);
+                return key;
+            }
+            if (ref < 0 || ref > keys.size()) {
+                throw new IOException("unknown key reference " + ref);
+            }
+            return keys.get(ref - 1);
+        }
+
+        private String readString() throws IOException {
+            byte[] data = new byte[readLength()];
+            in.readFully(data);
+            return new String(data, "utf-8");
+        }
+
+        /**
+         * Reads a length. Each element occupies at least one byte, so a length that
+         * exceeds the input limit can only be caused by corrupted data.
+         */
+        private int readLength() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > limit) {
+                throw new StreamCorruptedException("bad length " + length);
+            }
+            return length;
+        }
+
+        private int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("malformed variable length integer");
+        }
+
+        private long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("malformed variable length integer");
+        }
+
+        private void checkDepth(int depth) throws IOException {
+            if (depth > MAX_DEPTH) {
+                throw new IOException("nesting too deep");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,389 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import org.shredzone.flattr4j.exception.MarshalException;
+
+/**
+ * An index of the fields of a raw JSON object. The JSON string is scanned once, and
+ * the key and the offsets of the value of each field are recorded. Values are only
+ * decoded when they are actually read.
+ * <p>
+ * The scan only checks the structure of the JSON object. Values that cannot be decoded
+ * by this index (e.g. numbers with a fraction) are rejected by the accessors, so the
+ * caller can fall back to a full {@link org.json.JSONObject}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class JsonFieldIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String json;
+    private final int end;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Indexes a JSON string that contains a single JSON object.
+     *
+     * @param json
+     *            JSON string
+     * @return {@link JsonFieldIndex} of the object
+     * @throws MarshalException
+     *             if the string does not contain a JSON object
+     */
+    public static JsonFieldIndex index(String json) {
+        JsonFieldIndex index = new JsonFieldIndex(json, skipWhitespace(json, 0));
+        if (skipWhitespace(json, index.end) != json.length()) {
+            throw new MarshalException("unexpected data after JSON object at " + index.end);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the JSON object starting at the given position.
+     *
+     * @param json
+     *            JSON string
+     * @param start
+     *            Position of the opening brace
+     */
+    private JsonFieldIndex(String json, int start) {
+        this.json = json;
+
+        int pos = expect(json, start, '{');
+        pos = skipWhitespace(json, pos);
+        if (pos < json.length() && json.charAt(pos) == '}') {
+            end = pos + 1;
+            return;
+        }
+
+        while (true) {
+            if (pos >= json.length() || json.charAt(pos) != '"') {
+                throw new MarshalException("expected key at " + pos);
+            }
+            int keyEnd = skipString(json, pos);
+            String key = decodeString(json, pos, keyEnd);
+
+            pos = skipWhitespace(json, expect(json, skipWhitespace(json, keyEnd), ':'));
+            int valueEnd = skipValue(json, pos);
+            add(key, pos, valueEnd);
+
+            pos = skipWhitespace(json, valueEnd);
+            if (pos < json.length() && json.charAt(pos) == ',') {
+                pos = skipWhitespace(json, pos + 1);
+            } else {
+                end = expect(json, pos, '}');
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the JSON string that was indexed. For nested objects, this is the JSON
+     * string of the outermost object.
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Finds the field of the given key.
+     *
+     * @param key
+     *            Key to find
+     * @return Index of the field, or -1 if there is no such key
+     */
+    public int find(String key) {
+        // Search backwards, so the last of duplicate keys wins
+        for (int ix = size - 1; ix >= 0; ix--) {
+            if (keys[ix].equals(key)) {
+                return ix;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the string value of a field.
+     *
+     * @param ix
+     *            Field index
+     * @return Decoded string, or {@code null} if the value is not a string
+     */
+    public String getString(int ix) {
+        if (json.charAt(starts[ix]) != '"') {
+            return null;
+        }
+        return decodeString(json, starts[ix], ends[ix]);
+    }
+
+    /**
+     * Checks if the value of a field is an integer literal.
+     *
+     * @param ix
+     *            Field index
+     * @param maxDigits
+     *            Maximum number of digits, so the value fits into the target type
+     * @return {@code true} if the value is an integer with up to maxDigits digits
+     */
+    public boolean isInteger(int ix, int maxDigits) {
+        int pos = starts[ix];
+        if (json.charAt(pos) == '-') {
+            pos++;
+        }
+        int digits = ends[ix] - pos;
+        if (digits < 1 || digits > maxDigits) {
+            return false;
+        }
+        for (; pos < ends[ix]; pos++) {
+            char ch = json.charAt(pos);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of an integer field. The value must have been checked by
+     * {@link #isInteger(int, int)} before.
+     *
+     * @param ix
+     *            Field index
+     * @return Integer value
+     */
+    public long getInteger(int ix) {
+        int pos = starts[ix];
+        boolean negative = json.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long result = 0;
+        for (; pos < ends[ix]; pos++) {
+            result = result * 10 + (json.charAt(pos) - '0');
+        }
+        return (negative ? -result : result);
+    }
+
+    /**
+     * Checks if the value of a field is the given literal, like "true" or "null".
+     *
+     * @param ix
+     *            Field index
+     * @param literal
+     *            Literal to compare with
+     * @return {@code true} if the value is that literal
+     */
+    public boolean isLiteral(int ix, String literal) {
+        return ends[ix] - starts[ix] == literal.length()
+                && json.regionMatches(starts[ix], literal, 0, literal.length());
+    }
+
+    /**
+     * Returns the index of a field containing a JSON object.
+     *
+     * @param ix
+     *            Field index
+     * @return {@link JsonFieldIndex} of the object, or {@code null} if the value is not
+     *         an object
+     */
+    public JsonFieldIndex getObject(int ix) {
+        if (json.charAt(starts[ix]) != '{') {
+            return null;
+        }
+        return new JsonFieldIndex(json, starts[ix]);
+    }
+
+    private void add(String key, int start, int end) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            String[] newKeys = new String[capacity];
+            int[] newStarts = new int[capacity];
+            int[] newEnds = new int[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            keys = newKeys;
+            starts = newStarts;
+            ends = newEnds;
+        }
+        keys[size] = key;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    private static int expect(String json, int pos, char ch) {
+        if (pos >= json.length() || json.charAt(pos) != ch) {
+            throw new MarshalException("expected '" + ch + "' at " + pos);
+        }
+        return pos + 1;
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length()) {
+            char ch = json.charAt(pos);
+            if (ch != ' ' && ch != '\t' && ch != '\r' && ch != '\n') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skips a JSON string.
+     *
+     * @return Position after the closing quote
+     */
+    private static int skipString(String json, int pos) {
+        for (int ix = pos + 1; ix < json.length(); ix++) {
+            char ch = json.charAt(ix);
+            if (ch == '\\') {
+                ix++;
+            } else if (ch == '"') {
+                return ix + 1;
+            }
+        }
+        throw new MarshalException("unterminated string at " + pos);
+    }
+
+    /**
+     * Skips a JSON value of any type.
+     *
+     * @return Position after the value
+     */
+    private static int skipValue(String json, int pos) {
+        if (pos >= json.length()) {
+            throw new MarshalException("expected value at " + pos);
+        }
+
+        char first = json.charAt(pos);
+        if (first == '"') {
+            return skipString(json, pos);
+        }
+
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            int ix = pos;
+            while (ix < json.length()) {
+                char ch = json.charAt(ix);
+                if (ch == '"') {
+                    ix = skipString(json, ix);
+                    continue;
+                }
+                if (ch == '{' || ch == '[') {
+                    depth++;
+                } else if (ch == '}' || ch == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return ix + 1;
+                    }
+                }
+                ix++;
+            }
+            throw new MarshalException("unterminated value at " + pos);
+        }
+
+        int ix = pos;
+        while (ix < json.length()) {
+            char ch = json.charAt(ix);
+            if (ch == ',' || ch == '}' || ch == ']' || ch == ' ' || ch == '\t'
+                    || ch == '\r' || ch == '\n') {
+                break;
+            }
+            ix++;
+        }
+        if (ix == pos) {
+            throw new MarshalException("expected value at " + pos);
+        }
+        return ix;
+    }
+
+    /**
+     * Decodes a JSON string.
+     *
+     * @param start
+     *            Position of the opening quote
+     * @param end
+     *            Position after the closing quote
+     * @return Decoded string
+     */
+    private static String decodeString(String json, int start, int end) {
+        int escape = json.indexOf('\\', start + 1);
+        if (escape < 0 || escape >= end - 1) {
+            return json.substring(start + 1, end - 1);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(json, start + 1, escape);
+        for (int ix = escape; ix < end - 1; ix++) {
+            char ch = json.charAt(ix);
+            if (ch != '\\') {
+                sb.append(ch);
+                continue;
+            }
+
+            ch = json.charAt(++ix);
+            switch (ch) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+
+                case 'f':
+                    sb.append('\f');
+                    break;
+
+                case 'n':
+                    sb.append('\n');
+                    break;
+
+                case 'r':
+                    sb.append('\r');
+                    break;
+
+                case 't':
+                    sb.append('\t');
+                    break;
+
+                case 'u':
+                    if (ix + 4 >= end - 1) {
+                        throw new MarshalException("bad unicode escape at " + ix);
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(ix + 1, ix + 5), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new MarshalException("bad unicode escape at " + ix, ex);
+                    }
+                    ix += 4;
+                    break;
+
+                default:
+                    // '"', '\\', '/' and all other escaped characters are taken as is
+                    sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+}
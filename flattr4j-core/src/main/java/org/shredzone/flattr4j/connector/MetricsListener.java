@@ -0,0 +1,43 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+/**
+ * Receives the {@link RequestMetrics} of every request that was sent to the Flattr
+ * server. It can be used to feed a metrics library, so it can be seen where the time
+ * goes in production.
+ * <p>
+ * The listener is invoked synchronously, by the thread that sent the request, after the
+ * response has been processed. Implementations must be threadsafe and should return
+ * quickly. Exceptions thrown by the listener are logged and otherwise ignored.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface MetricsListener {
+
+    /**
+     * Invoked when a request has been completed, either successfully or not.
+     *
+     * @param metrics
+     *            {@link RequestMetrics} of the request
+     */
+    void onRequest(RequestMetrics metrics);
+
+}
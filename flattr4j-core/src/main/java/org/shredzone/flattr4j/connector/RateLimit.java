@@ -53,7 +53,7 @@ public class RateLimit implements Serializable {
         this.limit = limit.limit;
         this.remaining = limit.remaining;
         this.current = limit.current;
-        this.reset = limit.reset;
+        this.reset = (limit.reset != null ? new Date(limit.reset.getTime()) : null);
     }
 
     /**
@@ -0,0 +1,167 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+/**
+ * Metrics of a single request to the Flattr server. It is passed to a
+ * {@link MetricsListener} when the request has been completed.
+ * <p>
+ * All times are in nanoseconds. If a request was retried, the connect and first byte
+ * times refer to the last attempt, while the total time includes all attempts and the
+ * delays between them.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class RequestMetrics {
+
+    private final RequestType type;
+    private final String endpoint;
+    private int attempts = 0;
+    private int statusCode = -1;
+    private String errorCode;
+    private Throwable failure;
+    private boolean notModified = false;
+    private long connectTime = -1L;
+    private long firstByteTime = -1L;
+    private long totalTime = -1L;
+    private long responseSize = -1L;
+    private long contentSize = -1L;
+    private RateLimit rateLimit;
+
+    /**
+     * Creates a new {@link RequestMetrics} instance.
+     *
+     * @param type
+     *            {@link RequestType} of the request
+     * @param endpoint
+     *            Endpoint of the request
+     */
+    public RequestMetrics(RequestType type, String endpoint) {
+        this.type = type;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * {@link RequestType} of the request.
+     */
+    public RequestType getType()                { return type; }
+
+    /**
+     * Endpoint of the request, before the parameters were replaced (e.g.
+     * "things/:id"). Use it for grouping the metrics.
+     */
+    public String getEndpoint()                 { return endpoint; }
+
+    /**
+     * Number of attempts. It is greater than 1 if the request was retried.
+     */
+    public int getAttempts()                    { return attempts; }
+    public void setAttempts(int attempts)       { this.attempts = attempts; }
+
+    /**
+     * HTTP status code of the last response, or -1 if no response was received.
+     */
+    public int getStatusCode()                  { return statusCode; }
+    public void setStatusCode(int statusCode)   { this.statusCode = statusCode; }
+
+    /**
+     * Error code that was returned by the server (e.g. "not_found"), or {@code null}.
+     */
+    public String getErrorCode()                { return errorCode; }
+    public void setErrorCode(String errorCode)  { this.errorCode = errorCode; }
+
+    /**
+     * Exception that made the request fail, or {@code null} if it was successful.
+     */
+    public Throwable getFailure()               { return failure; }
+    public void setFailure(Throwable failure)   { this.failure = failure; }
+
+    /**
+     * {@code true} if the server responded with "304 Not Modified", and the result was
+     * taken from the cache.
+     */
+    public boolean isNotModified()              { return notModified; }
+    public void setNotModified(boolean notModified) { this.notModified = notModified; }
+
+    /**
+     * Time that was needed to get a connection to the server, as measured by the
+     * {@link Transport}, or -1 if unknown.
+     */
+    public long getConnectTime()                { return connectTime; }
+    public void setConnectTime(long connectTime) { this.connectTime = connectTime; }
+
+    /**
+     * Time until the response status was received, or -1 if unknown.
+     */
+    public long getFirstByteTime()              { return firstByteTime; }
+    public void setFirstByteTime(long firstByteTime) { this.firstByteTime = firstByteTime; }
+
+    /**
+     * Total time of the request, including reading and parsing the response.
+     */
+    public long getTotalTime()                  { return totalTime; }
+    public void setTotalTime(long totalTime)    { this.totalTime = totalTime; }
+
+    /**
+     * Size of the response body as it was transferred, in bytes, or -1 if no body was
+     * read.
+     */
+    public long getResponseSize()               { return responseSize; }
+    public void setResponseSize(long responseSize) { this.responseSize = responseSize; }
+
+    /**
+     * Size of the decompressed response body, in bytes, or -1 if no body was read.
+     */
+    public long getContentSize()                { return contentSize; }
+    public void setContentSize(long contentSize) { this.contentSize = contentSize; }
+
+    /**
+     * {@link RateLimit} that was reported by the server, or {@code null}.
+     */
+    public RateLimit getRateLimit()             { return rateLimit; }
+    public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+
+    /**
+     * Returns {@code true} if the request was successful.
+     */
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the compression ratio of the response body (transferred size divided by
+     * decompressed size), or -1 if unknown.
+     */
+    public double getCompressionRatio() {
+        if (responseSize < 0 || contentSize <= 0) {
+            return -1.0;
+        }
+        return (double) responseSize / (double) contentSize;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + endpoint + ": status=" + statusCode
+                + (errorCode != null ? ", error=" + errorCode : "")
+                + ", attempts=" + attempts
+                + ", total=" + (totalTime / 1000L) + "us";
+    }
+
+}
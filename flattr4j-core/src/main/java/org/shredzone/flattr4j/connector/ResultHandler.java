@@ -0,0 +1,43 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import org.shredzone.flattr4j.exception.FlattrException;
+
+/**
+ * Receives the {@link FlattrObject} results of a {@link Connection} one by one, while
+ * the response is still being read.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface ResultHandler {
+
+    /**
+     * Invoked for every {@link FlattrObject} of the response, in the order they were
+     * sent by the server.
+     *
+     * @param result
+     *            {@link FlattrObject} that was read
+     * @throws FlattrException
+     *             if the result could not be handled. The call is aborted.
+     */
+    void handle(FlattrObject result) throws FlattrException;
+
+}
@@ -0,0 +1,54 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * A transport sends a single HTTP request to the Flattr server and returns the raw
+ * response. {@link Connection} implementations use a transport for the actual network
+ * communication, so it can be replaced without changing the way API calls are built.
+ * <p>
+ * Implementations must be threadsafe, as a single transport is usually shared by all
+ * connections of a {@link Connector}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface Transport {
+
+    /**
+     * Sends a HTTP request.
+     *
+     * @param method
+     *            HTTP method to be used (e.g. "GET")
+     * @param url
+     *            Absolute {@link URL} to send the request to
+     * @param headers
+     *            Request headers to be sent. Header names are case sensitive.
+     * @param body
+     *            Request body to be sent, or {@code null} if the request has no body
+     * @return {@link TransportResponse} of the server. It must be closed after use.
+     */
+    TransportResponse send(String method, URL url, Map<String, String> headers, byte[] body)
+                throws IOException;
+
+}
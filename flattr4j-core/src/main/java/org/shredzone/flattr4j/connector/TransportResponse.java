@@ -0,0 +1,76 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The raw HTTP response that was returned by a {@link Transport}.
+ * <p>
+ * A response must always be closed after use, so the underlying network connection can
+ * be released or reused.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public interface TransportResponse {
+
+    /**
+     * Returns the HTTP status code (e.g. 200).
+     */
+    int getStatusCode() throws IOException;
+
+    /**
+     * Returns the HTTP status message (e.g. "OK"), or {@code null} if there is none.
+     */
+    String getStatusMessage() throws IOException;
+
+    /**
+     * Returns the time that was needed to get a connection to the server, in
+     * nanoseconds. It includes waiting for a free connection, and connecting to the
+     * server if no pooled connection could be reused.
+     *
+     * @return Connect time, or -1 if unknown
+     */
+    long getConnectTime();
+
+    /**
+     * Returns a response header.
+     *
+     * @param name
+     *            Header name, case insensitive
+     * @return Header value, or {@code null} if the header was not set
+     */
+    String getHeader(String name);
+
+    /**
+     * Returns the response body as it was transported. If the body was compressed, the
+     * returned stream is still compressed. The stream is closed by {@link #close()}.
+     *
+     * @return Response body, or {@code null} if there is no body
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Closes the response and releases all resources.
+     */
+    void close() throws IOException;
+
+}
@@ -0,0 +1,157 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that decodes a HTTP body with chunked transfer encoding. It
+ * reads exactly up to the end of the last chunk, so the underlying stream can be used
+ * for the next response.
+ * <p>
+ * Closing this stream does not close the underlying stream.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class ChunkedInputStream extends InputStream {
+    private final InputStream in;
+    private long remaining = 0;
+    private boolean eof = false;
+
+    /**
+     * Creates a new {@link ChunkedInputStream}.
+     *
+     * @param in
+     *            {@link InputStream} to read the chunks from
+     */
+    public ChunkedInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns {@code true} if the last chunk has been read completely.
+     */
+    public boolean isEof() {
+        return eof;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        int ch = in.read();
+        if (ch < 0) {
+            throw new EOFException("unexpected end of chunk");
+        }
+        remaining--;
+        return ch;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read < 0) {
+            throw new EOFException("unexpected end of chunk");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (eof ? 0 : (int) Math.min(in.available(), remaining));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Do not close the underlying stream
+    }
+
+    /**
+     * Makes sure there is data left in the current chunk, by reading the next chunk
+     * header if necessary.
+     *
+     * @return {@code true} if there is data to be read, {@code false} on end of stream
+     */
+    private boolean nextChunk() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        if (remaining > 0) {
+            return true;
+        }
+
+        String line = readLine();
+        if (line.length() == 0) {
+            // CRLF that terminated the previous chunk
+            line = readLine();
+        }
+
+        int semicolon = line.indexOf(';');
+        if (semicolon >= 0) {
+            line = line.substring(0, semicolon);
+        }
+
+        try {
+            remaining = Long.parseLong(line.trim(), 16);
+        } catch (NumberFormatException ex) {
+            throw new IOException("bad chunk size: " + line);
+        }
+
+        if (remaining == 0) {
+            // Last chunk, skip trailers
+            while (readLine().length() > 0);
+            eof = true;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads a line that is terminated by CRLF.
+     *
+     * @return Line that was read, without CRLF
+     */
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int ch;
+        while ((ch = in.read()) != '\n') {
+            if (ch < 0) {
+                throw new EOFException("unexpected end of chunk header");
+            }
+            if (ch != '\r') {
+                sb.append((char) ch);
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.shredzone.flattr4j.connector.RequestMetrics;
+
+/**
+ * Aggregated metrics of all requests to an endpoint. It is collected by a
+ * {@link StatisticsMetricsListener}.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class EndpointStatistics {
+
+    private final String endpoint;
+    private final LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram firstByteTime = new LatencyHistogram();
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+    private final Map<Integer, Long> statusCodes = new HashMap<Integer, Long>();
+    private final Map<String, Long> errorCodes = new HashMap<String, Long>();
+    private long requests = 0L;
+    private long failures = 0L;
+    private long retries = 0L;
+    private long notModified = 0L;
+    private long responseBytes = 0L;
+    private long contentBytes = 0L;
+
+    /**
+     * Creates a new {@link EndpointStatistics} instance.
+     *
+     * @param endpoint
+     *            Endpoint (e.g. "things/:id")
+     */
+    public EndpointStatistics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Adds the metrics of a request.
+     *
+     * @param metrics
+     *            {@link RequestMetrics} to add
+     */
+    public void record(RequestMetrics metrics) {
+        connectTime.record(metrics.getConnectTime());
+        firstByteTime.record(metrics.getFirstByteTime());
+        totalTime.record(metrics.getTotalTime());
+
+        synchronized (this) {
+            requests++;
+            if (!metrics.isSuccessful()) {
+                failures++;
+            }
+            if (metrics.getAttempts() > 1) {
+                retries += metrics.getAttempts() - 1;
+            }
+            if (metrics.isNotModified()) {
+                notModified++;
+            }
+            if (metrics.getResponseSize() >= 0 && metrics.getContentSize() >= 0) {
+                responseBytes += metrics.getResponseSize();
+                contentBytes += metrics.getContentSize();
+            }
+            if (metrics.getStatusCode() >= 0) {
+                increment(statusCodes, metrics.getStatusCode());
+            }
+            if (metrics.getErrorCode() != null) {
+                increment(errorCodes, metrics.getErrorCode());
+            }
+        }
+    }
+
+    /**
+     * Endpoint of these statistics.
+     */
+    public String getEndpoint()                 { return endpoint; }
+
+    /**
+     * Histogram of the connect times.
+     */
+    public LatencyHistogram getConnectTime()    { return connectTime; }
+
+    /**
+     * Histogram of the times until the response status was received.
+     */
+    public LatencyHistogram getFirstByteTime()  { return firstByteTime; }
+
+    /**
+     * Histogram of the total request times.
+     */
+    public LatencyHistogram getTotalTime()      { return totalTime; }
+
+    /**
+     * Number of requests.
+     */
+    public synchronized long getRequests()      { return requests; }
+
+    /**
+     * Number of failed requests.
+     */
+    public synchronized long getFailures()      { return failures; }
+
+    /**
+     * Number of retries.
+     */
+    public synchronized long getRetries()       { return retries; }
+
+    /**
+     * Number of requests that were answered with "304 Not Modified".
+     */
+    public synchronized long getNotModified()   { return notModified; }
+
+    /**
+     * Total number of transferred response body bytes.
+     */
+    public synchronized long getResponseBytes() { return responseBytes; }
+
+    /**
+     * Total number of decompressed response body bytes.
+     */
+    public synchronized long getContentBytes()  { return contentBytes; }
+
+    /**
+     * Returns the overall compression ratio of the response bodies (transferred bytes
+     * divided by decompressed bytes), or -1 if unknown.
+     */
+    public synchronized double getCompressionRatio() {
+        return (contentBytes > 0 ? (double) responseBytes / (double) contentBytes : -1.0);
+    }
+
+    /**
+     * Returns a copy of the number of responses per HTTP status code.
+     */
+    public synchronized Map<Integer, Long> getStatusCodes() {
+        return new HashMap<Integer, Long>(statusCodes);
+    }
+
+    /**
+     * Returns a copy of the number of responses per error code of the server.
+     */
+    public synchronized Map<String, Long> getErrorCodes() {
+        return new HashMap<String, Long>(errorCodes);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return endpoint + ": requests=" + requests + ", failures=" + failures
+                + ", retries=" + retries + ", total=[" + totalTime + "]";
+    }
+
+    private static <K> void increment(Map<K, Long> map, K key) {
+        Long count = map.get(key);
+        map.put(key, count != null ? count + 1L : 1L);
+    }
+
+}
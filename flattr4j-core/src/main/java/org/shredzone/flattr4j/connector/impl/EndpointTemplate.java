@@ -0,0 +1,213 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A precompiled endpoint path like "things/:id/flattr". The path is split into literal
+ * parts and placeholders once, so the URL of a call can be built in a single pass,
+ * without scanning and copying the path string for every parameter.
+ * <p>
+ * Compiled templates are cached, so the endpoints of the Flattr API are only compiled
+ * once. Templates are immutable and threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class EndpointTemplate {
+    private static final int MAX_CACHE_SIZE = 256;
+    private static final ConcurrentMap<String, EndpointTemplate> CACHE = new ConcurrentHashMap<String, EndpointTemplate>();
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String path;
+    private final String[] literals;
+    private final String[] names;
+    private final boolean relative;
+
+    /**
+     * Returns the compiled template of an endpoint path.
+     *
+     * @param path
+     *            Endpoint path, with placeholders starting with ':'
+     * @return {@link EndpointTemplate}
+     */
+    public static EndpointTemplate compile(String path) {
+        EndpointTemplate template = CACHE.get(path);
+        if (template == null) {
+            template = new EndpointTemplate(path);
+            if (CACHE.size() < MAX_CACHE_SIZE) {
+                // Only cache a limited number of templates, in case the paths are
+                // not constant
+                CACHE.putIfAbsent(path, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Creates a new {@link EndpointTemplate}. Use {@link #compile(String)} instead.
+     *
+     * @param path
+     *            Endpoint path, with placeholders starting with ':'
+     */
+    private EndpointTemplate(String path) {
+        this.path = path;
+
+        List<String> literalList = new ArrayList<String>();
+        List<String> nameList = new ArrayList<String>();
+
+        int start = 0;
+        int ix = 0;
+        while (ix < path.length()) {
+            if (path.charAt(ix) == ':' && ix + 1 < path.length() && isNameChar(path.charAt(ix + 1))) {
+                literalList.add(path.substring(start, ix));
+                int nameStart = ++ix;
+                while (ix < path.length() && isNameChar(path.charAt(ix))) {
+                    ix++;
+                }
+                nameList.add(path.substring(nameStart, ix));
+                start = ix;
+            } else {
+                ix++;
+            }
+        }
+        literalList.add(path.substring(start));
+
+        this.literals = literalList.toArray(new String[literalList.size()]);
+        this.names = nameList.toArray(new String[nameList.size()]);
+        this.relative = !path.startsWith("/")
+                && literals[0].indexOf(':') < 0
+                && path.indexOf('?') < 0
+                && path.indexOf('#') < 0
+                && !path.equals(".") && !path.equals("..")
+                && !path.startsWith("./") && !path.startsWith("../")
+                && path.indexOf("/./") < 0 && path.indexOf("/../") < 0
+                && !path.endsWith("/.") && !path.endsWith("/..");
+    }
+
+    /**
+     * Returns the number of placeholders.
+     */
+    public int getParameterCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of a placeholder.
+     *
+     * @param index
+     *            Placeholder index
+     * @return Placeholder name, without the leading ':'
+     */
+    public String getParameterName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns {@code true} if the path is a plain relative path, which can just be
+     * appended to a base URL that ends with a slash. It is {@code false} if the path
+     * needs to be resolved against the base URL.
+     */
+    public boolean isRelative() {
+        return relative;
+    }
+
+    /**
+     * Appends the path to a {@link StringBuilder}, with the placeholders replaced by the
+     * given values.
+     *
+     * @param sb
+     *            {@link StringBuilder} to append to
+     * @param values
+     *            Encoded values of the placeholders, in the order of the placeholders.
+     *            If a value is {@code null}, the placeholder is left unchanged.
+     */
+    public void appendTo(StringBuilder sb, String[] values) {
+        for (int ix = 0; ix < names.length; ix++) {
+            sb.append(literals[ix]);
+            if (values[ix] != null) {
+                sb.append(values[ix]);
+            } else {
+                sb.append(':').append(names[ix]);
+            }
+        }
+        sb.append(literals[names.length]);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * Encodes a string for a URL in a single pass. The result is the same as of
+     * {@link java.net.URLEncoder#encode(String, String)} with "utf-8" encoding, but it
+     * is written to the {@link StringBuilder} directly.
+     *
+     * @param str
+     *            String to encode
+     * @param sb
+     *            {@link StringBuilder} to append the encoded string to
+     */
+    public static void encode(String str, StringBuilder sb) {
+        int len = str.length();
+        for (int ix = 0; ix < len; ix++) {
+            char ch = str.charAt(ix);
+
+            if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')
+                    || ch == '.' || ch == '-' || ch == '*' || ch == '_') {
+                sb.append(ch);
+            } else if (ch == ' ') {
+                sb.append('+');
+            } else if (ch < 0x80) {
+                appendHex(sb, ch);
+            } else if (ch < 0x800) {
+                appendHex(sb, 0xC0 | (ch >> 6));
+                appendHex(sb, 0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && ix + 1 < len
+                    && Character.isLowSurrogate(str.charAt(ix + 1))) {
+                int cp = Character.toCodePoint(ch, str.charAt(++ix));
+                appendHex(sb, 0xF0 | (cp >> 18));
+                appendHex(sb, 0x80 | ((cp >> 12) & 0x3F));
+                appendHex(sb, 0x80 | ((cp >> 6) & 0x3F));
+                appendHex(sb, 0x80 | (cp & 0x3F));
+            } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+                // Unpaired surrogate, replaced by '?' like the utf-8 encoder does
+                appendHex(sb, '?');
+            } else {
+                appendHex(sb, 0xE0 | (ch >> 12));
+                appendHex(sb, 0x80 | ((ch >> 6) & 0x3F));
+                appendHex(sb, 0x80 | (ch & 0x3F));
+            }
+        }
+    }
+
+    private static void appendHex(StringBuilder sb, int b) {
+        sb.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    private static boolean isNameChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+    }
+
+}
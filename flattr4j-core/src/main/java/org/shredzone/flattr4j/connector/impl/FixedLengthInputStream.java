@@ -0,0 +1,98 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that reads a HTTP body with a known content length. It reads
+ * exactly up to the end of the body, so the underlying stream can be used for the next
+ * response.
+ * <p>
+ * Closing this stream does not close the underlying stream.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class FixedLengthInputStream extends InputStream {
+    private final InputStream in;
+    private long remaining;
+
+    /**
+     * Creates a new {@link FixedLengthInputStream}.
+     *
+     * @param in
+     *            {@link InputStream} to read from
+     * @param length
+     *            Content length
+     */
+    public FixedLengthInputStream(InputStream in, long length) {
+        this.in = in;
+        this.remaining = length;
+    }
+
+    /**
+     * Returns {@code true} if the body has been read completely.
+     */
+    public boolean isEof() {
+        return remaining == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int ch = in.read();
+        if (ch < 0) {
+            throw new EOFException("unexpected end of body");
+        }
+        remaining--;
+        return ch;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining == 0) {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read < 0) {
+            throw new EOFException("unexpected end of body");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Do not close the underlying stream
+    }
+
+}
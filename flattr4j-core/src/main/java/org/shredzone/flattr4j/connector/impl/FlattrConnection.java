@@ -23,33 +23,44 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpRetryException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 import org.shredzone.flattr4j.connector.Connection;
 import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.MetricsListener;
 import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.connector.RequestMetrics;
 import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.connector.ResultHandler;
+import org.shredzone.flattr4j.connector.Transport;
+import org.shredzone.flattr4j.connector.TransportResponse;
 import org.shredzone.flattr4j.exception.FlattrException;
 import org.shredzone.flattr4j.exception.FlattrServiceException;
 import org.shredzone.flattr4j.exception.ForbiddenException;
@@ -77,7 +88,11 @@ public class FlattrConnection implements Connection {
     private static final String USER_AGENT;
 
     private String baseUrl;
+    private URI baseUri;
     private String call;
+    private String endpoint;
+    private EndpointTemplate template;
+    private String[] values;
     private RequestType type;
     private ConsumerKey key;
     private AccessToken token;
@@ -85,6 +100,14 @@ public class FlattrConnection implements Connection {
     private StringBuilder queryParams;
     private StringBuilder formParams;
     private RateLimit limit;
+    private Transport transport;
+    private RateLimitScheduler scheduler;
+    private RetryPolicy retryPolicy;
+    private boolean idempotent;
+    private ValidatorCache validatorCache;
+    private RequestCoalescer coalescer;
+    private MetricsListener metricsListener;
+    private int logSampling = 1;
 
     static {
         StringBuilder agent = new StringBuilder("flattr4j");
@@ -118,9 +141,136 @@ public class FlattrConnection implements Connection {
         this.type = type;
     }
 
+    /**
+     * Sets the {@link Transport} to be used for sending the request. If not set, the
+     * request is sent via {@link HttpURLConnection}, using
+     * {@link #createConnection(URL)}.
+     *
+     * @param transport
+     *            {@link Transport} to be used, or {@code null} for the default
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection transport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Sets the {@link RateLimitScheduler} that paces the request. GET requests are
+     * regarded as background requests, all other request types as interactive requests.
+     *
+     * @param scheduler
+     *            {@link RateLimitScheduler} to be used, or {@code null} for none
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection scheduler(RateLimitScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * Sets the {@link RetryPolicy} that decides if a failed request is retried.
+     *
+     * @param retryPolicy
+     *            {@link RetryPolicy} to be used, or {@code null} to never retry
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Marks this request as idempotent, so the {@link RetryPolicy} may also retry it if
+     * it is unknown whether the server has processed it. GET and DELETE requests are
+     * always regarded as idempotent. Only use it for PUT and POST requests that can be
+     * safely repeated.
+     *
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection idempotent() {
+        this.idempotent = true;
+        return this;
+    }
+
+    /**
+     * Sets the {@link ValidatorCache} that is used for conditional GET requests.
+     *
+     * @param validatorCache
+     *            {@link ValidatorCache} to be used, or {@code null} for none
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection validatorCache(ValidatorCache validatorCache) {
+        this.validatorCache = validatorCache;
+        return this;
+    }
+
+    /**
+     * Sets the {@link RequestCoalescer} that lets identical concurrent GET requests
+     * share a single call to the server.
+     *
+     * @param coalescer
+     *            {@link RequestCoalescer} to be used, or {@code null} for none
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection coalescer(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MetricsListener} that receives the metrics of the request.
+     *
+     * @param metricsListener
+     *            {@link MetricsListener} to be used, or {@code null} for none
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection metricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * Sets the sampling rate of the result rows that are dumped to the verbose log.
+     *
+     * @param logSampling
+     *            Only every n-th result row is logged. 1 logs every row.
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection logSampling(int logSampling) {
+        if (logSampling < 1) {
+            throw new IllegalArgumentException("logSampling must be positive");
+        }
+        this.logSampling = logSampling;
+        return this;
+    }
+
+    /**
+     * Sets the base {@link URI}, if it has already been parsed. It must be set after
+     * {@link #url(String)}, and it must match the base URL.
+     *
+     * @param baseUri
+     *            Base {@link URI}, or {@code null} if the base URL is to be parsed
+     * @return this
+     * @since 2.15
+     */
+    public FlattrConnection baseUri(URI baseUri) {
+        this.baseUri = baseUri;
+        return this;
+    }
+
     @Override
     public Connection url(String url) {
         this.baseUrl = url;
+        this.baseUri = null;
         LOG.verbose("-> baseUrl {0}", url);
         return this;
     }
@@ -128,6 +278,9 @@ public class FlattrConnection implements Connection {
     @Override
     public Connection call(String call) {
         this.call = call;
+        this.endpoint = call;
+        this.template = EndpointTemplate.compile(call);
+        this.values = new String[template.getParameterCount()];
         LOG.verbose("-> call {0}", call);
         return this;
     }
@@ -146,34 +299,43 @@ public class FlattrConnection implements Connection {
 
     @Override
     public Connection parameter(String name, String value) {
-        try {
-            call = call.replace(":" + name, URLEncoder.encode(value, ENCODING));
-            LOG.verbose("-> param {0} = {1}", name, value);
-            return this;
-        } catch (UnsupportedEncodingException ex) {
-            // should never be thrown, as "utf-8" encoding is available on any VM
-            throw new IllegalStateException(ex);
-        }
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        EndpointTemplate.encode(value, sb);
+        setParameter(name, sb.toString());
+        LOG.verbose("-> param {0} = {1}", name, value);
+        return this;
     }
 
     @Override
     public Connection parameterArray(String name, String[] value) {
-        try {
-            StringBuilder sb = new StringBuilder();
-            for (int ix = 0; ix < value.length; ix++) {
-                if (ix > 0) {
-                    // Is it genius or madness, but the Flattr server does not accept
-                    // URL encoded ','!
-                    sb.append(',');
-                }
-                sb.append(URLEncoder.encode(value[ix], ENCODING));
+        StringBuilder sb = new StringBuilder(value.length * 12);
+        for (int ix = 0; ix < value.length; ix++) {
+            if (ix > 0) {
+                // Is it genius or madness, but the Flattr server does not accept
+                // URL encoded ','!
+                sb.append(',');
+            }
+            EndpointTemplate.encode(value[ix], sb);
+        }
+        String encoded = sb.toString();
+        setParameter(name, encoded);
+        LOG.verbose("-> param {0} = [{1}]", name, encoded);
+        return this;
+    }
+
+    /**
+     * Sets the value of all placeholders of the given name.
+     *
+     * @param name
+     *            Placeholder name
+     * @param encoded
+     *            URL encoded value
+     */
+    private void setParameter(String name, String encoded) {
+        for (int ix = 0; ix < values.length; ix++) {
+            if (name.equals(template.getParameterName(ix))) {
+                values[ix] = encoded;
             }
-            call = call.replace(":" + name, sb.toString());
-            LOG.verbose("-> param {0} = [{1}]", name, sb.toString());
-            return this;
-        } catch (UnsupportedEncodingException ex) {
-            // should never be thrown, as "utf-8" encoding is available on any VM
-            throw new IllegalStateException(ex);
         }
     }
 
@@ -218,113 +380,261 @@ public class FlattrConnection implements Connection {
 
     @Override
     public Collection<FlattrObject> result() throws FlattrException {
-        try {
-            String queryString = (queryParams != null ? "?" + queryParams : "");
+        final List<FlattrObject> result = new ArrayList<FlattrObject>();
+        result(new ResultHandler() {
+            @Override
+            public void handle(FlattrObject fo) {
+                result.add(fo);
+            }
+        });
+        return result;
+    }
 
+    @Override
+    public void result(ResultHandler handler) throws FlattrException {
+        try {
             URL url;
-            if (call != null) {
-                url = new URI(baseUrl).resolve(call + queryString).toURL();
+            if (template != null) {
+                if (baseUri == null) {
+                    baseUri = new URI(baseUrl);
+                }
+
+                // If the path is just appended to the base URL, there is no need to
+                // resolve it, and the URL can be built in a single buffer.
+                boolean append = template.isRelative() && !baseUri.isOpaque() && baseUrl.endsWith("/");
+
+                StringBuilder sb = new StringBuilder(baseUrl.length() + call.length() + 64);
+                if (append) {
+                    sb.append(baseUrl);
+                }
+                int pathStart = sb.length();
+                template.appendTo(sb, values);
+                call = sb.substring(pathStart);
+                if (queryParams != null) {
+                    sb.append('?').append(queryParams);
+                }
+
+                if (append) {
+                    url = new URL(sb.toString());
+                } else {
+                    url = baseUri.resolve(sb.toString()).toURL();
+                }
             } else {
+                String queryString = (queryParams != null ? "?" + queryParams : "");
                 url = new URI(baseUrl + queryString).toURL();
             }
 
-            HttpURLConnection conn = createConnection(url);
-            conn.setRequestMethod(type.name());
-            conn.setRequestProperty("Accept", "application/json");
-            conn.setRequestProperty("Accept-Charset", ENCODING);
-            conn.setRequestProperty("Accept-Encoding", "gzip");
+            Map<String, String> headers = new LinkedHashMap<String, String>();
+            headers.put("User-Agent", USER_AGENT);
+            headers.put("Accept", "application/json");
+            headers.put("Accept-Charset", ENCODING);
+            headers.put("Accept-Encoding", "gzip");
 
             if (token != null) {
-                conn.setRequestProperty("Authorization", "Bearer " + token.getToken());
+                headers.put("Authorization", "Bearer " + token.getToken());
             } else if (key != null) {
-                conn.setRequestProperty("Authorization", "Basic " +
+                headers.put("Authorization", "Basic " +
                                 base64(key.getKey() + ':' +  key.getSecret()));
             }
 
             byte[] outputData = null;
             if (data != null) {
                 outputData = data.toString().getBytes(ENCODING);
-                conn.setDoOutput(true);
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setFixedLengthStreamingMode(outputData.length);
+                headers.put("Content-Type", "application/json");
             } else if (formParams != null) {
                 outputData = formParams.toString().getBytes(ENCODING);
-                conn.setDoOutput(true);
-                conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-                conn.setFixedLengthStreamingMode(outputData.length);
+                headers.put("Content-Type", "application/x-www-form-urlencoded");
             }
 
-            LOG.info("Sending Flattr request: {0}", call);
-            conn.connect();
+            if (coalescer != null && type == RequestType.GET) {
+                coalesce(url, headers, handler);
+            } else {
+                execute(url, headers, outputData, handler, null);
+            }
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException("bad baseUrl", ex);
+        } catch (IOException ex) {
+            throw new FlattrException("API access failed: " + call, ex);
+        } catch (JSONException ex) {
+            throw new MarshalException(ex);
+        } catch (ClassCastException ex) {
+            throw new FlattrException("Unexpected result type", ex);
+        }
+    }
 
-            if (outputData != null) {
-                OutputStream out = conn.getOutputStream();
-                try {
-                    out.write(outputData);
-                } finally {
-                    out.close();
+    /**
+     * Sends the request to the server and reads the result. If a
+     * {@link MetricsListener} is set, the metrics of the request are collected and
+     * passed to it.
+     *
+     * @param url
+     *            {@link URL} to send the request to
+     * @param headers
+     *            Request headers
+     * @param outputData
+     *            Request body, or {@code null}
+     * @param handler
+     *            {@link ResultHandler} to pass the results to
+     * @param rows
+     *            If not {@code null}, the JSON data of each result row is added to
+     *            this list
+     */
+    private void execute(URL url, Map<String, String> headers, byte[] outputData,
+                ResultHandler handler, List<String> rows) throws FlattrException {
+        if (metricsListener == null) {
+            transfer(url, headers, outputData, handler, rows, null);
+            return;
+        }
+
+        RequestMetrics metrics = new RequestMetrics(type, endpoint != null ? endpoint : baseUrl);
+        long start = System.nanoTime();
+        try {
+            transfer(url, headers, outputData, handler, rows, metrics);
+        } catch (FlattrException ex) {
+            metrics.setFailure(ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            metrics.setFailure(ex);
+            throw ex;
+        } finally {
+            metrics.setTotalTime(System.nanoTime() - start);
+            try {
+                metricsListener.onRequest(metrics);
+            } catch (RuntimeException ex) {
+                LOG.error("Metrics listener failed: {0}", ex);
+            }
+        }
+    }
+
+    /**
+     * Sends the request to the server and reads the result. Conditional requests are
+     * sent if a {@link ValidatorCache} is set, and failed requests are retried if a
+     * {@link RetryPolicy} is set.
+     *
+     * @param url
+     *            {@link URL} to send the request to
+     * @param headers
+     *            Request headers
+     * @param outputData
+     *            Request body, or {@code null}
+     * @param handler
+     *            {@link ResultHandler} to pass the results to
+     * @param rows
+     *            If not {@code null}, the JSON data of each result row is added to
+     *            this list
+     * @param metrics
+     *            {@link RequestMetrics} to be filled, or {@code null}
+     */
+    private void transfer(URL url, Map<String, String> headers, byte[] outputData,
+                ResultHandler handler, List<String> rows, RequestMetrics metrics)
+                throws FlattrException {
+        try {
+            String cacheKey = null;
+            ValidatorCache.Entry cached = null;
+            if (validatorCache != null && type == RequestType.GET) {
+                cacheKey = tokenKey() + ' ' + url;
+                cached = validatorCache.get(cacheKey);
+                if (cached != null) {
+                    if (cached.getETag() != null) {
+                        headers.put("If-None-Match", cached.getETag());
+                    }
+                    if (cached.getLastModified() != null) {
+                        headers.put("If-Modified-Since", cached.getLastModified());
+                    }
                 }
             }
 
-            if (limit != null) {
-                String remainingHeader = conn.getHeaderField("X-RateLimit-Remaining");
-                if (remainingHeader != null) {
-                    limit.setRemaining(Long.parseLong(remainingHeader));
-                } else {
-                    limit.setRemaining(null);
+            long delay = 0L;
+            for (int attempt = 1; ; attempt++) {
+                if (delay > 0L) {
+                    pause(delay);
                 }
 
-                String limitHeader = conn.getHeaderField("X-RateLimit-Limit");
-                if (limitHeader != null) {
-                    limit.setLimit(Long.parseLong(limitHeader));
-                } else {
-                    limit.setLimit(null);
+                if (scheduler != null) {
+                    scheduler.acquire(type != RequestType.GET);
                 }
 
-                String currentHeader = conn.getHeaderField("X-RateLimit-Current");
-                if (currentHeader != null) {
-                    limit.setCurrent(Long.parseLong(currentHeader));
-                } else {
-                    limit.setCurrent(null);
+                LOG.info("Sending Flattr request: {0}", call);
+
+                long attemptStart = System.nanoTime();
+                if (metrics != null) {
+                    metrics.setAttempts(attempt);
                 }
 
-                String resetHeader = conn.getHeaderField("X-RateLimit-Reset");
-                if (resetHeader != null) {
-                    limit.setReset(new Date(Long.parseLong(resetHeader) * 1000L));
-                } else {
-                    limit.setReset(null);
+                TransportResponse response;
+                try {
+                    if (transport != null) {
+                        response = transport.send(type.name(), url, headers, outputData);
+                    } else {
+                        response = send(url, headers, outputData);
+                    }
+                } catch (IOException ex) {
+                    delay = (retryPolicy != null ? retryPolicy.getRetryDelay(attempt, isIdempotent(), ex) : -1L);
+                    if (delay < 0L) {
+                        throw ex;
+                    }
+                    LOG.info("Flattr request failed, retrying in {0} ms: {1}", delay, ex.getMessage());
+                    continue;
                 }
-            }
 
-            List<FlattrObject> result;
-
-            if (assertStatusOk(conn)) {
-                // Status is OK and there is content
-                Object resultData = new JSONTokener(readResponse(conn)).nextValue();
-                if (resultData instanceof JSONArray) {
-                    JSONArray array = (JSONArray) resultData;
-                    result = new ArrayList<FlattrObject>(array.length());
-                    for (int ix = 0; ix < array.length(); ix++) {
-                        FlattrObject fo = new FlattrObject(array.getJSONObject(ix));
-                        result.add(fo);
-                        LOG.verbose("<- JSON result: {0}", fo);
+                try {
+                    if (metrics != null) {
+                        metrics.setConnectTime(response.getConnectTime());
+                        metrics.setStatusCode(response.getStatusCode());
+                        metrics.setFirstByteTime(System.nanoTime() - attemptStart);
                     }
-                    LOG.verbose("<-   {0} rows", array.length());
-                } else if (resultData instanceof JSONObject) {
-                    FlattrObject fo = new FlattrObject((JSONObject) resultData);
-                    result = Collections.singletonList(fo);
-                    LOG.verbose("<- JSON result: {0}", fo);
-                } else {
-                    throw new MarshalException("unexpected result type " + resultData.getClass().getName());
+
+                    updateRateLimit(response, metrics);
+
+                    if (cached != null && response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                        LOG.verbose("<- not modified, {0} cached rows", cached.getRows().size());
+                        if (metrics != null) {
+                            metrics.setNotModified(true);
+                        }
+                        for (String row : cached.getRows()) {
+                            handler.handle(new FlattrObject(row));
+                            if (rows != null) {
+                                rows.add(row);
+                            }
+                        }
+                        return;
+                    }
+
+                    boolean hasContent;
+                    try {
+                        hasContent = assertStatusOk(response);
+                    } catch (FlattrException ex) {
+                        if (metrics != null && ex instanceof FlattrServiceException) {
+                            metrics.setErrorCode(((FlattrServiceException) ex).getCode());
+                        }
+                        delay = (retryPolicy != null
+                                    ? retryPolicy.getRetryDelay(attempt, isIdempotent(), response.getStatusCode(), ex, getRetryAt(response, ex))
+                                    : -1L);
+                        if (delay < 0L) {
+                            throw ex;
+                        }
+                        LOG.info("Flattr request failed, retrying in {0} ms: {1}", delay, ex.getMessage());
+                        continue;
+                    }
+
+                    List<String> readRows = rows;
+                    if (readRows == null && cacheKey != null) {
+                        readRows = new ArrayList<String>();
+                    }
+                    if (hasContent) {
+                        readResult(response, handler, readRows, metrics);
+                    }
+                    // Otherwise status was OK, but there is no content
+
+                    if (cacheKey != null) {
+                        validatorCache.put(cacheKey, response.getHeader("ETag"),
+                                        response.getHeader("Last-Modified"), readRows);
+                    }
+                    return;
+                } finally {
+                    response.close();
                 }
-            } else {
-                // Status was OK, but there is no content
-                result = Collections.emptyList();
             }
-
-            return result;
-        } catch (URISyntaxException ex) {
-            throw new IllegalStateException("bad baseUrl", ex);
         } catch (IOException ex) {
             throw new FlattrException("API access failed: " + call, ex);
         } catch (JSONException ex) {
@@ -334,6 +644,226 @@ public class FlattrConnection implements Connection {
         }
     }
 
+    /**
+     * Sends a GET request via the {@link RequestCoalescer}. If an identical request is
+     * already in progress, its result is used instead of sending another request.
+     *
+     * @param url
+     *            {@link URL} to send the request to
+     * @param headers
+     *            Request headers
+     * @param handler
+     *            {@link ResultHandler} to pass the results to
+     */
+    private void coalesce(final URL url, final Map<String, String> headers, ResultHandler handler)
+                throws FlattrException {
+        String flightKey = type.name() + ' ' + url + ' ' + tokenKey();
+
+        final List<FlattrObject> objects = new ArrayList<FlattrObject>();
+        List<String> rows = coalescer.execute(flightKey, new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws FlattrException {
+                List<String> result = new ArrayList<String>();
+                execute(url, headers, null, new ResultHandler() {
+                    @Override
+                    public void handle(FlattrObject fo) {
+                        objects.add(fo);
+                    }
+                }, result);
+                return result;
+            }
+        });
+
+        if (objects.isEmpty()) {
+            // The result of another request was used, so create our own objects
+            for (String row : rows) {
+                objects.add(new FlattrObject(row));
+            }
+        }
+
+        for (FlattrObject fo : objects) {
+            handler.handle(fo);
+        }
+    }
+
+    /**
+     * Reads the rate limit headers of the response, and updates the {@link RateLimit}
+     * and the {@link RateLimitScheduler}.
+     *
+     * @param response
+     *            {@link TransportResponse} to read from
+     * @param metrics
+     *            {@link RequestMetrics} to pass the rate limit to, or {@code null}
+     */
+    private void updateRateLimit(TransportResponse response, RequestMetrics metrics) {
+        RateLimit responseLimit = limit;
+        if (responseLimit == null && (scheduler != null || metrics != null)) {
+            responseLimit = new RateLimit();
+        }
+
+        if (responseLimit != null) {
+            String remainingHeader = response.getHeader("X-RateLimit-Remaining");
+            if (remainingHeader != null) {
+                responseLimit.setRemaining(Long.parseLong(remainingHeader));
+            } else {
+                responseLimit.setRemaining(null);
+            }
+
+            String limitHeader = response.getHeader("X-RateLimit-Limit");
+            if (limitHeader != null) {
+                responseLimit.setLimit(Long.parseLong(limitHeader));
+            } else {
+                responseLimit.setLimit(null);
+            }
+
+            String currentHeader = response.getHeader("X-RateLimit-Current");
+            if (currentHeader != null) {
+                responseLimit.setCurrent(Long.parseLong(currentHeader));
+            } else {
+                responseLimit.setCurrent(null);
+            }
+
+            String resetHeader = response.getHeader("X-RateLimit-Reset");
+            if (resetHeader != null) {
+                responseLimit.setReset(new Date(Long.parseLong(resetHeader) * 1000L));
+            } else {
+                responseLimit.setReset(null);
+            }
+        }
+
+        if (scheduler != null) {
+            scheduler.update(responseLimit);
+        }
+
+        if (metrics != null) {
+            metrics.setRateLimit(new RateLimit(responseLimit));
+        }
+    }
+
+    /**
+     * Reads the JSON result of the response, and passes each {@link FlattrObject} to the
+     * {@link ResultHandler}.
+     *
+     * @param response
+     *            {@link TransportResponse} to read from
+     * @param handler
+     *            {@link ResultHandler} to pass the results to
+     * @param rows
+     *            If not {@code null}, the JSON data of each result row is added to
+     *            this list
+     * @param metrics
+     *            {@link RequestMetrics} to pass the response size to, or {@code null}
+     */
+    private void readResult(TransportResponse response, ResultHandler handler,
+                List<String> rows, RequestMetrics metrics)
+                throws IOException, FlattrException {
+        Reader reader = openResponse(response, metrics);
+        try {
+            JsonArrayReader json = new JsonArrayReader(reader);
+            if (json.startArray()) {
+                boolean verbose = LOG.isVerboseEnabled();
+                int count = 0;
+                String element;
+                while ((element = json.nextElement()) != null) {
+                    FlattrObject fo = new FlattrObject(element);
+                    if (verbose && count % logSampling == 0) {
+                        // Log the JSON as it was received, no need to serialize it again
+                        LOG.verbose("<- JSON result #{0}: {1}", count, element);
+                    }
+                    handler.handle(fo);
+                    if (rows != null) {
+                        rows.add(element);
+                    }
+                    count++;
+                }
+                LOG.verbose("<-   {0} rows", count);
+            } else {
+                String remaining = json.remaining();
+                Object resultData = new JSONTokener(remaining).nextValue();
+                if (resultData instanceof JSONObject) {
+                    if (rows != null) {
+                        rows.add(remaining);
+                    }
+                    FlattrObject fo = new FlattrObject((JSONObject) resultData);
+                    LOG.verbose("<- JSON result: {0}", remaining);
+                    handler.handle(fo);
+                } else {
+                    throw new MarshalException("unexpected result type " + resultData.getClass().getName());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Checks if this request is idempotent, either by its type or because it was marked
+     * as idempotent.
+     *
+     * @return {@code true} if the request can be safely repeated
+     */
+    private boolean isIdempotent() {
+        return idempotent || retryPolicy.isIdempotent(type);
+    }
+
+    /**
+     * Gets the time when a failed request should be retried, as requested by the
+     * server. The "Retry-After" header is preferred. The "X-RateLimit-Reset" header is
+     * only used if the request was rejected because the rate limit was exceeded, since
+     * Flattr sends it with every response.
+     *
+     * @param response
+     *            {@link TransportResponse} to read from
+     * @param error
+     *            {@link FlattrException} that was raised for the response
+     * @return Retry time, or {@code null} if the server did not send one
+     */
+    private Date getRetryAt(TransportResponse response, FlattrException error)
+                throws IOException {
+        String retryAfter = response.getHeader("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return new Date(System.currentTimeMillis() + Long.parseLong(retryAfter.trim()) * 1000L);
+            } catch (NumberFormatException ex) {
+                // it's not a number of seconds, so it must be a HTTP date
+                SimpleDateFormat fmt = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+                try {
+                    return fmt.parse(retryAfter.trim());
+                } catch (ParseException ex2) {
+                    LOG.debug("Could not parse Retry-After header: " + retryAfter, ex2);
+                }
+            }
+        }
+
+        boolean rateLimited = response.getStatusCode() == 429
+                        || error instanceof RateLimitExceededException;
+        String resetHeader = response.getHeader("X-RateLimit-Reset");
+        if (rateLimited && resetHeader != null) {
+            try {
+                return new Date(Long.parseLong(resetHeader) * 1000L);
+            } catch (NumberFormatException ex) {
+                LOG.debug("Could not parse X-RateLimit-Reset header: " + resetHeader, ex);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Pauses before a request is retried.
+     *
+     * @param delay
+     *            Delay, in milliseconds
+     */
+    private void pause(long delay) throws FlattrException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FlattrException("Interrupted while waiting for retry: " + call, ex);
+        }
+    }
+
     @Override
     public FlattrObject singleResult() throws FlattrException {
         Collection<FlattrObject> result = result();
@@ -347,26 +877,13 @@ public class FlattrConnection implements Connection {
     /**
      * Reads the returned HTTP response as string.
      *
-     * @param conn
-     *            {@link HttpURLConnection} to read from
+     * @param response
+     *            {@link TransportResponse} to read from
      * @return Response read
      */
-    private String readResponse(HttpURLConnection conn) throws IOException {
-        InputStream in = null;
-
+    private String readResponse(TransportResponse response) throws IOException {
+        Reader reader = openResponse(response, null);
         try {
-            in = conn.getErrorStream();
-            if (in == null) {
-                in = conn.getInputStream();
-            }
-
-            if ("gzip".equals(conn.getContentEncoding())) {
-                in = new GZIPInputStream(in);
-            }
-
-            Charset charset = getCharset(conn.getContentType());
-            Reader reader = new InputStreamReader(in, charset);
-
             // Sadly, the Android API does not offer a JSONTokener for a Reader.
             char[] buffer = new char[1024];
             StringBuilder sb = new StringBuilder();
@@ -378,27 +895,69 @@ public class FlattrConnection implements Connection {
 
             return sb.toString();
         } finally {
-            if (in != null) {
-                in.close();
-            }
+            reader.close();
         }
     }
 
+    /**
+     * Opens a {@link Reader} for the returned HTTP response. The body is decompressed
+     * and decoded using the charset of the response.
+     *
+     * @param response
+     *            {@link TransportResponse} to read from
+     * @param metrics
+     *            {@link RequestMetrics} to pass the body sizes to when the reader is
+     *            closed, or {@code null}
+     * @return {@link Reader} for the response body
+     */
+    private Reader openResponse(TransportResponse response, final RequestMetrics metrics)
+                throws IOException {
+        InputStream in = response.getBody();
+        if (in == null) {
+            return new StringReader("");
+        }
+
+        final CountingInputStream transferred = (metrics != null ? new CountingInputStream(in) : null);
+        if (transferred != null) {
+            in = transferred;
+        }
+
+        if ("gzip".equals(response.getHeader("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+
+        Charset charset = getCharset(response.getHeader("Content-Type"));
+
+        if (metrics == null) {
+            return new InputStreamReader(in, charset);
+        }
+
+        final CountingInputStream content = new CountingInputStream(in);
+        return new InputStreamReader(content, charset) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                metrics.setResponseSize(transferred.getCount());
+                metrics.setContentSize(content.getCount());
+            }
+        };
+    }
+
     /**
      * Assert that the HTTP result is OK, otherwise generate and throw an appropriate
      * {@link FlattrException}.
      *
-     * @param conn
-     *            {@link HttpURLConnection} to assert
+     * @param response
+     *            {@link TransportResponse} to assert
      * @return {@code true} if the status is OK and there is a content, {@code false} if
      *         the status is OK but there is no content. (If the status is not OK, an
      *         exception is thrown.)
      */
-    private boolean assertStatusOk(HttpURLConnection conn) throws FlattrException {
+    private boolean assertStatusOk(TransportResponse response) throws FlattrException {
         String error = null, desc = null, httpStatus = null;
 
         try {
-            int statusCode = conn.getResponseCode();
+            int statusCode = response.getStatusCode();
 
             if (statusCode == HttpURLConnection.HTTP_OK || statusCode == HttpURLConnection.HTTP_CREATED) {
                 return true;
@@ -407,9 +966,9 @@ public class FlattrConnection implements Connection {
                 return false;
             }
 
-            httpStatus = "HTTP " + statusCode + ": " + conn.getResponseMessage();
+            httpStatus = "HTTP " + statusCode + ": " + response.getStatusMessage();
 
-            JSONObject errorData = (JSONObject) new JSONTokener(readResponse(conn)).nextValue();
+            JSONObject errorData = (JSONObject) new JSONTokener(readResponse(response)).nextValue();
             LOG.verbose("<- ERROR {0}: {1}", statusCode, errorData);
 
             error = errorData.optString("error");
@@ -459,9 +1018,50 @@ public class FlattrConnection implements Connection {
         throw new FlattrException(httpStatus);
     }
 
+    /**
+     * Sends a request via {@link HttpURLConnection}. This is used if no {@link Transport}
+     * was set.
+     *
+     * @param url
+     *            {@link URL} to connect to
+     * @param headers
+     *            Request headers
+     * @param outputData
+     *            Request body, or {@code null}
+     * @return {@link TransportResponse} of the connection
+     */
+    private TransportResponse send(URL url, Map<String, String> headers, byte[] outputData)
+                throws IOException {
+        HttpURLConnection conn = createConnection(url);
+        conn.setRequestMethod(type.name());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            conn.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        if (outputData != null) {
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(outputData.length);
+        }
+
+        long start = System.nanoTime();
+        conn.connect();
+        long connectTime = System.nanoTime() - start;
+
+        if (outputData != null) {
+            OutputStream out = conn.getOutputStream();
+            try {
+                out.write(outputData);
+            } finally {
+                out.close();
+            }
+        }
+
+        return new UrlConnectionResponse(conn, connectTime);
+    }
+
     /**
      * Creates a {@link HttpURLConnection} to the given url. Override to configure the
-     * connection.
+     * connection. It is not used if a {@link Transport} was set.
      *
      * @param url
      *            {@link URL} to connect to
@@ -488,15 +1088,38 @@ public class FlattrConnection implements Connection {
      *            parameter value
      */
     private void appendParam(StringBuilder builder, String key, String value) {
+        if (builder.length() > 0) {
+            builder.append('&');
+        }
+        EndpointTemplate.encode(key, builder);
+        builder.append('=');
+        EndpointTemplate.encode(value, builder);
+    }
+
+    /**
+     * Returns a key that identifies the access token in cache and coalescer keys. It is
+     * a SHA-256 hash of the token, so the token itself cannot leak through these keys.
+     *
+     * @return Token key, or an empty string if there is no access token
+     */
+    private String tokenKey() {
+        if (token == null) {
+            return "";
+        }
+
         try {
-            if (builder.length() > 0) {
-                builder.append('&');
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : sha.digest(token.getToken().getBytes(ENCODING))) {
+                sb.append(Character.forDigit((b >> 4) & 0x0F, 16));
+                sb.append(Character.forDigit(b & 0x0F, 16));
             }
-            builder.append(URLEncoder.encode(key, ENCODING));
-            builder.append('=');
-            builder.append(URLEncoder.encode(value, ENCODING));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // should never happen since SHA-256 is a standard digester
+            throw new IllegalStateException("no sha-256 hashing", ex);
         } catch (UnsupportedEncodingException ex) {
-            throw new IllegalStateException(ex);
+            throw new IllegalArgumentException(ENCODING, ex);
         }
     }
 
@@ -563,4 +1186,57 @@ public class FlattrConnection implements Connection {
         }
     }
 
+    /**
+     * A {@link TransportResponse} of a {@link HttpURLConnection}.
+     */
+    private static class UrlConnectionResponse implements TransportResponse {
+        private final HttpURLConnection conn;
+        private final long connectTime;
+        private InputStream body;
+
+        public UrlConnectionResponse(HttpURLConnection conn, long connectTime) {
+            this.conn = conn;
+            this.connectTime = connectTime;
+        }
+
+        @Override
+        public int getStatusCode() throws IOException {
+            return conn.getResponseCode();
+        }
+
+        @Override
+        public String getStatusMessage() throws IOException {
+            return conn.getResponseMessage();
+        }
+
+        @Override
+        public long getConnectTime() {
+            return connectTime;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return conn.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = conn.getErrorStream();
+                if (body == null) {
+                    body = conn.getInputStream();
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Do not disconnect, so the connection can be kept alive
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+
 }
@@ -18,9 +18,14 @@
  */
 package org.shredzone.flattr4j.connector.impl;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+
 import org.shredzone.flattr4j.connector.Connection;
 import org.shredzone.flattr4j.connector.Connector;
+import org.shredzone.flattr4j.connector.MetricsListener;
 import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.connector.Transport;
 import org.shredzone.flattr4j.exception.FlattrException;
 import org.shredzone.flattr4j.oauth.AccessToken;
 
@@ -31,8 +36,37 @@ import org.shredzone.flattr4j.oauth.AccessToken;
  */
 public class FlattrConnector implements Connector {
     private String baseUrl = "https://api.flattr.com/rest/v2/";
+    private volatile URI baseUri;
 
     private AccessToken accessToken;
+    private Transport transport;
+    private RateLimitScheduler scheduler;
+    private RetryPolicy retryPolicy;
+    private ValidatorCache validatorCache;
+    private RequestCoalescer coalescer;
+    private MetricsListener metricsListener;
+    private int logSampling = 1;
+
+    /**
+     * Returns the parsed base URL. It is only parsed once, and then shared by all
+     * connections.
+     *
+     * @return Base {@link URI}, or {@code null} if the base URL is invalid. In that case,
+     *         the connection will report the error.
+     */
+    private URI getBaseUri() {
+        URI uri = baseUri;
+        if (uri == null) {
+            try {
+                uri = new URI(baseUrl);
+                baseUri = uri;
+            } catch (URISyntaxException ex) {
+                // The connection will fail with a proper exception
+                uri = null;
+            }
+        }
+        return uri;
+    }
 
     @Override
     public Connection create() throws FlattrException {
@@ -42,7 +76,15 @@ public class FlattrConnector implements Connector {
     @Override
     public Connection create(RequestType type) throws FlattrException {
         FlattrConnection connection = new FlattrConnection(type);
+        connection.transport(transport);
+        connection.scheduler(scheduler);
+        connection.retryPolicy(retryPolicy);
+        connection.validatorCache(validatorCache);
+        connection.coalescer(coalescer);
+        connection.metricsListener(metricsListener);
+        connection.logSampling(logSampling);
         connection.url(baseUrl);
+        connection.baseUri(getBaseUri());
         if (accessToken != null) {
             connection.token(accessToken);
         }
@@ -53,7 +95,10 @@ public class FlattrConnector implements Connector {
      * Base URL of the API. Must end with a trailing slash!
      */
     public String getBaseUrl()                  { return baseUrl; }
-    public void setBaseUrl(String baseUrl)      { this.baseUrl = baseUrl; }
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.baseUri = null;
+    }
 
     /**
      * {@link AccessToken} to be used for authorized calls.
@@ -61,4 +106,77 @@ public class FlattrConnector implements Connector {
     public AccessToken getAccessToken()         { return accessToken; }
     public void setAccessToken(AccessToken accessToken) { this.accessToken = accessToken; }
 
+    /**
+     * {@link Transport} to be used for sending the requests, for example a
+     * {@link PooledTransport}. If {@code null} (which is the default), each request
+     * opens a {@link java.net.HttpURLConnection}.
+     *
+     * @since 2.15
+     */
+    public Transport getTransport()             { return transport; }
+    public void setTransport(Transport transport) { this.transport = transport; }
+
+    /**
+     * {@link RateLimitScheduler} that paces the requests, so the rate limit is not
+     * exceeded. If {@code null} (which is the default), the requests are not paced.
+     *
+     * @since 2.15
+     */
+    public RateLimitScheduler getScheduler()    { return scheduler; }
+    public void setScheduler(RateLimitScheduler scheduler) { this.scheduler = scheduler; }
+
+    /**
+     * {@link RetryPolicy} that decides if a failed request is retried. If {@code null}
+     * (which is the default), failed requests are never retried.
+     *
+     * @since 2.15
+     */
+    public RetryPolicy getRetryPolicy()         { return retryPolicy; }
+    public void setRetryPolicy(RetryPolicy retryPolicy) { this.retryPolicy = retryPolicy; }
+
+    /**
+     * {@link ValidatorCache} for conditional GET requests. If a resource was not
+     * modified, the cached result is used. If {@code null} (which is the default), no
+     * conditional requests are sent.
+     *
+     * @since 2.15
+     */
+    public ValidatorCache getValidatorCache()   { return validatorCache; }
+    public void setValidatorCache(ValidatorCache validatorCache) { this.validatorCache = validatorCache; }
+
+    /**
+     * {@link RequestCoalescer} that lets identical concurrent GET requests share a
+     * single call to the server. It should be shared by all connectors. If {@code null}
+     * (which is the default), every request is sent to the server.
+     *
+     * @since 2.15
+     */
+    public RequestCoalescer getCoalescer()      { return coalescer; }
+    public void setCoalescer(RequestCoalescer coalescer) { this.coalescer = coalescer; }
+
+    /**
+     * {@link MetricsListener} that receives the metrics of every request, for example a
+     * {@link StatisticsMetricsListener}. If {@code null} (which is the default), no
+     * metrics are collected.
+     *
+     * @since 2.15
+     */
+    public MetricsListener getMetricsListener() { return metricsListener; }
+    public void setMetricsListener(MetricsListener metricsListener) { this.metricsListener = metricsListener; }
+
+    /**
+     * If verbose logging is enabled, only every n-th result row is dumped to the log.
+     * Defaults to 1, which logs every row. Use a higher value to reduce the log volume
+     * of large results.
+     *
+     * @since 2.15
+     */
+    public int getLogSampling()                 { return logSampling; }
+    public void setLogSampling(int logSampling) {
+        if (logSampling < 1) {
+            throw new IllegalArgumentException("logSampling must be positive");
+        }
+        this.logSampling = logSampling;
+    }
+
 }
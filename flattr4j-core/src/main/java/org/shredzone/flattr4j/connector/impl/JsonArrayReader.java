@@ -0,0 +1,190 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.json.JSONException;
+
+/**
+ * Splits a JSON array into its elements while it is read from a {@link Reader}. Each
+ * element is returned as a JSON string, so only the element currently read needs to be
+ * kept in memory.
+ * <p>
+ * The elements themselves are not validated. This is left to the JSON parser.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class JsonArrayReader {
+    private final Reader reader;
+    private final char[] buffer = new char[1024];
+    private final StringBuilder element = new StringBuilder();
+    private int pos = 0;
+    private int len = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a new {@link JsonArrayReader}.
+     *
+     * @param reader
+     *            {@link Reader} to read the JSON data from
+     */
+    public JsonArrayReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Checks if the JSON data is an array, and consumes the opening bracket. Must be
+     * invoked before any other method.
+     *
+     * @return {@code true} if the data is an array, {@code false} otherwise
+     */
+    public boolean startArray() throws IOException {
+        int ch;
+        do {
+            ch = read();
+        } while (ch >= 0 && Character.isWhitespace(ch));
+
+        if (ch == '[') {
+            return true;
+        }
+
+        if (ch >= 0) {
+            pos--;
+        }
+        closed = true;
+        return false;
+    }
+
+    /**
+     * Returns the next element of the array.
+     *
+     * @return JSON string of the next element, or {@code null} if the end of the array
+     *         was reached
+     */
+    public String nextElement() throws IOException {
+        if (closed) {
+            return null;
+        }
+
+        element.setLength(0);
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        while (true) {
+            int ch = read();
+            if (ch < 0) {
+                throw new JSONException("Unterminated JSON array");
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (ch == '\\') {
+                    escaped = true;
+                } else if (ch == '"') {
+                    inString = false;
+                }
+                element.append((char) ch);
+                continue;
+            }
+
+            switch (ch) {
+                case '"':
+                    inString = true;
+                    break;
+
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        if (ch == '}') {
+                            throw new JSONException("Unexpected '}' in JSON array");
+                        }
+                        closed = true;
+                        String result = element.toString().trim();
+                        return (result.length() > 0 ? result : null);
+                    }
+                    depth--;
+                    break;
+
+                case ',':
+                    if (depth == 0) {
+                        String result = element.toString().trim();
+                        if (result.length() == 0) {
+                            throw new JSONException("Missing JSON array element");
+                        }
+                        return result;
+                    }
+                    break;
+
+                default:
+                    // just append the character
+            }
+
+            element.append((char) ch);
+        }
+    }
+
+    /**
+     * Reads all the remaining JSON data.
+     *
+     * @return Remaining JSON data
+     */
+    public String remaining() throws IOException {
+        closed = true;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(buffer, pos, len - pos);
+        pos = len;
+
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            sb.append(buffer, 0, read);
+        }
+        len = 0;
+
+        return sb.toString();
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return Character, or -1 on end of stream
+     */
+    private int read() throws IOException {
+        if (pos >= len) {
+            len = reader.read(buffer);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+}
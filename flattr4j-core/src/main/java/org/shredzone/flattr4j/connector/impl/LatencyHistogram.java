@@ -0,0 +1,120 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+/**
+ * A simple histogram of latencies. The latencies are sorted into buckets with
+ * exponentially growing bounds (below 1 ms, below 2 ms, below 4 ms, and so on, up to
+ * about 9 minutes), so the histogram needs a small and constant amount of memory.
+ * Percentiles are estimated by the upper bound of the bucket they fall into.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 20;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long[] buckets = new long[BUCKETS + 1];
+    private long count = 0L;
+    private long sum = 0L;
+    private long max = 0L;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos
+     *            Latency, in nanoseconds. Negative values are ignored.
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+
+        int bucket = 0;
+        long bound = NANOS_PER_MILLI;
+        while (bucket < BUCKETS && nanos >= bound) {
+            bucket++;
+            bound <<= 1;
+        }
+        buckets[bucket]++;
+
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean latency, in nanoseconds, or 0 if nothing was recorded.
+     */
+    public synchronized long getMean() {
+        return (count > 0 ? sum / count : 0L);
+    }
+
+    /**
+     * Returns the maximum latency, in nanoseconds.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates a percentile.
+     *
+     * @param percentile
+     *            Percentile, between 0.0 and 1.0 (e.g. 0.99 for the 99th percentile)
+     * @return Upper bound of the latency bucket, in nanoseconds. It is never larger
+     *         than the maximum latency. 0 if nothing was recorded.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 1.0) {
+            throw new IllegalArgumentException("percentile must be between 0.0 and 1.0");
+        }
+
+        long threshold = (long) Math.ceil(count * percentile);
+        long seen = 0L;
+        long bound = NANOS_PER_MILLI;
+        for (int ix = 0; ix < BUCKETS; ix++) {
+            seen += buckets[ix];
+            if (seen >= threshold) {
+                return Math.min(bound, max);
+            }
+            bound <<= 1;
+        }
+        return max;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "count=" + count
+                + ", mean=" + (getMean() / 1000L) + "us"
+                + ", p99=" + (getPercentile(0.99) / 1000L) + "us"
+                + ", max=" + (max / 1000L) + "us";
+    }
+
+}
@@ -26,6 +26,12 @@ import android.util.Log;
 /**
  * A simple logger class that delegates log output either to {@link android.util.Log} (if
  * available) or to {@link java.util.logging.Logger}.
+ * <p>
+ * The log methods check the log level first, so no message is formatted if it is not
+ * going to be logged. Arguments are only converted to strings when the message is
+ * formatted, so objects with an expensive {@code toString()} method can be passed in
+ * as deferred arguments. There are overloads for one and two arguments, which do not
+ * need to allocate a varargs array when the level is disabled.
  *
  * @author Richard "Shred" Körber
  * @since 2.3
@@ -55,6 +61,49 @@ public class Logger {
         this.logger = log;
     }
 
+    /**
+     * Checks if debug logging is enabled.
+     *
+     * @return {@code true} if messages on debug level are logged
+     * @since 2.15
+     */
+    public boolean isDebugEnabled() {
+        if (logger != null) {
+            return logger.isLoggable(Level.FINER);
+        } else {
+            return Log.isLoggable(tag, Log.DEBUG);
+        }
+    }
+
+    /**
+     * Checks if verbose logging is enabled. Use it for guarding expensive log
+     * statements.
+     *
+     * @return {@code true} if messages on verbose level are logged
+     * @since 2.15
+     */
+    public boolean isVerboseEnabled() {
+        if (logger != null) {
+            return logger.isLoggable(Level.FINE);
+        } else {
+            return Log.isLoggable(tag, Log.VERBOSE);
+        }
+    }
+
+    /**
+     * Checks if info logging is enabled.
+     *
+     * @return {@code true} if messages on info level are logged
+     * @since 2.15
+     */
+    public boolean isInfoEnabled() {
+        if (logger != null) {
+            return logger.isLoggable(Level.INFO);
+        } else {
+            return Log.isLoggable(tag, Log.INFO);
+        }
+    }
+
     /**
      * Logs an exception on debug level.
      *
@@ -75,6 +124,50 @@ public class Logger {
         }
     }
 
+    /**
+     * Logs on a verbose level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg
+     *            Argument for formatting the message
+     * @since 2.15
+     */
+    public void verbose(String msg, Object arg) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, msg, arg);
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.VERBOSE)) {
+                Log.v(tag, MessageFormat.format(msg, arg));
+            }
+        }
+    }
+
+    /**
+     * Logs on a verbose level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg1
+     *            First argument for formatting the message
+     * @param arg2
+     *            Second argument for formatting the message
+     * @since 2.15
+     */
+    public void verbose(String msg, Object arg1, Object arg2) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, msg, new Object[] {arg1, arg2});
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.VERBOSE)) {
+                Log.v(tag, MessageFormat.format(msg, arg1, arg2));
+            }
+        }
+    }
+
     /**
      * Logs on a verbose level.
      *
@@ -95,6 +188,50 @@ public class Logger {
         }
     }
 
+    /**
+     * Logs on an info level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg
+     *            Argument for formatting the message
+     * @since 2.15
+     */
+    public void info(String msg, Object arg) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, msg, arg);
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.INFO)) {
+                Log.i(tag, MessageFormat.format(msg, arg));
+            }
+        }
+    }
+
+    /**
+     * Logs on an info level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg1
+     *            First argument for formatting the message
+     * @param arg2
+     *            Second argument for formatting the message
+     * @since 2.15
+     */
+    public void info(String msg, Object arg1, Object arg2) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, msg, new Object[] {arg1, arg2});
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.INFO)) {
+                Log.i(tag, MessageFormat.format(msg, arg1, arg2));
+            }
+        }
+    }
+
     /**
      * Logs on an info level.
      *
@@ -115,6 +252,50 @@ public class Logger {
         }
     }
 
+    /**
+     * Logs on an error level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg
+     *            Argument for formatting the message
+     * @since 2.15
+     */
+    public void error(String msg, Object arg) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, msg, arg);
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.WARN)) {
+                Log.w(tag, MessageFormat.format(msg, arg));
+            }
+        }
+    }
+
+    /**
+     * Logs on an error level.
+     *
+     * @param msg
+     *            Message to be logged
+     * @param arg1
+     *            First argument for formatting the message
+     * @param arg2
+     *            Second argument for formatting the message
+     * @since 2.15
+     */
+    public void error(String msg, Object arg1, Object arg2) {
+        if (logger != null) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, msg, new Object[] {arg1, arg2});
+            }
+        } else {
+            if (Log.isLoggable(tag, Log.WARN)) {
+                Log.w(tag, MessageFormat.format(msg, arg1, arg2));
+            }
+        }
+    }
+
     /**
      * Logs on an error level.
      *
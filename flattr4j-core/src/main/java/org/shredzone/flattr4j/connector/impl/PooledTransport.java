@@ -0,0 +1,675 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.shredzone.flattr4j.connector.Transport;
+import org.shredzone.flattr4j.connector.TransportResponse;
+
+/**
+ * A {@link Transport} that keeps persistent HTTP/1.1 connections in a pool, so
+ * subsequent calls to the same host can reuse an open connection instead of paying for
+ * a new TCP and TLS handshake each time.
+ * <p>
+ * The number of connections per host is bounded. If all connections to a host are in
+ * use, further requests wait until a connection is released or the connect timeout has
+ * elapsed. Idle connections are evicted after the idle timeout, and no connection is
+ * used longer than the maximum lifetime.
+ * <p>
+ * This transport connects directly to the server. Proxy settings are not supported.
+ * <p>
+ * This class is threadsafe. Invoke {@link #shutdown()} to close all idle connections
+ * when the transport is not used any more.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class PooledTransport implements Transport {
+    private static final Logger LOG = new Logger("flattr4j", PooledTransport.class.getName());
+    private static final String ASCII = "iso-8859-1";
+
+    private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<String, HostPool>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private volatile boolean shutdown = false;
+    private volatile int maxConnectionsPerHost = 5;
+    private volatile long idleTimeout = 30000L;
+    private volatile long maxLifetime = 300000L;
+    private volatile int connectTimeout = 10000;
+    private volatile int readTimeout = 10000;
+    private volatile SSLSocketFactory sslSocketFactory;
+    private volatile HostnameVerifier hostnameVerifier;
+
+    /**
+     * Maximum number of connections per host. Defaults to 5. Changes only affect hosts
+     * that have not been connected yet.
+     */
+    public int getMaxConnectionsPerHost()       { return maxConnectionsPerHost; }
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("at least one connection is required");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Time in milliseconds after which an idle connection is evicted. Defaults to 30
+     * seconds.
+     */
+    public long getIdleTimeout()                { return idleTimeout; }
+    public void setIdleTimeout(long idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    /**
+     * Maximum time in milliseconds a connection is used, starting from its creation.
+     * Defaults to 5 minutes.
+     */
+    public long getMaxLifetime()                { return maxLifetime; }
+    public void setMaxLifetime(long maxLifetime) { this.maxLifetime = maxLifetime; }
+
+    /**
+     * Timeout in milliseconds for establishing a connection, and for waiting for a free
+     * connection if the pool of the host is exhausted. Defaults to 10 seconds.
+     */
+    public int getConnectTimeout()              { return connectTimeout; }
+    public void setConnectTimeout(int connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    /**
+     * Timeout in milliseconds for reading from a connection. Defaults to 10 seconds.
+     */
+    public int getReadTimeout()                 { return readTimeout; }
+    public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
+
+    /**
+     * {@link SSLSocketFactory} for https connections. {@code null} uses the default
+     * factory of {@link HttpsURLConnection}.
+     */
+    public SSLSocketFactory getSslSocketFactory() { return sslSocketFactory; }
+    public void setSslSocketFactory(SSLSocketFactory sslSocketFactory) { this.sslSocketFactory = sslSocketFactory; }
+
+    /**
+     * {@link HostnameVerifier} for https connections. {@code null} uses the default
+     * verifier of {@link HttpsURLConnection}.
+     */
+    public HostnameVerifier getHostnameVerifier() { return hostnameVerifier; }
+    public void setHostnameVerifier(HostnameVerifier hostnameVerifier) { this.hostnameVerifier = hostnameVerifier; }
+
+    /**
+     * Number of connections that have been opened.
+     */
+    public long getConnectionsCreated() {
+        return created.get();
+    }
+
+    /**
+     * Number of requests that reused a pooled connection.
+     */
+    public long getConnectionsReused() {
+        return reused.get();
+    }
+
+    /**
+     * Number of pooled connections that were closed because they were idle for too long,
+     * exceeded their lifetime, or were found closed by the server.
+     */
+    public long getConnectionsEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * Number of connections that are currently idle in the pool.
+     */
+    public int getIdleConnections() {
+        int count = 0;
+        for (HostPool pool : pools.values()) {
+            count += pool.idleCount();
+        }
+        return count;
+    }
+
+    /**
+     * Closes all idle connections that exceeded the idle timeout or their maximum
+     * lifetime. This is also done automatically whenever a connection is taken from the
+     * pool, so invoking this method is only necessary for releasing resources of hosts
+     * that are not connected any more.
+     */
+    public void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (HostPool pool : pools.values()) {
+            pool.evict(now);
+        }
+    }
+
+    /**
+     * Closes all idle connections. Connections that are currently in use are closed
+     * when they are released. The transport cannot be used afterwards.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (HostPool pool : pools.values()) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public TransportResponse send(String method, URL url, Map<String, String> headers, byte[] body)
+                throws IOException {
+        if (shutdown) {
+            throw new IllegalStateException("transport has been shut down");
+        }
+
+        long start = System.nanoTime();
+        HostPool pool = getPool(url);
+        pool.acquire();
+
+        try {
+            PooledSocket socket = pool.poll(System.currentTimeMillis());
+            if (socket != null) {
+                reused.incrementAndGet();
+                try {
+                    return exchange(pool, socket, System.nanoTime() - start, method, url, headers, body);
+                } catch (StaleConnectionException ex) {
+                    // Server has closed the idle connection in the meantime, and it is
+                    // safe to send the request again
+                    LOG.verbose("Pooled connection to {0} was closed by server", pool.key);
+                    evicted.incrementAndGet();
+                }
+            }
+
+            socket = connect(url);
+            created.incrementAndGet();
+            return exchange(pool, socket, System.nanoTime() - start, method, url, headers, body);
+        } catch (IOException ex) {
+            pool.release();
+            throw ex;
+        } catch (RuntimeException ex) {
+            pool.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the {@link HostPool} of the host of the given {@link URL}.
+     */
+    private HostPool getPool(URL url) {
+        String key = url.getProtocol() + "://" + url.getHost() + ':' + port(url);
+        HostPool pool = pools.get(key);
+        if (pool == null) {
+            pool = new HostPool(key, maxConnectionsPerHost);
+            HostPool existing = pools.putIfAbsent(key, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Opens a new connection to the host of the given {@link URL}.
+     */
+    private PooledSocket connect(URL url) throws IOException {
+        String host = url.getHost();
+        int port = port(url);
+
+        LOG.verbose("Opening connection to {0}:{1}", host, port);
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            socket.setSoTimeout(readTimeout);
+            socket.setTcpNoDelay(true);
+
+            if ("https".equals(url.getProtocol())) {
+                SSLSocketFactory factory = sslSocketFactory;
+                if (factory == null) {
+                    factory = HttpsURLConnection.getDefaultSSLSocketFactory();
+                }
+
+                SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, host, port, true);
+                socket = sslSocket;
+                sslSocket.startHandshake();
+
+                HostnameVerifier verifier = hostnameVerifier;
+                if (verifier == null) {
+                    verifier = HttpsURLConnection.getDefaultHostnameVerifier();
+                }
+                if (!verifier.verify(host, sslSocket.getSession())) {
+                    throw new SSLPeerUnverifiedException("Hostname " + host + " not verified");
+                }
+            }
+
+            return new PooledSocket(socket);
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Sends a request over the given connection and reads the response head.
+     *
+     * @throws StaleConnectionException
+     *             if the connection was reused, but it turned out that the server has
+     *             closed it before, and the request can safely be sent again. This is
+     *             the case if the request could not be written completely, so the
+     *             server cannot have processed it, or if the request is idempotent.
+     */
+    private TransportResponse exchange(HostPool pool, PooledSocket socket, long connectTime,
+                String method, URL url, Map<String, String> headers, byte[] body)
+                throws IOException {
+        boolean success = false;
+        try {
+            StringBuilder sb = new StringBuilder();
+            String file = url.getFile();
+            sb.append(method).append(' ').append(file.length() > 0 ? file : "/").append(" HTTP/1.1\r\n");
+            sb.append("Host: ").append(url.getHost());
+            if (url.getPort() >= 0 && url.getPort() != url.getDefaultPort()) {
+                sb.append(':').append(url.getPort());
+            }
+            sb.append("\r\n");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                sb.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            if (body != null) {
+                sb.append("Content-Length: ").append(body.length).append("\r\n");
+            } else if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                sb.append("Content-Length: 0\r\n");
+            }
+            sb.append("\r\n");
+
+            try {
+                socket.out.write(sb.toString().getBytes(ASCII));
+                if (body != null) {
+                    socket.out.write(body);
+                }
+                socket.out.flush();
+            } catch (IOException ex) {
+                // The request did not arrive completely, so it was not processed
+                throw (socket.used ? new StaleConnectionException(ex) : ex);
+            }
+
+            Response response = readResponse(pool, socket, method);
+            response.connectTime = connectTime;
+            success = true;
+            return response;
+        } finally {
+            if (!success) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the response head and prepares the response body.
+     */
+    private Response readResponse(HostPool pool, PooledSocket socket, String method) throws IOException {
+        String statusLine;
+        try {
+            statusLine = readLine(socket.in);
+        } catch (EOFException ex) {
+            // The request was sent, so the server might have processed it already
+            throw (socket.used && isIdempotent(method) ? new StaleConnectionException(ex) : ex);
+        } catch (SocketException ex) {
+            throw (socket.used && isIdempotent(method) ? new StaleConnectionException(ex) : ex);
+        }
+
+        Response response = new Response(pool, socket);
+        boolean http11 = statusLine.startsWith("HTTP/1.1 ");
+
+        for (;;) {
+            // Skip all interim 1xx responses
+            response.parseStatusLine(statusLine);
+            readHeaders(socket.in, response.headers);
+            if (response.statusCode >= 200) {
+                break;
+            }
+            response.headers.clear();
+            statusLine = readLine(socket.in);
+        }
+
+        String connection = response.headers.get("Connection");
+        response.keepAlive = (http11
+                        ? !"close".equalsIgnoreCase(connection)
+                        : "keep-alive".equalsIgnoreCase(connection));
+
+        String transferEncoding = response.headers.get("Transfer-Encoding");
+        String contentLength = response.headers.get("Content-Length");
+
+        if ("HEAD".equals(method)
+                        || response.statusCode == 204
+                        || response.statusCode == 304) {
+            response.body = new FixedLengthInputStream(socket.in, 0L);
+        } else if (transferEncoding != null && !"identity".equalsIgnoreCase(transferEncoding)) {
+            response.body = new ChunkedInputStream(socket.in);
+        } else if (contentLength != null) {
+            try {
+                response.body = new FixedLengthInputStream(socket.in, Long.parseLong(contentLength.trim()));
+            } catch (NumberFormatException ex) {
+                throw new IOException("bad content length: " + contentLength);
+            }
+        } else {
+            // Body is terminated by closing the connection
+            response.body = socket.in;
+            response.keepAlive = false;
+        }
+
+        return response;
+    }
+
+    /**
+     * Reads all response headers up to the empty line.
+     */
+    private static void readHeaders(InputStream in, Map<String, String> headers) throws IOException {
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * Reads a line of the response head.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int ch;
+        while ((ch = in.read()) != '\n') {
+            if (ch < 0) {
+                throw new EOFException("connection closed by server");
+            }
+            if (ch != '\r') {
+                sb.append((char) ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the port of the {@link URL}, using the default port if none was set.
+     */
+    private static int port(URL url) {
+        return (url.getPort() >= 0 ? url.getPort() : url.getDefaultPort());
+    }
+
+    /**
+     * The pool of a single host.
+     */
+    private class HostPool {
+        private final String key;
+        private final Semaphore permits;
+        private final int maxIdle;
+        private final LinkedList<PooledSocket> idle = new LinkedList<PooledSocket>();
+
+        public HostPool(String key, int maxConnections) {
+            this.key = key;
+            this.permits = new Semaphore(maxConnections, true);
+            this.maxIdle = maxConnections;
+        }
+
+        /**
+         * Waits until a connection may be used.
+         */
+        public void acquire() throws IOException {
+            try {
+                if (!permits.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("timeout while waiting for a connection to " + key);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for a connection to " + key);
+            }
+        }
+
+        /**
+         * Releases a connection permit.
+         */
+        public void release() {
+            permits.release();
+        }
+
+        /**
+         * Takes the most recently used idle connection from the pool, evicting expired
+         * connections.
+         *
+         * @return {@link PooledSocket}, or {@code null} if there is no idle connection
+         */
+        public synchronized PooledSocket poll(long now) {
+            evict(now);
+            return idle.pollLast();
+        }
+
+        /**
+         * Puts a connection back into the pool.
+         */
+        public synchronized void offer(PooledSocket socket) {
+            if (shutdown) {
+                socket.close();
+                return;
+            }
+            socket.used = true;
+            socket.lastUsed = System.currentTimeMillis();
+            idle.addLast(socket);
+            while (idle.size() > maxIdle) {
+                idle.removeFirst().close();
+                evicted.incrementAndGet();
+            }
+        }
+
+        /**
+         * Closes all idle connections that have expired.
+         */
+        public synchronized void evict(long now) {
+            Iterator<PooledSocket> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledSocket socket = it.next();
+                if (now - socket.lastUsed > idleTimeout || now - socket.created > maxLifetime) {
+                    it.remove();
+                    socket.close();
+                    evicted.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Returns the number of idle connections.
+         */
+        public synchronized int idleCount() {
+            return idle.size();
+        }
+
+        /**
+         * Closes all idle connections.
+         */
+        public synchronized void shutdown() {
+            for (PooledSocket socket : idle) {
+                socket.close();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * A connection that can be pooled.
+     */
+    private static class PooledSocket {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final long created;
+        private long lastUsed;
+        private boolean used;
+
+        public PooledSocket(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.created = System.currentTimeMillis();
+            this.lastUsed = created;
+        }
+
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                LOG.debug("Failed to close connection", ex);
+            }
+        }
+    }
+
+    /**
+     * A response that returns its connection to the pool when closed.
+     */
+    private class Response implements TransportResponse {
+        private final HostPool pool;
+        private final PooledSocket socket;
+        private final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        private int statusCode;
+        private String statusMessage;
+        private InputStream body;
+        private long connectTime = -1L;
+        private boolean keepAlive;
+        private boolean closed;
+
+        public Response(HostPool pool, PooledSocket socket) {
+            this.pool = pool;
+            this.socket = socket;
+        }
+
+        private void parseStatusLine(String line) throws IOException {
+            String[] parts = line.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                throw new IOException("bad status line: " + line);
+            }
+            try {
+                statusCode = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException ex) {
+                throw new IOException("bad status line: " + line);
+            }
+            statusMessage = (parts.length > 2 ? parts[2] : null);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusMessage() {
+            return statusMessage;
+        }
+
+        @Override
+        public long getConnectTime() {
+            return connectTime;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if (keepAlive && drain()) {
+                    pool.offer(socket);
+                } else {
+                    socket.close();
+                }
+            } finally {
+                pool.release();
+            }
+        }
+
+        /**
+         * Reads the unread rest of the body, so the connection can be reused.
+         *
+         * @return {@code true} if the body was completely read
+         */
+        private boolean drain() {
+            try {
+                byte[] buffer = new byte[1024];
+                while (body.read(buffer) >= 0);
+                return true;
+            } catch (IOException ex) {
+                LOG.debug("Could not read rest of response body", ex);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Checks if a request with the given method can be sent again without side effects.
+     */
+    private static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * Signals that a reused connection was closed by the server, and the request can
+     * safely be sent again.
+     */
+    private static class StaleConnectionException extends IOException {
+        private static final long serialVersionUID = -1757493215405591416L;
+
+        public StaleConnectionException(IOException cause) {
+            super(cause.getMessage());
+            initCause(cause);
+        }
+    }
+
+}
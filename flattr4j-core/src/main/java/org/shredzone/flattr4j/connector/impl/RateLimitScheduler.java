@@ -0,0 +1,173 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.Date;
+
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+
+/**
+ * Paces the requests to the Flattr server, so the rate limit is not exceeded.
+ * <p>
+ * The scheduler keeps track of the remaining calls that were reported by the server.
+ * Every request consumes one call. When the budget is exhausted, requests are held back
+ * until the rate limit is reset by the server.
+ * <p>
+ * A number of calls is kept in reserve for interactive requests (like flattring a
+ * thing). Background requests (like fetching lists of things) are held back as soon as
+ * the budget falls to the reserve. Interactive requests are preferred when the budget
+ * is refilled.
+ * <p>
+ * As the rate limit is accounted per user, a scheduler must only be shared by
+ * {@link FlattrConnector} acting on behalf of the same user. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class RateLimitScheduler {
+    private static final Logger LOG = new Logger("flattr4j", RateLimitScheduler.class.getName());
+
+    private volatile int reserve = 10;
+    private volatile long maxWait = -1L;
+
+    private Long limit;
+    private Long remaining;
+    private long resetTime = 0L;
+    private int interactiveWaiting = 0;
+
+    /**
+     * Number of calls that are kept in reserve for interactive requests. Defaults to 10.
+     */
+    public int getReserve()                     { return reserve; }
+    public void setReserve(int reserve)         { this.reserve = reserve; }
+
+    /**
+     * Maximum time to wait for the rate limit to be reset, in milliseconds. If the
+     * reset is further ahead, a {@link RateLimitExceededException} is thrown instead.
+     * Defaults to -1, which means that there is no limit.
+     */
+    public long getMaxWait()                    { return maxWait; }
+    public void setMaxWait(long maxWait)        { this.maxWait = maxWait; }
+
+    /**
+     * Returns the estimated number of remaining calls, or {@code null} if unknown.
+     */
+    public synchronized Long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Acquires a call from the budget. If the budget is exhausted, the method blocks
+     * until the rate limit is reset.
+     *
+     * @param interactive
+     *            {@code true} for interactive requests, which may use the reserve
+     * @throws RateLimitExceededException
+     *             if the rate limit won't be reset within the maximum waiting time
+     * @throws FlattrException
+     *             if the thread was interrupted while waiting
+     */
+    public synchronized void acquire(boolean interactive) throws FlattrException {
+        long deadline = (maxWait >= 0 ? System.currentTimeMillis() + maxWait : Long.MAX_VALUE);
+        boolean waiting = false;
+
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+
+                if (resetTime > 0 && now >= resetTime) {
+                    // The server has refilled the budget
+                    remaining = limit;
+                    resetTime = 0L;
+                }
+
+                if (isAvailable(interactive)) {
+                    if (remaining != null) {
+                        remaining--;
+                    }
+                    return;
+                }
+
+                if (resetTime > deadline) {
+                    throw new RateLimitExceededException("rate_limit_exceeded",
+                                    "rate limit will not be reset before " + new Date(resetTime));
+                }
+
+                if (!waiting) {
+                    LOG.info("Rate limit budget is exhausted, waiting until {0}", new Date(resetTime));
+                    waiting = true;
+                    if (interactive) {
+                        interactiveWaiting++;
+                    }
+                }
+
+                wait(Math.max(resetTime - now, 1L));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FlattrException("Interrupted while waiting for rate limit", ex);
+        } finally {
+            if (waiting && interactive) {
+                interactiveWaiting--;
+            }
+        }
+    }
+
+    /**
+     * Updates the budget from the rate limit that was returned by the server.
+     *
+     * @param rateLimit
+     *            {@link RateLimit} returned by the server
+     */
+    public synchronized void update(RateLimit rateLimit) {
+        if (rateLimit.getLimit() != null) {
+            limit = rateLimit.getLimit();
+        }
+        if (rateLimit.getRemaining() != null) {
+            remaining = rateLimit.getRemaining();
+        }
+        if (rateLimit.getReset() != null) {
+            resetTime = rateLimit.getReset().getTime();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Checks if there is a call available in the budget.
+     *
+     * @param interactive
+     *            {@code true} for interactive requests
+     * @return {@code true} if the request can be sent
+     */
+    private boolean isAvailable(boolean interactive) {
+        if (remaining == null || resetTime == 0L) {
+            // Budget is unknown, so we cannot pace the request
+            return true;
+        }
+
+        if (interactive) {
+            return remaining > 0;
+        }
+
+        return interactiveWaiting == 0 && remaining > reserve;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.shredzone.flattr4j.exception.FlattrException;
+
+/**
+ * Lets identical concurrent requests share a single call to the Flattr server.
+ * <p>
+ * The first thread that executes a request becomes the leader and sends it to the
+ * server. All other threads that execute an identical request while the leader is still
+ * waiting for the response will wait as well, and then get the same result (or the same
+ * exception). As soon as the response has arrived, the next identical request will be
+ * sent to the server again, so the result is never older than the request.
+ * <p>
+ * {@link FlattrConnection} only coalesces GET requests, using the request type, the
+ * URL, and a hash of the access token as key. Keys are never exposed in exception
+ * messages. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class RequestCoalescer {
+
+    private final Map<String, FutureTask<List<String>>> flights = new HashMap<String, FutureTask<List<String>>>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Executes a request, unless an identical request is already in progress.
+     *
+     * @param key
+     *            Key that identifies the request
+     * @param call
+     *            {@link Callable} that sends the request and returns the JSON data of
+     *            each result row
+     * @return JSON data of each result row
+     * @throws FlattrException
+     *             if the request failed
+     */
+    public List<String> execute(String key, Callable<List<String>> call) throws FlattrException {
+        FutureTask<List<String>> flight;
+        boolean leader = false;
+
+        synchronized (flights) {
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new FutureTask<List<String>>(call);
+                flights.put(key, flight);
+                leader = true;
+            } else {
+                coalesced.incrementAndGet();
+            }
+        }
+
+        if (leader) {
+            try {
+                flight.run();
+            } finally {
+                synchronized (flights) {
+                    flights.remove(key);
+                }
+            }
+        }
+
+        try {
+            return Collections.unmodifiableList(flight.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FlattrException("Interrupted while waiting for request", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof FlattrException) {
+                throw (FlattrException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FlattrException("Request failed", cause);
+        }
+    }
+
+    /**
+     * Returns the number of requests that were not sent, but used the result of an
+     * identical request in progress.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of requests that are currently in progress.
+     */
+    public int getInFlight() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Random;
+
+import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+
+/**
+ * Decides if and when a failed request is retried.
+ * <p>
+ * Requests are retried with an exponential backoff. A random jitter is added to the
+ * delay, so clients that failed at the same time won't retry at the same time. If the
+ * server requests a retry time (by "Retry-After" or "X-RateLimit-Reset" headers), the
+ * request is not retried before that time.
+ * <p>
+ * Non-idempotent requests are only retried if it is certain that the server did not
+ * process the request, i.e. if the connection could not be established, or the rate
+ * limit was exceeded. Idempotent requests are also retried on connection failures and
+ * temporary server errors. Only GET and DELETE requests are regarded as idempotent. PUT
+ * requests are not, as some of them toggle a state (like subscriptions). They can be
+ * marked as idempotent per call, see {@link FlattrConnection#idempotent()}.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class RetryPolicy {
+    private final Random random = new Random();
+
+    private volatile int maxAttempts = 3;
+    private volatile long initialDelay = 1000L;
+    private volatile long maxDelay = 60000L;
+
+    /**
+     * Maximum number of attempts, including the first one. Defaults to 3.
+     */
+    public int getMaxAttempts()                 { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    /**
+     * Delay before the first retry, in milliseconds. The delay is doubled on every
+     * further retry. Defaults to 1 second.
+     */
+    public long getInitialDelay()               { return initialDelay; }
+    public void setInitialDelay(long initialDelay) { this.initialDelay = initialDelay; }
+
+    /**
+     * Maximum delay before a retry, in milliseconds. If the server requests a longer
+     * delay, the request is not retried. Defaults to 60 seconds.
+     */
+    public long getMaxDelay()                   { return maxDelay; }
+    public void setMaxDelay(long maxDelay)      { this.maxDelay = maxDelay; }
+
+    /**
+     * Decides if a request that could not be sent is retried.
+     *
+     * @param attempt
+     *            Number of the failed attempt, starting from 1
+     * @param idempotent
+     *            {@code true} if the request is idempotent
+     * @param ex
+     *            {@link IOException} that was thrown
+     * @return Delay before the next attempt, in milliseconds, or -1 if the request is
+     *         not to be retried
+     */
+    public long getRetryDelay(int attempt, boolean idempotent, IOException ex) {
+        if (attempt >= maxAttempts) {
+            return -1L;
+        }
+
+        boolean notSent = (ex instanceof ConnectException || ex instanceof UnknownHostException);
+        if (!notSent && !idempotent) {
+            return -1L;
+        }
+
+        return backoff(attempt);
+    }
+
+    /**
+     * Decides if a request that was answered with an error is retried.
+     *
+     * @param attempt
+     *            Number of the failed attempt, starting from 1
+     * @param idempotent
+     *            {@code true} if the request is idempotent
+     * @param statusCode
+     *            HTTP status code of the response
+     * @param ex
+     *            {@link FlattrException} that was generated from the response
+     * @param retryAt
+     *            Retry time requested by the server, or {@code null}
+     * @return Delay before the next attempt, in milliseconds, or -1 if the request is
+     *         not to be retried
+     */
+    public long getRetryDelay(int attempt, boolean idempotent, int statusCode,
+                FlattrException ex, Date retryAt) {
+        if (attempt >= maxAttempts) {
+            return -1L;
+        }
+
+        boolean rateLimited = (statusCode == 429 || ex instanceof RateLimitExceededException);
+        if (!rateLimited && !(idempotent && isTemporary(statusCode))) {
+            return -1L;
+        }
+
+        long delay = backoff(attempt);
+
+        if (retryAt != null) {
+            long wait = retryAt.getTime() - System.currentTimeMillis();
+            if (wait > maxDelay) {
+                return -1L;
+            }
+            delay = Math.max(delay, wait);
+        }
+
+        return delay;
+    }
+
+    /**
+     * Checks if the request type is idempotent by default, so it can be safely repeated.
+     * Only GET and DELETE requests are idempotent by default.
+     *
+     * @param type
+     *            {@link RequestType} to check
+     * @return {@code true} if idempotent
+     */
+    public boolean isIdempotent(RequestType type) {
+        return type == RequestType.GET || type == RequestType.DELETE;
+    }
+
+    /**
+     * Checks if the HTTP status code indicates a temporary server error.
+     *
+     * @param statusCode
+     *            HTTP status code
+     * @return {@code true} if the error is temporary
+     */
+    protected boolean isTemporary(int statusCode) {
+        return statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR
+            || statusCode == HttpURLConnection.HTTP_BAD_GATEWAY
+            || statusCode == HttpURLConnection.HTTP_UNAVAILABLE
+            || statusCode == HttpURLConnection.HTTP_GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * Computes the exponential backoff with jitter. The result is between one half and
+     * the full backoff delay.
+     *
+     * @param attempt
+     *            Number of the failed attempt, starting from 1
+     * @return Delay, in milliseconds
+     */
+    private long backoff(int attempt) {
+        long delay = initialDelay;
+        for (int ix = 1; ix < attempt && delay < maxDelay; ix++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelay);
+
+        long half = delay / 2;
+        return half + (half > 0 ? (long) (random.nextDouble() * half) : 0L);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.shredzone.flattr4j.connector.MetricsListener;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.connector.RequestMetrics;
+
+/**
+ * A {@link MetricsListener} that aggregates the metrics per endpoint and request type.
+ * The statistics can be polled, e.g. for exporting them to a metrics library or for
+ * exposing them via JMX.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class StatisticsMetricsListener implements MetricsListener {
+
+    private final ConcurrentMap<String, EndpointStatistics> statistics = new ConcurrentHashMap<String, EndpointStatistics>();
+    private volatile RateLimit rateLimit;
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        String key = metrics.getType() + " " + metrics.getEndpoint();
+        EndpointStatistics stats = statistics.get(key);
+        if (stats == null) {
+            EndpointStatistics newStats = new EndpointStatistics(key);
+            stats = statistics.putIfAbsent(key, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        stats.record(metrics);
+
+        if (metrics.getRateLimit() != null && metrics.getRateLimit().getRemaining() != null) {
+            rateLimit = metrics.getRateLimit();
+        }
+    }
+
+    /**
+     * Returns the statistics of an endpoint.
+     *
+     * @param key
+     *            Request type and endpoint, separated by a space (e.g. "GET things/:id")
+     * @return {@link EndpointStatistics}, or {@code null} if there were no requests to
+     *         that endpoint yet
+     */
+    public EndpointStatistics getStatistics(String key) {
+        return statistics.get(key);
+    }
+
+    /**
+     * Returns the statistics of all endpoints.
+     */
+    public Collection<EndpointStatistics> getStatistics() {
+        return new ArrayList<EndpointStatistics>(statistics.values());
+    }
+
+    /**
+     * Returns the most recent {@link RateLimit} that was reported by the server, or
+     * {@code null} if none was reported yet.
+     */
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Removes all statistics.
+     */
+    public void reset() {
+        statistics.clear();
+        rateLimit = null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, EndpointStatistics> entry : statistics.entrySet()) {
+            sb.append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+}
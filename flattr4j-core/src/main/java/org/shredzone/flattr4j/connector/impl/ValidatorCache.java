@@ -0,0 +1,170 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the validators ("ETag" and "Last-Modified" headers) of GET responses, along
+ * with the JSON data that was returned. It is used by {@link FlattrConnection} for
+ * sending conditional requests. If the server responds with "304 Not Modified", the
+ * stored JSON data is used instead, and the response body is neither transferred nor
+ * tokenized.
+ * <p>
+ * The JSON data is stored as string, so the {@link org.shredzone.flattr4j.connector.FlattrObject}
+ * returned to the caller can be modified without affecting the cache.
+ * <p>
+ * The cache is bounded. If it is full, the least recently used entry is evicted. This
+ * class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class ValidatorCache {
+
+    private final Map<String, Entry> cache;
+
+    /**
+     * Creates a new {@link ValidatorCache} with a maximum of 500 entries.
+     */
+    public ValidatorCache() {
+        this(500);
+    }
+
+    /**
+     * Creates a new {@link ValidatorCache}.
+     *
+     * @param maxSize
+     *            Maximum number of entries
+     */
+    public ValidatorCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+
+        cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 5390374850713376152L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached entry of a resource.
+     *
+     * @param key
+     *            Resource key
+     * @return {@link Entry}, or {@code null} if the resource is not cached
+     */
+    public Entry get(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * Stores the validators and the JSON data of a resource. If neither validator is
+     * set, a cached entry is removed instead.
+     *
+     * @param key
+     *            Resource key
+     * @param etag
+     *            "ETag" header, or {@code null}
+     * @param lastModified
+     *            "Last-Modified" header, or {@code null}
+     * @param rows
+     *            JSON data of each result row
+     */
+    public void put(String key, String etag, String lastModified, List<String> rows) {
+        synchronized (cache) {
+            if (etag == null && lastModified == null) {
+                cache.remove(key);
+            } else {
+                cache.put(key, new Entry(etag, lastModified, rows));
+            }
+        }
+    }
+
+    /**
+     * Removes a resource from the cache.
+     *
+     * @param key
+     *            Resource key
+     */
+    public void remove(String key) {
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     */
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * A cached resource.
+     */
+    public static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final List<String> rows;
+
+        private Entry(String etag, String lastModified, List<String> rows) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.rows = Collections.unmodifiableList(rows);
+        }
+
+        /**
+         * "ETag" header of the cached response, or {@code null}.
+         */
+        public String getETag()                 { return etag; }
+
+        /**
+         * "Last-Modified" header of the cached response, or {@code null}.
+         */
+        public String getLastModified()         { return lastModified; }
+
+        /**
+         * JSON data of each result row.
+         */
+        public List<String> getRows()           { return rows; }
+    }
+
+}
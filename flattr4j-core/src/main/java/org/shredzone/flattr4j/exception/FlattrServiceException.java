@@ -33,6 +33,14 @@ public class FlattrServiceException extends FlattrException {
         this.code = code;
     }
 
+    /**
+     * @since 2.15
+     */
+    public FlattrServiceException(String code, String msg, Throwable cause) {
+        super(msg, cause);
+        this.code = code;
+    }
+
     /**
      * Returns a system error code passed from Flattr, to further identify this error.
      */
@@ -34,4 +34,11 @@ public class RateLimitExceededException extends FlattrServiceException {
         super(code, msg);
     }
 
+    /**
+     * @since 2.15
+     */
+    public RateLimitExceededException(String code, String msg, Throwable cause) {
+        super(code, msg, cause);
+    }
+
 }
@@ -0,0 +1,248 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+
+/**
+ * A {@link FlattrService} decorator that collects concurrent {@link #getThing(ThingId)}
+ * calls, and fetches the things with a single {@link #getThings(java.util.Collection)}
+ * call.
+ * <p>
+ * The first call opens a batch and waits for the batch window to elapse, or until the
+ * maximum batch size is reached. All calls that arrive in the meantime are added to the
+ * batch. The things are then fetched at once, and each call gets its own result. If a
+ * thing was not found, a {@link NotFoundException} is thrown for that call only. If the
+ * batch request fails, all calls of the batch fail with the same exception.
+ * <p>
+ * Batching adds a latency of up to one window to each call, in exchange for fewer
+ * requests and a lower rate limit consumption. It only pays off if many threads fetch
+ * things at the same time. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class BatchingFlattrService extends DelegatingFlattrService {
+
+    private final Object lock = new Object();
+    private Batch current;
+
+    private volatile long window = 10L;
+    private volatile int maxBatchSize = 50;
+
+    /**
+     * Creates a new {@link BatchingFlattrService}.
+     *
+     * @param delegate
+     *            {@link FlattrService} to delegate to
+     */
+    public BatchingFlattrService(FlattrService delegate) {
+        super(delegate);
+    }
+
+    /**
+     * Time to wait for further calls before a batch is sent, in milliseconds. Defaults
+     * to 10 ms. If 0, calls are not batched.
+     */
+    public long getWindow()                     { return window; }
+    public void setWindow(long window)          { this.window = window; }
+
+    /**
+     * Maximum number of things per batch. If the batch is full, it is sent immediately.
+     * Defaults to 50.
+     */
+    public int getMaxBatchSize()                { return maxBatchSize; }
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public Thing getThing(ThingId thingId) throws FlattrException {
+        if (window <= 0L) {
+            return super.getThing(thingId);
+        }
+
+        String id = thingId.getThingId();
+        Batch batch;
+        boolean leader = false;
+
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch();
+                leader = true;
+            }
+            batch = current;
+            batch.add(id);
+            if (batch.size() >= maxBatchSize) {
+                // Batch is full, send it right now
+                current = null;
+                lock.notifyAll();
+            }
+        }
+
+        if (leader) {
+            awaitWindow(batch);
+            batch.fetch();
+        }
+
+        return batch.getResult(id);
+    }
+
+    /**
+     * Waits until the batch window has elapsed, or the batch is full. Afterwards, no
+     * more calls are added to the batch.
+     *
+     * @param batch
+     *            {@link Batch} to wait for
+     */
+    private void awaitWindow(Batch batch) {
+        long deadline = System.currentTimeMillis() + window;
+        synchronized (lock) {
+            try {
+                long remaining;
+                while (current == batch && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    lock.wait(remaining);
+                }
+            } catch (InterruptedException ex) {
+                // Send the batch immediately
+                Thread.currentThread().interrupt();
+            }
+            if (current == batch) {
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * A batch of things to be fetched.
+     */
+    private class Batch {
+        private final Map<String, Integer> callers = new LinkedHashMap<String, Integer>();
+        private final Map<String, Thing> result = new HashMap<String, Thing>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private FlattrException failure;
+        private RuntimeException runtimeFailure;
+
+        /**
+         * Adds a call for a thing to the batch. Must be invoked while holding the lock.
+         *
+         * @param id
+         *            Thing ID
+         */
+        public void add(String id) {
+            Integer count = callers.get(id);
+            callers.put(id, count != null ? count + 1 : 1);
+        }
+
+        /**
+         * Returns the number of different things in the batch. Must be invoked while
+         * holding the lock.
+         */
+        public int size() {
+            return callers.size();
+        }
+
+        /**
+         * Fetches all things of the batch. Must only be invoked once, by the leader.
+         */
+        public void fetch() {
+            try {
+                List<String> idList;
+                synchronized (lock) {
+                    idList = new ArrayList<String>(callers.keySet());
+                }
+
+                if (idList.size() == 1) {
+                    String id = idList.get(0);
+                    result.put(id, getDelegate().getThing(Thing.withId(id)));
+                } else {
+                    List<ThingId> thingIds = new ArrayList<ThingId>(idList.size());
+                    for (String id : idList) {
+                        thingIds.add(Thing.withId(id));
+                    }
+                    for (Thing thing : getDelegate().getThings(thingIds)) {
+                        result.put(thing.getThingId(), thing);
+                    }
+                }
+            } catch (FlattrException ex) {
+                failure = ex;
+            } catch (RuntimeException ex) {
+                runtimeFailure = ex;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Waits for the batch to be fetched, and returns the result for a thing.
+         *
+         * @param id
+         *            Thing ID
+         * @return {@link Thing}
+         * @throws NotFoundException
+         *             if the thing was not found
+         */
+        public Thing getResult(String id) throws FlattrException {
+            try {
+                done.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new FlattrException("Interrupted while waiting for thing " + id, ex);
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+            if (runtimeFailure != null) {
+                throw runtimeFailure;
+            }
+
+            synchronized (result) {
+                Thing thing = result.get(id);
+                if (thing != null) {
+                    int count = callers.get(id) - 1;
+                    callers.put(id, count);
+                    if (count > 0) {
+                        // Other calls are waiting for the same thing, so return a copy
+                        return new Thing(new FlattrObject(thing.toJSON()));
+                    }
+                    return thing;
+                }
+            }
+
+            throw new NotFoundException("not_found", "Thing " + id + " was not found");
+        }
+    }
+
+}
@@ -0,0 +1,426 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+import org.shredzone.flattr4j.model.AutoSubmission;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Language;
+import org.shredzone.flattr4j.model.MiniThing;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.model.User;
+import org.shredzone.flattr4j.model.UserId;
+
+/**
+ * A {@link FlattrService} decorator that caches the results of
+ * {@link #getThing(ThingId)}, {@link #getUser(UserId)}, {@link #getCategories()} and
+ * {@link #getLanguages()}.
+ * <p>
+ * Each kind of result has its own time-to-live. A TTL of 0 disables caching of that
+ * kind. {@link NotFoundException} are cached as well, so repeated lookups of unknown
+ * things or users do not hit the server. The cache is limited in size, and the least
+ * recently used entries are evicted first.
+ * <p>
+ * Cached things are invalidated when they are updated, deleted, flattred or
+ * (un)subscribed via this service. Changes made by other services are not noticed
+ * before the TTL has expired.
+ * <p>
+ * Resources and lists are mutable, so copies of the cached results are returned on every
+ * invocation. This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class CachingFlattrService extends DelegatingFlattrService {
+
+    private final Map<String, Entry> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile long thingTtl = 60L * 1000L;
+    private volatile long userTtl = 5L * 60L * 1000L;
+    private volatile long categoryTtl = 24L * 60L * 60L * 1000L;
+    private volatile long notFoundTtl = 30L * 1000L;
+
+    /**
+     * Creates a new {@link CachingFlattrService} with a maximum of 1000 cached entries.
+     *
+     * @param delegate
+     *            {@link FlattrService} to delegate to
+     */
+    public CachingFlattrService(FlattrService delegate) {
+        this(delegate, 1000);
+    }
+
+    /**
+     * Creates a new {@link CachingFlattrService}.
+     *
+     * @param delegate
+     *            {@link FlattrService} to delegate to
+     * @param maxSize
+     *            Maximum number of cached entries
+     */
+    public CachingFlattrService(FlattrService delegate, final int maxSize) {
+        super(delegate);
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = -3468307418424935317L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Time-to-live of cached {@link Thing}, in milliseconds. Defaults to 1 minute.
+     */
+    public long getThingTtl()                   { return thingTtl; }
+    public void setThingTtl(long thingTtl)      { this.thingTtl = thingTtl; }
+
+    /**
+     * Time-to-live of cached {@link User}, in milliseconds. Defaults to 5 minutes.
+     */
+    public long getUserTtl()                    { return userTtl; }
+    public void setUserTtl(long userTtl)        { this.userTtl = userTtl; }
+
+    /**
+     * Time-to-live of cached {@link Category} and {@link Language} lists, in
+     * milliseconds. Defaults to 24 hours.
+     */
+    public long getCategoryTtl()                { return categoryTtl; }
+    public void setCategoryTtl(long categoryTtl) { this.categoryTtl = categoryTtl; }
+
+    /**
+     * Time-to-live of cached {@link NotFoundException}, in milliseconds. Defaults to 30
+     * seconds.
+     */
+    public long getNotFoundTtl()                { return notFoundTtl; }
+    public void setNotFoundTtl(long notFoundTtl) { this.notFoundTtl = notFoundTtl; }
+
+    /**
+     * Returns the number of calls that were answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of calls that were delegated because there was no cache entry.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the current number of cache entries, including expired ones.
+     */
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Removes a {@link Thing} from the cache.
+     *
+     * @param thingId
+     *            {@link ThingId} to remove
+     */
+    public void invalidateThing(ThingId thingId) {
+        remove(thingKey(thingId.getThingId()));
+    }
+
+    /**
+     * Removes a {@link User} from the cache.
+     *
+     * @param userId
+     *            {@link UserId} to remove
+     */
+    public void invalidateUser(UserId userId) {
+        remove(userKey(userId.getUserId()));
+    }
+
+    @Override
+    public Thing getThing(ThingId thingId) throws FlattrException {
+        String key = thingKey(thingId.getThingId());
+
+        Thing thing = (Thing) lookup(key);
+        if (thing == null) {
+            try {
+                thing = super.getThing(thingId);
+            } catch (NotFoundException ex) {
+                putNotFound(key, ex);
+                throw ex;
+            }
+            put(key, thing, thingTtl);
+        }
+
+        // Things are mutable, so always return a copy
+        return new Thing(new FlattrObject(thing.toJSON()));
+    }
+
+    @Override
+    public User getUser(UserId user) throws FlattrException {
+        String key = userKey(user.getUserId());
+
+        User result = (User) lookup(key);
+        if (result == null) {
+            try {
+                result = super.getUser(user);
+            } catch (NotFoundException ex) {
+                putNotFound(key, ex);
+                throw ex;
+            }
+            put(key, result, userTtl);
+        }
+
+        return new User(new FlattrObject(result.toJSON()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Category> getCategories() throws FlattrException {
+        List<Category> result = (List<Category>) lookup("categories");
+        if (result == null) {
+            result = super.getCategories();
+            put("categories", result, categoryTtl);
+        }
+
+        List<Category> copy = new ArrayList<Category>(result.size());
+        for (Category category : result) {
+            copy.add(new Category(new FlattrObject(category.toJSON())));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Language> getLanguages() throws FlattrException {
+        List<Language> result = (List<Language>) lookup("languages");
+        if (result == null) {
+            result = super.getLanguages();
+            put("languages", result, categoryTtl);
+        }
+
+        List<Language> copy = new ArrayList<Language>(result.size());
+        for (Language language : result) {
+            copy.add(new Language(new FlattrObject(language.toJSON())));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    @Override
+    public void update(Thing thing) throws FlattrException {
+        try {
+            super.update(thing);
+        } finally {
+            invalidateThing(thing);
+        }
+    }
+
+    @Override
+    public void delete(ThingId thingId) throws FlattrException {
+        try {
+            super.delete(thingId);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public MiniThing flattr(ThingId thingId) throws FlattrException {
+        try {
+            return super.flattr(thingId);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public MiniThing flattr(AutoSubmission submission) throws FlattrException {
+        MiniThing result = super.flattr(submission);
+        invalidateThing(result);
+        return result;
+    }
+
+    @Override
+    public MiniThing flattr(String url) throws FlattrException {
+        MiniThing result = super.flattr(url);
+        invalidateThing(result);
+        return result;
+    }
+
+    @Override
+    public void subscribe(ThingId thingId) throws FlattrException {
+        try {
+            super.subscribe(thingId);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public void unsubscribe(ThingId thingId) throws FlattrException {
+        try {
+            super.unsubscribe(thingId);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public boolean toggleSubscription(ThingId thingId) throws FlattrException {
+        try {
+            return super.toggleSubscription(thingId);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public void pauseSubscription(ThingId thingId, boolean paused) throws FlattrException {
+        try {
+            super.pauseSubscription(thingId, paused);
+        } finally {
+            invalidateThing(thingId);
+        }
+    }
+
+    @Override
+    public void setFullMode(boolean full) {
+        // Cached results depend on the full mode
+        clear();
+        super.setFullMode(full);
+    }
+
+    /**
+     * Looks up a cache entry.
+     *
+     * @param key
+     *            Cache key
+     * @return Cached value, or {@code null} if there is no valid entry
+     * @throws NotFoundException
+     *             if a {@link NotFoundException} was cached
+     */
+    private Object lookup(String key) throws NotFoundException {
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null && entry.expires <= System.currentTimeMillis()) {
+                cache.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+
+        if (entry.value instanceof NotFoundException) {
+            NotFoundException ex = (NotFoundException) entry.value;
+            throw new NotFoundException(ex.getCode(), ex.getMessage());
+        }
+
+        return entry.value;
+    }
+
+    /**
+     * Puts a value into the cache.
+     *
+     * @param key
+     *            Cache key
+     * @param value
+     *            Value to cache
+     * @param ttl
+     *            Time-to-live, in milliseconds
+     */
+    private void put(String key, Object value, long ttl) {
+        if (ttl > 0L && value != null) {
+            Entry entry = new Entry(value, System.currentTimeMillis() + ttl);
+            synchronized (cache) {
+                cache.put(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Puts a {@link NotFoundException} into the cache.
+     */
+    private void putNotFound(String key, NotFoundException ex) {
+        put(key, ex, notFoundTtl);
+    }
+
+    /**
+     * Removes an entry from the cache.
+     */
+    private void remove(String key) {
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    private static String thingKey(String thingId) {
+        return "thing:" + thingId;
+    }
+
+    private static String userKey(String userId) {
+        return "user:" + userId;
+    }
+
+    /**
+     * A cache entry.
+     */
+    private static class Entry {
+        private final Object value;
+        private final long expires;
+
+        public Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.model.Activity;
+import org.shredzone.flattr4j.model.AutoSubmission;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Flattr;
+import org.shredzone.flattr4j.model.Language;
+import org.shredzone.flattr4j.model.MiniThing;
+import org.shredzone.flattr4j.model.SearchQuery;
+import org.shredzone.flattr4j.model.SearchResult;
+import org.shredzone.flattr4j.model.Submission;
+import org.shredzone.flattr4j.model.Subscription;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.model.User;
+import org.shredzone.flattr4j.model.UserId;
+
+/**
+ * A {@link FlattrService} that delegates all calls to another {@link FlattrService}.
+ * It is meant to be extended by decorators that only change a few methods.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class DelegatingFlattrService implements FlattrService {
+
+    private final FlattrService delegate;
+
+    /**
+     * Creates a new {@link DelegatingFlattrService}.
+     *
+     * @param delegate
+     *            {@link FlattrService} to delegate to
+     */
+    public DelegatingFlattrService(FlattrService delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate is required");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the {@link FlattrService} that all calls are delegated to.
+     */
+    protected FlattrService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Thing getThing(ThingId thingId) throws FlattrException {
+        return delegate.getThing(thingId);
+    }
+
+    @Override
+    public Thing getThingByUrl(String url) throws FlattrException {
+        return delegate.getThingByUrl(url);
+    }
+
+    @Override
+    public Thing getThingBySubmission(AutoSubmission submission) throws FlattrException {
+        return delegate.getThingBySubmission(submission);
+    }
+
+    @Override
+    public List<Thing> getThings(UserId user) throws FlattrException {
+        return delegate.getThings(user);
+    }
+
+    @Override
+    public List<Thing> getThings(UserId user, Integer count, Integer page) throws FlattrException {
+        return delegate.getThings(user, count, page);
+    }
+
+    @Override
+    public Iterable<Thing> iterateThings(UserId user) {
+        return delegate.iterateThings(user);
+    }
+
+    @Override
+    public List<Thing> getThings(Collection<? extends ThingId> thingIds) throws FlattrException {
+        return delegate.getThings(thingIds);
+    }
+
+    @Override
+    public SearchResult searchThings(SearchQuery query, Integer count, Integer page) throws FlattrException {
+        return delegate.searchThings(query, count, page);
+    }
+
+    @Override
+    public Iterable<Thing> iterateSearch(SearchQuery query) {
+        return delegate.iterateSearch(query);
+    }
+
+    @Override
+    public User getUser(UserId user) throws FlattrException {
+        return delegate.getUser(user);
+    }
+
+    @Override
+    public List<Flattr> getFlattrs(UserId user) throws FlattrException {
+        return delegate.getFlattrs(user);
+    }
+
+    @Override
+    public List<Flattr> getFlattrs(UserId user, Integer count, Integer page) throws FlattrException {
+        return delegate.getFlattrs(user, count, page);
+    }
+
+    @Override
+    public Iterable<Flattr> iterateFlattrs(UserId user) {
+        return delegate.iterateFlattrs(user);
+    }
+
+    @Override
+    public List<Flattr> getFlattrs(ThingId thing) throws FlattrException {
+        return delegate.getFlattrs(thing);
+    }
+
+    @Override
+    public List<Flattr> getFlattrs(ThingId thing, Integer count, Integer page) throws FlattrException {
+        return delegate.getFlattrs(thing, count, page);
+    }
+
+    @Override
+    public Iterable<Flattr> iterateFlattrs(ThingId thing) {
+        return delegate.iterateFlattrs(thing);
+    }
+
+    @Override
+    public List<Activity> getActivities(UserId user, Activity.Type type) throws FlattrException {
+        return delegate.getActivities(user, type);
+    }
+
+    @Override
+    public List<Category> getCategories() throws FlattrException {
+        return delegate.getCategories();
+    }
+
+    @Override
+    public List<Language> getLanguages() throws FlattrException {
+        return delegate.getLanguages();
+    }
+
+    @Override
+    public ThingId create(Submission thing) throws FlattrException {
+        return delegate.create(thing);
+    }
+
+    @Override
+    public void update(Thing thing) throws FlattrException {
+        delegate.update(thing);
+    }
+
+    @Override
+    public void delete(ThingId thingId) throws FlattrException {
+        delegate.delete(thingId);
+    }
+
+    @Override
+    public MiniThing flattr(ThingId thingId) throws FlattrException {
+        return delegate.flattr(thingId);
+    }
+
+    @Override
+    public MiniThing flattr(AutoSubmission submission) throws FlattrException {
+        return delegate.flattr(submission);
+    }
+
+    @Override
+    public MiniThing flattr(String url) throws FlattrException {
+        return delegate.flattr(url);
+    }
+
+    @Override
+    public void subscribe(ThingId thingId) throws FlattrException {
+        delegate.subscribe(thingId);
+    }
+
+    @Override
+    public void unsubscribe(ThingId thingId) throws FlattrException {
+        delegate.unsubscribe(thingId);
+    }
+
+    @Override
+    public User getMyself() throws FlattrException {
+        return delegate.getMyself();
+    }
+
+    @Override
+    public List<Thing> getMyThings() throws FlattrException {
+        return delegate.getMyThings();
+    }
+
+    @Override
+    public List<Thing> getMyThings(Integer count, Integer page) throws FlattrException {
+        return delegate.getMyThings(count, page);
+    }
+
+    @Override
+    public Iterable<Thing> iterateMyThings() {
+        return delegate.iterateMyThings();
+    }
+
+    @Override
+    public List<Flattr> getMyFlattrs() throws FlattrException {
+        return delegate.getMyFlattrs();
+    }
+
+    @Override
+    public List<Flattr> getMyFlattrs(Integer count, Integer page) throws FlattrException {
+        return delegate.getMyFlattrs(count, page);
+    }
+
+    @Override
+    public Iterable<Flattr> iterateMyFlattrs() {
+        return delegate.iterateMyFlattrs();
+    }
+
+    @Override
+    public List<Activity> getMyActivities(Activity.Type type) throws FlattrException {
+        return delegate.getMyActivities(type);
+    }
+
+    @Override
+    public List<Subscription> getMySubscriptions() throws FlattrException {
+        return delegate.getMySubscriptions();
+    }
+
+    @Override
+    public Subscription getSubscription(ThingId thingId) throws FlattrException {
+        return delegate.getSubscription(thingId);
+    }
+
+    @Override
+    public boolean toggleSubscription(ThingId thingId) throws FlattrException {
+        return delegate.toggleSubscription(thingId);
+    }
+
+    @Override
+    public void pauseSubscription(ThingId thingId, boolean paused) throws FlattrException {
+        delegate.pauseSubscription(thingId, paused);
+    }
+
+    @Override
+    public void setFullMode(boolean full) {
+        delegate.setFullMode(full);
+    }
+
+    @Override
+    public boolean isFullMode() {
+        return delegate.isFullMode();
+    }
+
+    @Override
+    public RateLimit getCurrentRateLimit() throws FlattrException {
+        return delegate.getCurrentRateLimit();
+    }
+
+    @Override
+    public RateLimit getLastRateLimit() {
+        return delegate.getLastRateLimit();
+    }
+
+    @Override
+    public RateLimit getThreadRateLimit() {
+        return delegate.getThreadRateLimit();
+    }
+
+    @Override
+    public void clearThreadRateLimit() {
+        delegate.clearThreadRateLimit();
+    }
+
+}
@@ -22,7 +22,18 @@ package org.shredzone.flattr4j.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.shredzone.flattr4j.FlattrService;
 import org.shredzone.flattr4j.connector.Connection;
@@ -30,6 +41,7 @@ import org.shredzone.flattr4j.connector.Connector;
 import org.shredzone.flattr4j.connector.FlattrObject;
 import org.shredzone.flattr4j.connector.RateLimit;
 import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.connector.ResultHandler;
 import org.shredzone.flattr4j.exception.FlattrException;
 import org.shredzone.flattr4j.model.Activity;
 import org.shredzone.flattr4j.model.AutoSubmission;
@@ -45,17 +57,29 @@ import org.shredzone.flattr4j.model.Thing;
 import org.shredzone.flattr4j.model.ThingId;
 import org.shredzone.flattr4j.model.User;
 import org.shredzone.flattr4j.model.UserId;
+import org.shredzone.flattr4j.oauth.AccessToken;
+import org.shredzone.flattr4j.oauth.ConsumerKey;
 
 /**
  * Default implementation of {@link FlattrService}.
+ * <p>
+ * This implementation is threadsafe, so a single instance can be shared by many threads,
+ * given that the {@link Connector} is threadsafe as well. Every call tracks its rate
+ * limit separately and publishes it as a snapshot when completed.
  *
  * @author Richard "Shred" Körber
  */
 public class FlattrServiceImpl implements FlattrService {
     private final Connector connector;
 
-    private RateLimit lastRateLimit = new RateLimit();
-    private boolean fullMode = false;
+    private final AtomicReference<RateLimit> lastRateLimit = new AtomicReference<RateLimit>(new RateLimit());
+    private final ThreadLocal<RateLimit> threadRateLimit = new ThreadLocal<RateLimit>();
+    private volatile boolean fullMode = false;
+    private volatile int pageSize = 100;
+    private volatile int chunkSize = 50;
+    private volatile Executor executor;
+    private volatile long subscriptionTtl = 60L * 1000L;
+    private final SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
 
     public FlattrServiceImpl(Connector connector) {
         this.connector = connector;
@@ -70,8 +94,72 @@ public class FlattrServiceImpl implements FlattrService {
         return connector;
     }
 
+    /**
+     * Number of entries per page that are fetched by the lazy iterators, e.g.
+     * {@link #iterateMyThings()}. Defaults to 100.
+     *
+     * @since 2.15
+     */
+    public int getPageSize()                    { return pageSize; }
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Maximum number of thing IDs that are fetched by a single request of
+     * {@link #getThings(Collection)}. Larger collections are split into several
+     * requests. Defaults to 50.
+     *
+     * @since 2.15
+     */
+    public int getChunkSize()                   { return chunkSize; }
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * {@link Executor} that is used for background requests, like prefetching the next
+     * page of a lazy iterator, or fetching the chunks of {@link #getThings(Collection)}
+     * concurrently. If {@code null} (default), all requests are executed synchronously.
+     * A bounded thread pool should be used, to limit the number of concurrent
+     * connections. Chunks that the executor has not started yet when the calling thread
+     * needs them are fetched by the calling thread itself, so it is safe to invoke
+     * {@link #getThings(Collection)} from a thread of the same executor.
+     *
+     * @since 2.15
+     */
+    public Executor getExecutor()               { return executor; }
+    public void setExecutor(Executor executor)  { this.executor = executor; }
+
+    /**
+     * Time-to-live of the subscription index, in milliseconds. Defaults to 1 minute.
+     * <p>
+     * {@link #getSubscription(ThingId)} looks up the subscription in an index of all
+     * subscriptions of the user. The index is loaded by the first lookup, and reloaded
+     * by the first lookup after the TTL has expired. {@link #getMySubscriptions()} does
+     * not use or fill the index. Subscription changes made via this service are applied to the index.
+     * Changes made elsewhere are not noticed before the TTL has expired. A TTL of 0
+     * disables the index, so the subscription list is fetched on every call.
+     *
+     * @since 2.15
+     */
+    public long getSubscriptionTtl()            { return subscriptionTtl; }
+    public void setSubscriptionTtl(long subscriptionTtl) {
+        this.subscriptionTtl = subscriptionTtl;
+        subscriptionIndex.invalidate();
+    }
+
     @Override
     public void setFullMode(boolean full) {
+        if (this.fullMode != full) {
+            subscriptionIndex.invalidate();
+        }
         this.fullMode = full;
     }
 
@@ -88,10 +176,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (thing instanceof AutoSubmission && ((AutoSubmission) thing).getUser() != null)
             throw new IllegalArgumentException("cannot create a thing on behalf of a user");
 
-        FlattrObject data = getConnector().create(RequestType.POST)
+        FlattrObject data = createConnection(RequestType.POST)
                 .call("things")
                 .data(thing.toFlattrObject())
-                .rateLimit(lastRateLimit)
                 .singleResult();
 
         return Thing.withId(String.valueOf(data.getInt("id")));
@@ -106,10 +193,9 @@ public class FlattrServiceImpl implements FlattrService {
 
         if (update != null) { // Thing was modified.
             update.getJSONObject().put("_method", "patch");
-            getConnector().create(RequestType.POST)
+            createConnection(RequestType.POST)
                     .call("things/:id")
                     .parameter("id", thing.getThingId())
-                    .rateLimit(lastRateLimit)
                     .data(update)
                     .result();
         }
@@ -120,10 +206,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thing id is required");
 
-        getConnector().create(RequestType.DELETE)
+        createConnection(RequestType.DELETE)
                 .call("things/:id")
                 .parameter("id", thingId.getThingId())
-                .rateLimit(lastRateLimit)
                 .result();
     }
 
@@ -140,10 +225,9 @@ public class FlattrServiceImpl implements FlattrService {
         FlattrObject data = new FlattrObject();
         data.put("url", url);
 
-        FlattrObject result = getConnector().create(RequestType.POST)
+        FlattrObject result = createConnection(RequestType.POST)
                 .call("flattr")
                 .data(data)
-                .rateLimit(lastRateLimit)
                 .singleResult();
 
         return new MiniThing(result.getFlattrObject("thing"));
@@ -154,10 +238,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        FlattrObject result = getConnector().create(RequestType.POST)
+        FlattrObject result = createConnection(RequestType.POST)
                 .call("things/:id/flattr")
                 .parameter("id", thingId.getThingId())
-                .rateLimit(lastRateLimit)
                 .singleResult();
 
         return new MiniThing(result.getFlattrObject("thing"));
@@ -165,9 +248,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public User getMyself() throws FlattrException {
-        return new User(getConnector().create()
+        return new User(createConnection()
                 .call("user")
-                .rateLimit(lastRateLimit)
                 .singleResult());
     }
 
@@ -178,9 +260,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Thing> getMyThings(Integer count, Integer page) throws FlattrException {
-        Connection conn = getConnector().create()
-                .call("user/things")
-                .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                .call("user/things");
 
         setupFullMode(conn);
 
@@ -199,6 +280,16 @@ public class FlattrServiceImpl implements FlattrService {
         return Collections.unmodifiableList(list);
     }
 
+    @Override
+    public Iterable<Thing> iterateMyThings() {
+        return new Pager<Thing>(pageSize, executor) {
+            @Override
+            protected List<Thing> fetch(int count, int page) throws FlattrException {
+                return getMyThings(count, page);
+            }
+        };
+    }
+
     @Override
     public List<Flattr> getMyFlattrs() throws FlattrException {
         return getMyFlattrs(null, null);
@@ -206,9 +297,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Flattr> getMyFlattrs(Integer count, Integer page) throws FlattrException {
-        Connection conn = getConnector().create()
-                .call("user/flattrs")
-                .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                .call("user/flattrs");
 
         setupFullMode(conn);
 
@@ -227,15 +317,24 @@ public class FlattrServiceImpl implements FlattrService {
         return Collections.unmodifiableList(list);
     }
 
+    @Override
+    public Iterable<Flattr> iterateMyFlattrs() {
+        return new Pager<Flattr>(pageSize, executor) {
+            @Override
+            protected List<Flattr> fetch(int count, int page) throws FlattrException {
+                return getMyFlattrs(count, page);
+            }
+        };
+    }
+
     @Override
     public Thing getThing(ThingId thingId) throws FlattrException {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        Connection conn = getConnector().create()
+        Connection conn = createConnection()
                 .call("things/:id")
-                .parameter("id", thingId.getThingId())
-                .rateLimit(lastRateLimit);
+                .parameter("id", thingId.getThingId());
 
         setupFullMode(conn);
 
@@ -247,10 +346,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (url == null || url.length() == 0)
             throw new IllegalArgumentException("url is required");
 
-        FlattrObject data = getConnector().create()
+        FlattrObject data = createConnection()
                 .call("things/lookup/")
                 .query("url", url)
-                .rateLimit(lastRateLimit)
                 .singleResult();
 
         if (data.has("message") && "not_found".equals(data.get("message"))) {
@@ -275,10 +373,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (user == null || user.getUserId().length() == 0)
             throw new IllegalArgumentException("user is required");
 
-        Connection conn = getConnector().create()
+        Connection conn = createConnection()
                 .call("users/:username/things")
-                .parameter("username", user.getUserId())
-                .rateLimit(lastRateLimit);
+                .parameter("username", user.getUserId());
 
         setupFullMode(conn);
 
@@ -297,6 +394,16 @@ public class FlattrServiceImpl implements FlattrService {
         return Collections.unmodifiableList(list);
     }
 
+    @Override
+    public Iterable<Thing> iterateThings(final UserId user) {
+        return new Pager<Thing>(pageSize, executor) {
+            @Override
+            protected List<Thing> fetch(int count, int page) throws FlattrException {
+                return getThings(user, count, page);
+            }
+        };
+    }
+
     @Override
     public List<Thing> getThings(Collection<? extends ThingId> thingIds) throws FlattrException {
         if (thingIds.isEmpty()) {
@@ -304,31 +411,136 @@ public class FlattrServiceImpl implements FlattrService {
             return Collections.emptyList();
         }
 
-        String[] params = new String[thingIds.size()];
-        int ix = 0;
+        Set<String> ids = new LinkedHashSet<String>();
         for (ThingId thingId : thingIds) {
-            params[ix++] = thingId.getThingId();
+            ids.add(thingId.getThingId());
         }
 
-        Connection conn = getConnector().create()
+        int size = chunkSize;
+        List<String[]> chunks = new ArrayList<String[]>();
+        Iterator<String> it = ids.iterator();
+        while (it.hasNext()) {
+            String[] chunk = new String[Math.min(size, ids.size() - chunks.size() * size)];
+            for (int ix = 0; ix < chunk.length; ix++) {
+                chunk[ix] = it.next();
+            }
+            chunks.add(chunk);
+        }
+
+        Executor exec = executor;
+        List<Thing> result;
+        if (chunks.size() > 1 && exec != null) {
+            result = fetchThingChunks(chunks, exec);
+        } else {
+            result = new ArrayList<Thing>(ids.size());
+            for (String[] chunk : chunks) {
+                result.addAll(fetchThings(chunk));
+            }
+        }
+
+        Map<String, Thing> things = new HashMap<String, Thing>();
+        for (Thing thing : result) {
+            things.put(thing.getThingId(), thing);
+        }
+
+        List<Thing> list = new ArrayList<Thing>(things.size());
+        for (String id : ids) {
+            Thing thing = things.get(id);
+            if (thing != null) {
+                list.add(thing);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Fetches the chunks of thing IDs concurrently, using the {@link Executor}.
+     * <p>
+     * Chunks that were not started by the executor yet, or that were rejected by it,
+     * are fetched by the current thread. This way the current thread never waits for
+     * tasks that are queued behind it, e.g. if it is a thread of the same executor.
+     *
+     * @param chunks
+     *            List of thing ID chunks
+     * @param exec
+     *            {@link Executor} to be used
+     * @return List of all {@link Thing} that were fetched, in no particular order
+     */
+    private List<Thing> fetchThingChunks(List<String[]> chunks, Executor exec)
+                throws FlattrException {
+        List<Thing> result = new ArrayList<Thing>();
+        List<FutureTask<List<Thing>>> tasks = new ArrayList<FutureTask<List<Thing>>>();
+
+        try {
+            // The first chunk is fetched by the current thread
+            for (int ix = 1; ix < chunks.size(); ix++) {
+                final String[] chunk = chunks.get(ix);
+                FutureTask<List<Thing>> task = new FutureTask<List<Thing>>(new Callable<List<Thing>>() {
+                    @Override
+                    public List<Thing> call() throws Exception {
+                        return fetchThings(chunk);
+                    }
+                });
+                tasks.add(task);
+                try {
+                    exec.execute(task);
+                } catch (RejectedExecutionException ex) {
+                    // Task is run by the current thread below
+                }
+            }
+
+            result.addAll(fetchThings(chunks.get(0)));
+
+            for (FutureTask<List<Thing>> task : tasks) {
+                // Does nothing if the task was already started by the executor
+                task.run();
+                result.addAll(task.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FlattrException("Interrupted while fetching things", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof FlattrException) {
+                throw (FlattrException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new FlattrException("Could not fetch things", cause);
+        } finally {
+            for (FutureTask<List<Thing>> task : tasks) {
+                task.cancel(false);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Fetches a single chunk of thing IDs.
+     *
+     * @param ids
+     *            Thing IDs to fetch
+     * @return List of {@link Thing} that were returned
+     */
+    private List<Thing> fetchThings(String[] ids) throws FlattrException {
+        Connection conn = createConnection()
                         .call("things/:ids")
-                        .parameterArray("ids", params)
-                        .rateLimit(lastRateLimit);
+                        .parameterArray("ids", ids);
 
         setupFullMode(conn);
 
-        List<Thing> list = new ArrayList<Thing>();
+        List<Thing> list = new ArrayList<Thing>(ids.length);
         for (FlattrObject data : conn.result()) {
             list.add(new Thing(data));
         }
-        return Collections.unmodifiableList(list);
+        return list;
     }
 
     @Override
     public SearchResult searchThings(SearchQuery query, Integer count, Integer page) throws FlattrException {
-        Connection conn = getConnector().create()
-                        .call("things/search")
-                        .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                        .call("things/search");
 
         if (query != null) {
             query.setupConnection(conn);
@@ -347,15 +559,24 @@ public class FlattrServiceImpl implements FlattrService {
         return new SearchResult(conn.singleResult());
     }
 
+    @Override
+    public Iterable<Thing> iterateSearch(final SearchQuery query) {
+        return new Pager<Thing>(pageSize, executor) {
+            @Override
+            protected List<Thing> fetch(int count, int page) throws FlattrException {
+                return searchThings(query, count, page).getThings();
+            }
+        };
+    }
+
     @Override
     public User getUser(UserId user) throws FlattrException {
         if (user == null || user.getUserId().length() == 0)
             throw new IllegalArgumentException("user is required");
 
-        return new User(getConnector().create()
+        return new User(createConnection()
                 .call("users/:username")
                 .parameter("username", user.getUserId())
-                .rateLimit(lastRateLimit)
                 .singleResult());
     }
 
@@ -369,10 +590,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (userId == null || userId.getUserId().length() == 0)
             throw new IllegalArgumentException("userId is required");
 
-        Connection conn = getConnector().create()
+        Connection conn = createConnection()
                 .call("users/:username/flattrs")
-                .parameter("username", userId.getUserId())
-                .rateLimit(lastRateLimit);
+                .parameter("username", userId.getUserId());
 
         setupFullMode(conn);
 
@@ -391,6 +611,16 @@ public class FlattrServiceImpl implements FlattrService {
         return Collections.unmodifiableList(list);
     }
 
+    @Override
+    public Iterable<Flattr> iterateFlattrs(final UserId user) {
+        return new Pager<Flattr>(pageSize, executor) {
+            @Override
+            protected List<Flattr> fetch(int count, int page) throws FlattrException {
+                return getFlattrs(user, count, page);
+            }
+        };
+    }
+
     @Override
     public List<Flattr> getFlattrs(ThingId thingId) throws FlattrException {
         return getFlattrs(thingId, null, null);
@@ -401,10 +631,9 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        Connection conn = getConnector().create()
+        Connection conn = createConnection()
                 .call("things/:id/flattrs")
-                .parameter("id", thingId.getThingId())
-                .rateLimit(lastRateLimit);
+                .parameter("id", thingId.getThingId());
 
         setupFullMode(conn);
 
@@ -423,15 +652,24 @@ public class FlattrServiceImpl implements FlattrService {
         return Collections.unmodifiableList(list);
     }
 
+    @Override
+    public Iterable<Flattr> iterateFlattrs(final ThingId thing) {
+        return new Pager<Flattr>(pageSize, executor) {
+            @Override
+            protected List<Flattr> fetch(int count, int page) throws FlattrException {
+                return getFlattrs(thing, count, page);
+            }
+        };
+    }
+
     @Override
     public List<Activity> getActivities(UserId user, Activity.Type type) throws FlattrException {
         if (user == null || user.getUserId().length() == 0)
             throw new IllegalArgumentException("userId is required");
 
-        Connection conn = getConnector().create()
+        Connection conn = createConnection()
                         .call("users/:username/activities.as")
-                        .parameter("username", user.getUserId())
-                        .rateLimit(lastRateLimit);
+                        .parameter("username", user.getUserId());
 
         if (type != null) {
             conn.query("type", type.name().toLowerCase());
@@ -447,9 +685,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Activity> getMyActivities(Activity.Type type) throws FlattrException {
-        Connection conn = getConnector().create()
-                        .call("user/activities.as")
-                        .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                        .call("user/activities.as");
 
         if (type != null) {
             conn.query("type", type.name().toLowerCase());
@@ -465,15 +702,7 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Subscription> getMySubscriptions() throws FlattrException {
-        Connection conn = getConnector().create()
-                        .call("user/subscriptions")
-                        .rateLimit(lastRateLimit);
-
-        List<Subscription> list = new ArrayList<Subscription>();
-        for (FlattrObject item : conn.result()) {
-            list.add(new Subscription(item));
-        }
-        return Collections.unmodifiableList(list);
+        return Collections.unmodifiableList(fetchSubscriptions());
     }
 
     @Override
@@ -482,17 +711,33 @@ public class FlattrServiceImpl implements FlattrService {
             throw new IllegalArgumentException("thingId is required");
         }
 
-        Connection conn = getConnector().create()
-                        .call("user/subscriptions")
-                        .rateLimit(lastRateLimit);
+        String id = thingId.getThingId();
+        long ttl = subscriptionTtl;
 
-        for (FlattrObject item : conn.result()) {
-            if (thingId.getThingId().equals(String.valueOf(item.getFlattrObject("thing").getInt("id")))) {
-                return new Subscription(item);
+        if (ttl <= 0 || !subscriptionIndex.isValid(id)) {
+            long version = subscriptionIndex.getVersion();
+            List<Subscription> list = fetchSubscriptions();
+            if (ttl > 0) {
+                subscriptionIndex.load(list, ttl, version);
+            }
+
+            // The index might still be invalid if it was changed concurrently, so
+            // search the fetched list.
+            for (Subscription subscription : list) {
+                if (id.equals(subscription.getThingId())) {
+                    return new Subscription(new FlattrObject(subscription.toJSON()));
+                }
             }
+            return null;
         }
 
-        return null;
+        Subscription subscription = subscriptionIndex.get(id);
+        if (subscription == null) {
+            return null;
+        }
+
+        // Subscriptions are mutable, so always return a copy
+        return new Subscription(new FlattrObject(subscription.toJSON()));
     }
 
     @Override
@@ -500,11 +745,14 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        getConnector().create(RequestType.POST)
-                        .call("things/:id/subscriptions")
-                        .parameter("id", thingId.getThingId())
-                        .rateLimit(lastRateLimit)
-                        .result();
+        try {
+            createConnection(RequestType.POST)
+                            .call("things/:id/subscriptions")
+                            .parameter("id", thingId.getThingId())
+                            .result();
+        } finally {
+            subscriptionIndex.markDirty(thingId.getThingId());
+        }
     }
 
     @Override
@@ -512,11 +760,16 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        getConnector().create(RequestType.DELETE)
-                        .call("things/:id/subscriptions")
-                        .parameter("id", thingId.getThingId())
-                        .rateLimit(lastRateLimit)
-                        .result();
+        try {
+            createConnection(RequestType.DELETE)
+                            .call("things/:id/subscriptions")
+                            .parameter("id", thingId.getThingId())
+                            .result();
+            subscriptionIndex.remove(thingId.getThingId());
+        } catch (FlattrException ex) {
+            subscriptionIndex.markDirty(thingId.getThingId());
+            throw ex;
+        }
     }
 
     @Override
@@ -524,13 +777,20 @@ public class FlattrServiceImpl implements FlattrService {
         if (thingId == null || thingId.getThingId().length() == 0)
             throw new IllegalArgumentException("thingId is required");
 
-        FlattrObject data = getConnector().create(RequestType.PUT)
-                        .call("things/:id/subscriptions")
-                        .parameter("id", thingId.getThingId())
-                        .rateLimit(lastRateLimit)
-                        .singleResult();
+        FlattrObject data;
+        try {
+            data = createConnection(RequestType.PUT)
+                            .call("things/:id/subscriptions")
+                            .parameter("id", thingId.getThingId())
+                            .singleResult();
+        } catch (FlattrException ex) {
+            subscriptionIndex.markDirty(thingId.getThingId());
+            throw ex;
+        }
 
-        return "paused".equals(data.get("message"));
+        boolean paused = "paused".equals(data.get("message"));
+        subscriptionIndex.setActive(thingId.getThingId(), !paused);
+        return paused;
     }
 
     @Override
@@ -544,9 +804,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Category> getCategories() throws FlattrException {
-        Connection conn = getConnector().create()
-                .call("categories")
-                .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                .call("categories");
 
         List<Category> list = new ArrayList<Category>();
         for (FlattrObject data : conn.result()) {
@@ -557,9 +816,8 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public List<Language> getLanguages() throws FlattrException {
-        Connection conn = getConnector().create()
-                .call("languages")
-                .rateLimit(lastRateLimit);
+        Connection conn = createConnection()
+                .call("languages");
 
         List<Language> list = new ArrayList<Language>();
         for (FlattrObject data : conn.result()) {
@@ -578,7 +836,58 @@ public class FlattrServiceImpl implements FlattrService {
 
     @Override
     public RateLimit getLastRateLimit() {
-        return lastRateLimit;
+        return new RateLimit(lastRateLimit.get());
+    }
+
+    @Override
+    public RateLimit getThreadRateLimit() {
+        RateLimit snapshot = threadRateLimit.get();
+        return (snapshot != null ? new RateLimit(snapshot) : null);
+    }
+
+    @Override
+    public void clearThreadRateLimit() {
+        threadRateLimit.remove();
+    }
+
+    /**
+     * Fetches all subscriptions of the user.
+     *
+     * @return List of {@link Subscription}
+     */
+    private List<Subscription> fetchSubscriptions() throws FlattrException {
+        Connection conn = createConnection()
+                        .call("user/subscriptions");
+
+        List<Subscription> list = new ArrayList<Subscription>();
+        for (FlattrObject item : conn.result()) {
+            list.add(new Subscription(item));
+        }
+        return list;
+    }
+
+    /**
+     * Creates a new GET {@link Connection} that tracks the rate limit of the call.
+     *
+     * @return {@link Connection}
+     * @since 2.15
+     */
+    protected Connection createConnection() throws FlattrException {
+        return createConnection(RequestType.GET);
+    }
+
+    /**
+     * Creates a new {@link Connection} that tracks the rate limit of the call. When the
+     * call is completed, the rate limit is published to {@link #getLastRateLimit()} and
+     * {@link #getThreadRateLimit()}.
+     *
+     * @param type
+     *            {@link RequestType}
+     * @return {@link Connection}
+     * @since 2.15
+     */
+    protected Connection createConnection(RequestType type) throws FlattrException {
+        return new RateLimitConnection(getConnector().create(type));
     }
 
     /**
@@ -593,4 +902,121 @@ public class FlattrServiceImpl implements FlattrService {
         }
     }
 
+    /**
+     * A {@link Connection} that collects the rate limit of a single call into its own
+     * {@link RateLimit} instance. When the call is completed, a snapshot of the instance
+     * is published. The snapshot is never changed, and never passed to the caller.
+     * Concurrent calls never write into the same
+     * {@link RateLimit} instance.
+     */
+    private class RateLimitConnection implements Connection {
+        private final Connection delegate;
+        private RateLimit limit = new RateLimit();
+
+        public RateLimitConnection(Connection delegate) {
+            this.delegate = delegate;
+            delegate.rateLimit(limit);
+        }
+
+        @Override
+        public Connection url(String url) {
+            delegate.url(url);
+            return this;
+        }
+
+        @Override
+        public Connection token(AccessToken token) {
+            delegate.token(token);
+            return this;
+        }
+
+        @Override
+        public Connection key(ConsumerKey key) {
+            delegate.key(key);
+            return this;
+        }
+
+        @Override
+        public Connection call(String call) {
+            delegate.call(call);
+            return this;
+        }
+
+        @Override
+        public Connection parameter(String name, String value) {
+            delegate.parameter(name, value);
+            return this;
+        }
+
+        @Override
+        public Connection parameterArray(String name, String[] value) {
+            delegate.parameterArray(name, value);
+            return this;
+        }
+
+        @Override
+        public Connection query(String name, String value) {
+            delegate.query(name, value);
+            return this;
+        }
+
+        @Override
+        public Connection data(FlattrObject data) {
+            delegate.data(data);
+            return this;
+        }
+
+        @Override
+        public Connection form(String name, String value) {
+            delegate.form(name, value);
+            return this;
+        }
+
+        @Override
+        public Connection rateLimit(RateLimit limit) {
+            this.limit = limit;
+            delegate.rateLimit(limit);
+            return this;
+        }
+
+        @Override
+        public FlattrObject singleResult() throws FlattrException {
+            try {
+                return delegate.singleResult();
+            } finally {
+                publish();
+            }
+        }
+
+        @Override
+        public Collection<FlattrObject> result() throws FlattrException {
+            try {
+                return delegate.result();
+            } finally {
+                publish();
+            }
+        }
+
+        @Override
+        public void result(ResultHandler handler) throws FlattrException {
+            try {
+                delegate.result(handler);
+            } finally {
+                publish();
+            }
+        }
+
+        /**
+         * Publishes the rate limit of this call, if the server has sent one.
+         */
+        private void publish() {
+            if (limit.getLimit() != null || limit.getRemaining() != null
+                    || limit.getCurrent() != null || limit.getReset() != null) {
+                RateLimit snapshot = new RateLimit(limit);
+                lastRateLimit.set(snapshot);
+                threadRateLimit.set(snapshot);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,184 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.IterationException;
+
+/**
+ * An {@link Iterable} over a paginated API call. Pages are fetched lazily while
+ * iterating, so only the current page is kept in memory. The iteration stops at the
+ * first page that contains less entries than the page size.
+ * <p>
+ * If an {@link Executor} is given, the next page is prefetched in the background while
+ * the current page is consumed.
+ * <p>
+ * If a page could not be fetched, the iterator throws an {@link IterationException}.
+ *
+ * @param <T>
+ *            Type of the entries
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public abstract class Pager<T> implements Iterable<T> {
+
+    private final int pageSize;
+    private final Executor executor;
+
+    /**
+     * Creates a new {@link Pager}.
+     *
+     * @param pageSize
+     *            Number of entries per page
+     * @param executor
+     *            {@link Executor} for prefetching the next page, or {@code null} to
+     *            fetch all pages synchronously
+     */
+    public Pager(int pageSize, Executor executor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    /**
+     * Fetches a page.
+     *
+     * @param count
+     *            Number of entries per page
+     * @param page
+     *            Page number, counted from 1
+     * @return List of entries of that page
+     */
+    protected abstract List<T> fetch(int count, int page) throws FlattrException;
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    /**
+     * An {@link Iterator} that fetches the pages on demand.
+     */
+    private class PageIterator implements Iterator<T> {
+        private Iterator<T> current = Collections.<T>emptyList().iterator();
+        private FutureTask<List<T>> prefetch;
+        private int nextPage = 1;
+        private boolean lastPage = false;
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (lastPage) {
+                    return false;
+                }
+                current = nextPage().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        /**
+         * Fetches the next page, or takes it from the prefetch. If the page was full,
+         * the prefetch of the following page is started.
+         */
+        private List<T> nextPage() {
+            List<T> page;
+            if (prefetch != null) {
+                FutureTask<List<T>> task = prefetch;
+                prefetch = null;
+                page = await(task);
+            } else {
+                page = fetchPage(nextPage);
+            }
+
+            nextPage++;
+
+            if (page.size() < pageSize) {
+                lastPage = true;
+            } else if (executor != null) {
+                final int pageNumber = nextPage;
+                prefetch = new FutureTask<List<T>>(new Callable<List<T>>() {
+                    @Override
+                    public List<T> call() throws Exception {
+                        return fetch(pageSize, pageNumber);
+                    }
+                });
+                executor.execute(prefetch);
+            }
+
+            return page;
+        }
+
+        /**
+         * Fetches a page synchronously.
+         */
+        private List<T> fetchPage(int page) {
+            try {
+                return fetch(pageSize, page);
+            } catch (FlattrException ex) {
+                lastPage = true;
+                throw new IterationException("Could not fetch page " + page, ex);
+            }
+        }
+
+        /**
+         * Waits for a prefetched page.
+         */
+        private List<T> await(FutureTask<List<T>> task) {
+            try {
+                return task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                lastPage = true;
+                throw new IterationException("Interrupted while fetching page " + nextPage, ex);
+            } catch (ExecutionException ex) {
+                lastPage = true;
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IterationException("Could not fetch page " + nextPage, cause);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.model.Subscription;
+
+/**
+ * An index of the subscriptions of a user, by thing ID.
+ * <p>
+ * The index is loaded from the complete subscription list, and is valid until its TTL
+ * has expired. Changes to single subscriptions are applied to the index, so it does not
+ * need to be reloaded. Subscriptions whose state is unknown are marked as dirty, which
+ * invalidates the index for that thing only.
+ * <p>
+ * Every change increments the version of the index. A subscription list that was
+ * fetched while the index was changed is outdated, and is not loaded.
+ * <p>
+ * This class is threadsafe.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+class SubscriptionIndex {
+
+    private final Map<String, Subscription> index = new HashMap<String, Subscription>();
+    private final Set<String> dirty = new HashSet<String>();
+    private long expires = 0L;
+    private long version = 0L;
+
+    /**
+     * Checks if the index is valid for the given thing ID.
+     *
+     * @param thingId
+     *            Thing ID
+     * @return {@code true} if the index has not expired, and the subscription of that
+     *         thing is not dirty
+     */
+    public synchronized boolean isValid(String thingId) {
+        return expires > System.currentTimeMillis() && !dirty.contains(thingId);
+    }
+
+    /**
+     * Returns the current version of the index. It must be read before the
+     * subscription list is fetched, and passed to
+     * {@link #load(Collection, long, long)}.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the subscription of a thing.
+     *
+     * @param thingId
+     *            Thing ID
+     * @return {@link Subscription}, or {@code null} if the thing is not subscribed
+     */
+    public synchronized Subscription get(String thingId) {
+        return index.get(thingId);
+    }
+
+    /**
+     * Replaces the index by a complete list of subscriptions.
+     *
+     * @param subscriptions
+     *            All subscriptions of the user
+     * @param ttl
+     *            Time-to-live of the index, in milliseconds
+     * @param fetchedVersion
+     *            Version of the index before the subscriptions were fetched
+     */
+    public synchronized void load(Collection<Subscription> subscriptions, long ttl, long fetchedVersion) {
+        if (fetchedVersion != version) {
+            // The index was changed while the subscriptions were fetched
+            return;
+        }
+
+        index.clear();
+        dirty.clear();
+        for (Subscription subscription : subscriptions) {
+            index.put(subscription.getThingId(), subscription);
+        }
+        expires = System.currentTimeMillis() + ttl;
+    }
+
+    /**
+     * Marks the subscription of a thing as dirty. It is reloaded on the next lookup.
+     *
+     * @param thingId
+     *            Thing ID
+     */
+    public synchronized void markDirty(String thingId) {
+        version++;
+        dirty.add(thingId);
+    }
+
+    /**
+     * Removes the subscription of a thing.
+     *
+     * @param thingId
+     *            Thing ID
+     */
+    public synchronized void remove(String thingId) {
+        version++;
+        index.remove(thingId);
+        dirty.remove(thingId);
+    }
+
+    /**
+     * Changes the active state of the subscription of a thing. If the thing is not in
+     * the index, it is marked as dirty.
+     *
+     * @param thingId
+     *            Thing ID
+     * @param active
+     *            {@code true} if the subscription is active, {@code false} if it is
+     *            paused
+     */
+    public synchronized void setActive(String thingId, boolean active) {
+        version++;
+        Subscription subscription = index.get(thingId);
+        if (subscription != null) {
+            FlattrObject data = new FlattrObject(subscription.toJSON());
+            data.put("active", active);
+            index.put(thingId, new Subscription(data));
+        } else {
+            dirty.add(thingId);
+        }
+    }
+
+    /**
+     * Invalidates the entire index.
+     */
+    public synchronized void invalidate() {
+        version++;
+        index.clear();
+        dirty.clear();
+        expires = 0L;
+    }
+
+}
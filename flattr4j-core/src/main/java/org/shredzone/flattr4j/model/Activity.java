@@ -19,8 +19,6 @@
  */
 package org.shredzone.flattr4j.model;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.shredzone.flattr4j.connector.FlattrObject;
@@ -41,6 +39,9 @@ public class Activity extends Resource {
     private static final Logger LOG = new Logger("flattr4j", Activity.class.getName());
     private static final long serialVersionUID = -7610676384296279814L;
 
+    private transient volatile Date published;
+    private transient volatile boolean publishedParsed = false;
+
     /**
      * Available activity types.
      */
@@ -54,15 +55,15 @@ public class Activity extends Resource {
 
     /**
      * Returns the activity publication date.
+     *
+     * @return Publication date, or {@code null} if the date could not be parsed
      */
     public Date getPublished() {
-        try {
-            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
-            String pub = data.get("published");
-            return fmt.parse(pub.replaceAll("(\\d\\d):(\\d\\d)$", "$1$2"));
-        } catch (ParseException e) {
-            return null;
+        if (!publishedParsed) {
+            published = parseDate(data.get("published"));
+            publishedParsed = true;
         }
+        return (published != null ? new Date(published.getTime()) : null);
     }
 
     /**
@@ -122,4 +123,98 @@ public class Activity extends Resource {
         }
     }
 
+    /**
+     * Parses an ISO 8601 date, like "2012-01-04T10:07:12+01:00". Fractional seconds are
+     * ignored. The time zone is either "Z" or an offset, with or without colon.
+     * <p>
+     * This method is threadsafe.
+     *
+     * @param str
+     *            Date string to parse
+     * @return Parsed {@link Date}, or {@code null} if the string could not be parsed
+     * @since 2.15
+     */
+    static Date parseDate(String str) {
+        int len = str.length();
+        if (len < 20 || str.charAt(4) != '-' || str.charAt(7) != '-'
+                || str.charAt(10) != 'T' || str.charAt(13) != ':' || str.charAt(16) != ':') {
+            return null;
+        }
+
+        int year = parseNumber(str, 0, 4);
+        int month = parseNumber(str, 5, 2);
+        int day = parseNumber(str, 8, 2);
+        int hour = parseNumber(str, 11, 2);
+        int minute = parseNumber(str, 14, 2);
+        int second = parseNumber(str, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 60) {
+            return null;
+        }
+
+        int pos = 19;
+        if (str.charAt(pos) == '.') {
+            pos++;
+            while (pos < len && str.charAt(pos) >= '0' && str.charAt(pos) <= '9') {
+                pos++;
+            }
+        }
+
+        int offset;
+        if (pos == len - 1 && str.charAt(pos) == 'Z') {
+            offset = 0;
+        } else if (pos < len && (str.charAt(pos) == '+' || str.charAt(pos) == '-')) {
+            boolean colon = (pos + 6 == len && str.charAt(pos + 3) == ':');
+            if (!colon && pos + 5 != len) {
+                return null;
+            }
+            int offsetHour = parseNumber(str, pos + 1, 2);
+            int offsetMinute = parseNumber(str, pos + (colon ? 4 : 3), 2);
+            if (offsetHour < 0 || offsetMinute < 0 || offsetMinute > 59) {
+                return null;
+            }
+            offset = offsetHour * 60 + offsetMinute;
+            if (str.charAt(pos) == '-') {
+                offset = -offset;
+            }
+        } else {
+            return null;
+        }
+
+        // Days since 1970-01-01, see http://howardhinnant.github.io/date_algorithms.html
+        int y = (month <= 2 ? year - 1 : year);
+        int era = y / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        long days = era * 146097L + doe - 719468L;
+
+        long minutes = (days * 24L + hour) * 60L + minute - offset;
+        return new Date((minutes * 60L + second) * 1000L);
+    }
+
+    /**
+     * Parses a positive decimal number.
+     *
+     * @param str
+     *            String to parse
+     * @param pos
+     *            Position of the first digit
+     * @param digits
+     *            Number of digits
+     * @return Number, or -1 if there was a character that is not a digit
+     */
+    private static int parseNumber(String str, int pos, int digits) {
+        int result = 0;
+        for (int ix = pos; ix < pos + digits; ix++) {
+            char ch = str.charAt(ix);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+
 }
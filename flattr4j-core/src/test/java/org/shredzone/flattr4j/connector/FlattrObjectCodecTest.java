@@ -0,0 +1,180 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.shredzone.flattr4j.model.ModelGenerator;
+import org.shredzone.flattr4j.model.Thing;
+
+/**
+ * Unit tests for {@link FlattrObjectCodec}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class FlattrObjectCodecTest {
+
+    private static final String JSON = "{\"id\":123,\"big\":-12345678901,\"frac\":1.5,"
+                    + "\"title\":\"Caf\\u00e9\",\"hidden\":false,\"flattred\":true,"
+                    + "\"deleted_at\":null,\"owner\":{\"id\":1,\"username\":\"simon_g\"},"
+                    + "\"tags\":[\"twitter\",2,{\"id\":3}],\"empty\":{}}";
+
+    /**
+     * Test that all value types survive encoding and decoding.
+     */
+    @Test
+    public void testEncodeDecode() throws IOException {
+        FlattrObject fo = new FlattrObject(JSON);
+        byte[] data = FlattrObjectCodec.encode(fo);
+        assertThat(data[0], is((byte) FlattrObjectCodec.VERSION));
+        assertThat(data.length, is(lessThan(JSON.length())));
+
+        FlattrObject result = FlattrObjectCodec.decode(data);
+        assertThat(result.getInt("id"), is(123));
+        assertThat(result.getLong("big"), is(-12345678901L));
+        assertThat(result.getObject("frac"), is((Object) Double.valueOf(1.5)));
+        assertThat(result.get("title"), is("Café"));
+        assertThat(result.getBoolean("hidden"), is(false));
+        assertThat(result.getBoolean("flattred"), is(true));
+        assertThat(result.has("deleted_at"), is(true));
+        assertThat(result.getDate("deleted_at"), is(nullValue()));
+        assertThat(result.getSubString("owner", "username"), is("simon_g"));
+        assertThat(result.getFlattrObject("owner").getInt("id"), is(1));
+        assertThat(result.getJSONObject().getJSONArray("tags").length(), is(3));
+        assertThat(result.getJSONObject().getJSONArray("tags").getJSONObject(2).getInt("id"), is(3));
+        assertThat(result.getFlattrObject("empty").getJSONObject().length(), is(0));
+    }
+
+    /**
+     * Test that invalid data is rejected.
+     */
+    @Test
+    public void testBadData() {
+        byte[] data = FlattrObjectCodec.encode(new FlattrObject(JSON));
+
+        byte[] badVersion = data.clone();
+        badVersion[0] = 99;
+
+        for (byte[] bad : new byte[][] {badVersion, Arrays.copyOf(data, data.length - 1), new byte[0]}) {
+            try {
+                FlattrObjectCodec.decode(bad);
+                fail("bad data was accepted");
+            } catch (IOException ex) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test that corrupted lengths are rejected before anything is allocated.
+     */
+    @Test
+    public void testBadLength() {
+        byte[][] bad = new byte[][] {
+            // string of Integer.MAX_VALUE bytes
+            {1, 7, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+            // string of negative size
+            {1, 7, 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F},
+            // object with more entries than bytes
+            {1, 7, 100, 0, 1, 'a', 0},
+            // array of negative size
+            {1, 7, 1, 0, 1, 'a', 8, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08},
+        };
+
+        for (byte[] data : bad) {
+            try {
+                FlattrObjectCodec.decode(data);
+                fail("bad length was accepted");
+            } catch (StreamCorruptedException ex) {
+                // expected
+            } catch (IOException ex) {
+                fail("unexpected exception " + ex);
+            }
+        }
+    }
+
+    /**
+     * Test that encoding does not change the {@link FlattrObject}.
+     */
+    @Test
+    public void testEncodeUnchanged() {
+        FlattrObject fo = new FlattrObject(JSON);
+        FlattrObjectCodec.encode(fo);
+        assertThat(fo.toString(), is(JSON));
+    }
+
+    /**
+     * Test serialization of model objects, including strings exceeding the writeUTF()
+     * limit.
+     */
+    @Test
+    public void testSerialize() throws Exception {
+        Thing thing = ModelGenerator.createThing();
+
+        StringBuilder sb = new StringBuilder();
+        for (int ix = 0; ix < 70000; ix++) {
+            sb.append((char) ('a' + ix % 26));
+        }
+        FlattrObject large = new FlattrObject(new JSONObject());
+        large.put("description", sb.toString());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(thing);
+        oos.writeObject(large);
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        ModelGenerator.assertThing((Thing) ois.readObject());
+        assertThat(((FlattrObject) ois.readObject()).get("description"), is(sb.toString()));
+        ois.close();
+    }
+
+    /**
+     * Test that {@link FlattrObject} that were serialized as JSON string can still be
+     * read.
+     */
+    @Test
+    public void testLegacy() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeUTF(JSON);
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        FlattrObject fo = new FlattrObject();
+        fo.readExternal(ois);
+        ois.close();
+
+        assertThat(fo.getInt("id"), is(123));
+        assertThat(fo.get("title"), is("Café"));
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.shredzone.flattr4j.exception.MarshalException;
+
+/**
+ * Unit tests for {@link FlattrObject}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class FlattrObjectTest {
+
+    private static final String JSON = "{ \"id\": 123, \"big\": 12345678901, \"neg\": -7,"
+                    + " \"frac\": 1.5, \"numstr\": \"42\", \"title\": \"Caf\\u00e9 \\\"A\\/B\\\"\\n\","
+                    + " \"hidden\": false, \"flattred\":true, \"created_at\": 1305018975,"
+                    + " \"updated_at\": 0, \"deleted_at\": null,"
+                    + " \"owner\": {\"username\": \"simon_g\", \"tags\": [\"a\", \"}\"]},"
+                    + " \"tags\": [\"twitter\", \"flattr\"], \"empty\": {} }";
+
+    /**
+     * Test that the lazily decoded values are equal to the ones of a parsed JSON object.
+     */
+    @Test
+    public void testLazy() {
+        FlattrObject lazy = new FlattrObject(JSON);
+        FlattrObject parsed = new FlattrObject(new JSONObject(JSON));
+
+        for (FlattrObject fo : new FlattrObject[] {lazy, parsed}) {
+            assertThat(fo.has("id"), is(true));
+            assertThat(fo.has("deleted_at"), is(true));
+            assertThat(fo.has("foo"), is(false));
+            assertThat(fo.getInt("id"), is(123));
+            assertThat(fo.getLong("big"), is(12345678901L));
+            assertThat(fo.getInt("neg"), is(-7));
+            assertThat(fo.getInt("frac"), is(1));
+            assertThat(fo.getInt("numstr"), is(42));
+            assertThat(fo.get("title"), is("Caf\u00e9 \"A/B\"\n"));
+            assertThat(fo.getBoolean("hidden"), is(false));
+            assertThat(fo.getBoolean("flattred"), is(true));
+            assertThat(fo.getDate("created_at"), is(new Date(1305018975000L)));
+            assertThat(fo.getDate("updated_at"), is(nullValue()));
+            assertThat(fo.getDate("deleted_at"), is(nullValue()));
+            assertThat(fo.getDate("foo"), is(nullValue()));
+            assertThat(fo.getSubString("owner", "username"), is("simon_g"));
+            assertThat(fo.getStrings("tags"), contains("twitter", "flattr"));
+            assertThat(fo.getFlattrObject("owner").getStrings("tags"), contains("a", "}"));
+        }
+    }
+
+    /**
+     * Test that missing keys and wrong types are still reported.
+     */
+    @Test
+    public void testErrors() {
+        FlattrObject fo = new FlattrObject(JSON);
+        try {
+            fo.get("foo");
+            fail("missing key was accepted");
+        } catch (MarshalException ex) {
+            // expected
+        }
+
+        try {
+            fo.getInt("title");
+            fail("string was accepted as int");
+        } catch (MarshalException ex) {
+            // expected
+        }
+
+        for (String bad : new String[] {"", "[1, 2]", "{\"id\": 1", "{\"id\" 1}",
+                        "{\"id\": \"foo}", "{\"id\": 1} x", "{id: 1}"}) {
+            try {
+                new FlattrObject(bad);
+                fail("accepted bad JSON: " + bad);
+            } catch (MarshalException ex) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test that changes are applied after lazy decoding.
+     */
+    @Test
+    public void testChange() {
+        FlattrObject fo = new FlattrObject(JSON);
+        assertThat(fo.toString(), is(JSON));
+        assertThat(fo.getInt("id"), is(123));
+
+        fo.put("id", 456);
+        fo.getJSONObject().put("title", "foo");
+        assertThat(fo.getInt("id"), is(456));
+        assertThat(fo.get("title"), is("foo"));
+        assertThat(new FlattrObject(fo.toString()).getInt("id"), is(456));
+    }
+
+    /**
+     * Test serialization of a lazily decoded {@link FlattrObject}.
+     */
+    @Test
+    public void testSerialize() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(new FlattrObject(JSON));
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        FlattrObject fo = (FlattrObject) ois.readObject();
+        ois.close();
+
+        assertThat(fo.getInt("id"), is(123));
+        assertThat(fo.get("title"), is("Caf\u00e9 \"A/B\"\n"));
+        assertThat(fo.getSubString("owner", "username"), is("simon_g"));
+    }
+
+    /**
+     * Test that a shared {@link FlattrObject} can be read concurrently, while some of
+     * the readers force it to be parsed.
+     */
+    @Test
+    public void testConcurrentRead() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                final FlattrObject fo = new FlattrObject(JSON);
+                final CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+                for (int ix = 0; ix < 8; ix++) {
+                    final boolean fallback = (ix % 2 == 0);
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            start.await();
+                            for (int jx = 0; jx < 100; jx++) {
+                                if (fallback) {
+                                    fo.getFlattrObject("owner");
+                                    fo.getDate("deleted_at");
+                                }
+                                if (fo.getInt("id") != 123
+                                        || !"simon_g".equals(fo.getSubString("owner", "username"))
+                                        || fo.getBoolean("hidden")
+                                        || fo.toString() == null
+                                        || !fo.has("title")) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        }
+                    }));
+                }
+
+                start.countDown();
+                for (Future<Boolean> result : results) {
+                    assertThat(result.get(10, TimeUnit.SECONDS), is(true));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
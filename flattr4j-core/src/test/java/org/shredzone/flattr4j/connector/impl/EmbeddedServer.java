@@ -0,0 +1,122 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP server on a free local port, for unit tests that need to connect to
+ * a Flattr server.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class EmbeddedServer {
+
+    private final HttpServer server;
+
+    /**
+     * Creates a new server. Handlers must be set before it is started.
+     */
+    public EmbeddedServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    }
+
+    /**
+     * Sets the {@link HttpHandler} that handles all requests.
+     */
+    public void setHandler(HttpHandler handler) {
+        setHandler("/", handler);
+    }
+
+    /**
+     * Sets the {@link HttpHandler} that handles all requests to the given path.
+     */
+    public void setHandler(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    /**
+     * Sets the {@link Executor} that invokes the handlers. By default, all requests are
+     * handled by a single thread.
+     */
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts the server.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server immediately.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Gets the base URL of the server, with a trailing slash.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange
+     *            {@link HttpExchange} to respond to
+     * @param status
+     *            HTTP status code
+     * @param json
+     *            JSON body
+     */
+    public static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        respond(exchange, status, json.getBytes("utf-8"));
+    }
+
+    /**
+     * Sends a JSON response. Further response headers must be set before.
+     *
+     * @param exchange
+     *            {@link HttpExchange} to respond to
+     * @param status
+     *            HTTP status code
+     * @param data
+     *            UTF-8 encoded JSON body
+     */
+    public static void respond(HttpExchange exchange, int status, byte[] data) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, data.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(data);
+        out.close();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.net.URLEncoder;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EndpointTemplate}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class EndpointTemplateTest {
+
+    /**
+     * Test that paths are split into literals and placeholders.
+     */
+    @Test
+    public void testCompile() {
+        EndpointTemplate template = EndpointTemplate.compile("users/:username/things/:id/flattr");
+        assertThat(template.getParameterCount(), is(2));
+        assertThat(template.getParameterName(0), is("username"));
+        assertThat(template.getParameterName(1), is("id"));
+        assertThat(template.toString(), is("users/:username/things/:id/flattr"));
+        assertThat(template.isRelative(), is(true));
+
+        assertThat(EndpointTemplate.compile("user").getParameterCount(), is(0));
+        assertThat(EndpointTemplate.compile("things/:id"), is(sameInstance(EndpointTemplate.compile("things/:id"))));
+    }
+
+    /**
+     * Test that placeholders are replaced by their values.
+     */
+    @Test
+    public void testAppendTo() {
+        EndpointTemplate template = EndpointTemplate.compile("things/:ids/:id");
+
+        StringBuilder sb = new StringBuilder("http://localhost/");
+        template.appendTo(sb, new String[] {"1,2", "3"});
+        assertThat(sb.toString(), is("http://localhost/things/1,2/3"));
+
+        sb = new StringBuilder();
+        template.appendTo(sb, new String[] {null, "3"});
+        assertThat(sb.toString(), is("things/:ids/3"));
+
+        sb = new StringBuilder();
+        EndpointTemplate.compile(":id").appendTo(sb, new String[] {"abc"});
+        assertThat(sb.toString(), is("abc"));
+    }
+
+    /**
+     * Test detection of paths that need to be resolved.
+     */
+    @Test
+    public void testRelative() {
+        assertThat(EndpointTemplate.compile("things/:id").isRelative(), is(true));
+        assertThat(EndpointTemplate.compile("/things/:id").isRelative(), is(false));
+        assertThat(EndpointTemplate.compile("http://example.com/things").isRelative(), is(false));
+        assertThat(EndpointTemplate.compile("things?full").isRelative(), is(false));
+        assertThat(EndpointTemplate.compile("../things").isRelative(), is(false));
+        assertThat(EndpointTemplate.compile("things/./:id").isRelative(), is(false));
+    }
+
+    /**
+     * Test that the encoder gives the same result as {@link URLEncoder}.
+     */
+    @Test
+    public void testEncode() throws Exception {
+        String[] samples = {
+            "", "abcXYZ019", "hello world", ".-*_~!'()", "a+b&c=d/e?f#g%h,i:j",
+            "Körber", "\u20AC 100", "\uD83D\uDE00", "bad \uD800 surrogate", "\u0000\u007F\u0080\u07FF\u0800\uFFFF"
+        };
+
+        for (String sample : samples) {
+            StringBuilder sb = new StringBuilder();
+            EndpointTemplate.encode(sample, sb);
+            assertThat(sample, sb.toString(), is(URLEncoder.encode(sample, "utf-8")));
+        }
+    }
+
+}
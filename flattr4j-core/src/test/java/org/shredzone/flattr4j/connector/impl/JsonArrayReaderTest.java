@@ -0,0 +1,109 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link JsonArrayReader}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class JsonArrayReaderTest {
+
+    @Test
+    public void testArray() throws IOException {
+        JsonArrayReader reader = new JsonArrayReader(new StringReader(
+                        " [ {\"id\":1, \"tags\":[\"a\",\"b\"]},\n"
+                        + "{\"id\":2, \"title\":\"a, \\\"b\\\" ]}\"},"
+                        + "{\"id\":3, \"nested\":{\"foo\":[{},{}]}} ]"));
+
+        assertThat(reader.startArray(), is(true));
+
+        JSONObject first = new JSONObject(reader.nextElement());
+        assertThat(first.getInt("id"), is(1));
+        assertThat(first.getJSONArray("tags").length(), is(2));
+
+        JSONObject second = new JSONObject(reader.nextElement());
+        assertThat(second.getInt("id"), is(2));
+        assertThat(second.getString("title"), is("a, \"b\" ]}"));
+
+        JSONObject third = new JSONObject(reader.nextElement());
+        assertThat(third.getInt("id"), is(3));
+        assertThat(third.getJSONObject("nested").getJSONArray("foo").length(), is(2));
+
+        assertThat(reader.nextElement(), is(nullValue()));
+        assertThat(reader.nextElement(), is(nullValue()));
+    }
+
+    @Test
+    public void testEmptyArray() throws IOException {
+        JsonArrayReader reader = new JsonArrayReader(new StringReader("[ ]"));
+        assertThat(reader.startArray(), is(true));
+        assertThat(reader.nextElement(), is(nullValue()));
+    }
+
+    @Test
+    public void testLargeArray() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int ix = 0; ix < 1000; ix++) {
+            if (ix > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(ix).append(",\"text\":\"some text\"}");
+        }
+        sb.append(']');
+
+        JsonArrayReader reader = new JsonArrayReader(new StringReader(sb.toString()));
+        assertThat(reader.startArray(), is(true));
+
+        int count = 0;
+        String element;
+        while ((element = reader.nextElement()) != null) {
+            assertThat(new JSONObject(element).getInt("id"), is(count));
+            count++;
+        }
+        assertThat(count, is(1000));
+    }
+
+    @Test
+    public void testObject() throws IOException {
+        JsonArrayReader reader = new JsonArrayReader(new StringReader("  {\"id\":1}"));
+        assertThat(reader.startArray(), is(false));
+        assertThat(reader.nextElement(), is(nullValue()));
+        assertThat(reader.remaining(), is("{\"id\":1}"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void testUnterminated() throws IOException {
+        JsonArrayReader reader = new JsonArrayReader(new StringReader("[{\"id\":1},{\"id\":"));
+        assertThat(reader.startArray(), is(true));
+        assertThat(reader.nextElement(), is("{\"id\":1}"));
+        reader.nextElement();
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class LatencyHistogramTest {
+    private static final long MS = 1000000L;
+
+    /**
+     * Test an empty histogram.
+     */
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMean(), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getPercentile(0.99), is(0L));
+    }
+
+    /**
+     * Test the statistics and percentiles.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ix = 0; ix < 98; ix++) {
+            histogram.record(3 * MS);
+        }
+        histogram.record(100 * MS);
+        histogram.record(700 * MS);
+        histogram.record(-1L);
+
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getMax(), is(700 * MS));
+        assertThat(histogram.getMean(), is((98 * 3 * MS + 800 * MS) / 100));
+        assertThat(histogram.getPercentile(0.5), is(4 * MS));
+        assertThat(histogram.getPercentile(0.99), is(128 * MS));
+        assertThat(histogram.getPercentile(1.0), is(700 * MS));
+    }
+
+    /**
+     * Test that huge latencies do not overflow the buckets.
+     */
+    @Test
+    public void testOverflow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        assertThat(histogram.getPercentile(0.5), is(Long.MAX_VALUE / 2));
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.exception.FlattrException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link Logger}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class LoggerTest {
+    private static final String TEST_LOGGER = LoggerTest.class.getName();
+
+    private final List<LogRecord> records = new ArrayList<LogRecord>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            synchronized (records) {
+                records.add(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    };
+
+    @Before
+    public void setup() {
+        for (String name : new String[] {TEST_LOGGER, FlattrConnection.class.getName()}) {
+            java.util.logging.Logger jul = java.util.logging.Logger.getLogger(name);
+            jul.addHandler(handler);
+            jul.setLevel(Level.FINE);
+        }
+    }
+
+    @After
+    public void teardown() {
+        for (String name : new String[] {TEST_LOGGER, FlattrConnection.class.getName()}) {
+            java.util.logging.Logger jul = java.util.logging.Logger.getLogger(name);
+            jul.removeHandler(handler);
+            jul.setLevel(null);
+        }
+    }
+
+    /**
+     * Test the fixed arity methods.
+     */
+    @Test
+    public void testArguments() {
+        Logger log = new Logger("flattr4j", TEST_LOGGER);
+        assertThat(log.isVerboseEnabled(), is(true));
+        assertThat(log.isInfoEnabled(), is(true));
+        assertThat(log.isDebugEnabled(), is(false));
+
+        log.verbose("one {0}", "a");
+        log.info("two {0} {1}", "a", "b");
+        log.error("three {0} {1} {2}", "a", "b", "c");
+        log.debug("not logged", new Exception());
+
+        assertThat(records.size(), is(3));
+        assertThat(records.get(0).getLevel(), is(Level.FINE));
+        assertThat(Arrays.asList(records.get(0).getParameters()), is(contains((Object) "a")));
+        assertThat(records.get(1).getLevel(), is(Level.INFO));
+        assertThat(Arrays.asList(records.get(1).getParameters()), is(contains((Object) "a", "b")));
+        assertThat(records.get(2).getLevel(), is(Level.WARNING));
+        assertThat(Arrays.asList(records.get(2).getParameters()), is(contains((Object) "a", "b", "c")));
+    }
+
+    /**
+     * Test that arguments are not converted to strings if the level is disabled.
+     */
+    @Test
+    public void testDeferred() {
+        java.util.logging.Logger.getLogger(TEST_LOGGER).setLevel(Level.INFO);
+        Logger log = new Logger("flattr4j", TEST_LOGGER);
+        assertThat(log.isVerboseEnabled(), is(false));
+
+        Object expensive = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("toString() was invoked");
+            }
+        };
+
+        log.verbose("{0}", expensive);
+        log.verbose("{0} {1}", expensive, expensive);
+        assertThat(records.isEmpty(), is(true));
+    }
+
+    /**
+     * Test that only every n-th result row is logged.
+     */
+    @Test
+    public void testRowSampling() throws IOException, FlattrException {
+        EmbeddedServer server = new EmbeddedServer();
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                StringBuilder sb = new StringBuilder("[");
+                for (int ix = 0; ix < 25; ix++) {
+                    sb.append(ix > 0 ? "," : "").append("{\"id\":").append(ix).append('}');
+                }
+                EmbeddedServer.respond(exchange, 200, sb.append(']').toString());
+            }
+        });
+        server.start();
+
+        try {
+            FlattrConnector connector = new FlattrConnector();
+            connector.setBaseUrl(server.getBaseUrl());
+            connector.setLogSampling(10);
+            assertThat(connector.create().call("things").result().size(), is(25));
+        } finally {
+            server.stop();
+        }
+
+        List<Object> rows = new ArrayList<Object>();
+        for (LogRecord record : records) {
+            if (record.getMessage().startsWith("<- JSON result")) {
+                rows.add(record.getParameters()[1]);
+            }
+        }
+        assertThat(rows, contains((Object) "{\"id\":0}", "{\"id\":10}", "{\"id\":20}"));
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.connector.TransportResponse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link PooledTransport}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class PooledTransportTest {
+
+    private EmbeddedServer server;
+    private String baseUrl;
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (exchange.getRequestURI().getPath().startsWith("/drop")) {
+                    // Process the request, but close the connection without response
+                    read(exchange.getRequestBody());
+                    dropped.incrementAndGet();
+                    throw new IOException("connection dropped");
+                }
+
+                String json = "[{\"id\":1,\"path\":\"" + exchange.getRequestURI() + "\"}]";
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", "42");
+                if (exchange.getRequestURI().getPath().startsWith("/chunked")) {
+                    // Unknown response length, so the response is sent chunked
+                    exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(json.getBytes("utf-8"));
+                    out.close();
+                } else {
+                    EmbeddedServer.respond(exchange, 200, json);
+                }
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test that subsequent requests reuse the pooled connection.
+     */
+    @Test
+    public void testReuse() throws IOException {
+        PooledTransport transport = new PooledTransport();
+
+        for (int ix = 0; ix < 3; ix++) {
+            TransportResponse response = transport.send("GET", new URL(baseUrl + "test"),
+                            new HashMap<String, String>(), null);
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(response.getConnectTime(), is(greaterThanOrEqualTo(0L)));
+            assertThat(response.getHeader("x-ratelimit-remaining"), is("42"));
+            assertThat(read(response), is("[{\"id\":1,\"path\":\"/test\"}]"));
+            response.close();
+        }
+
+        assertThat(transport.getConnectionsCreated(), is(1L));
+        assertThat(transport.getConnectionsReused(), is(2L));
+        assertThat(transport.getIdleConnections(), is(1));
+
+        transport.shutdown();
+        assertThat(transport.getIdleConnections(), is(0));
+    }
+
+    /**
+     * Test that chunked responses are decoded, and the connection is reused afterwards.
+     */
+    @Test
+    public void testChunked() throws IOException {
+        PooledTransport transport = new PooledTransport();
+
+        for (int ix = 0; ix < 2; ix++) {
+            TransportResponse response = transport.send("GET", new URL(baseUrl + "chunked"),
+                            new HashMap<String, String>(), null);
+            assertThat(response.getStatusCode(), is(200));
+            assertThat(read(response), is("[{\"id\":1,\"path\":\"/chunked\"}]"));
+            response.close();
+        }
+
+        assertThat(transport.getConnectionsCreated(), is(1L));
+        assertThat(transport.getConnectionsReused(), is(1L));
+    }
+
+    /**
+     * Test that expired connections are evicted from the pool.
+     */
+    @Test
+    public void testEviction() throws IOException {
+        PooledTransport transport = new PooledTransport();
+        transport.setMaxLifetime(-1L);
+
+        for (int ix = 0; ix < 2; ix++) {
+            TransportResponse response = transport.send("GET", new URL(baseUrl + "test"),
+                            new HashMap<String, String>(), null);
+            read(response);
+            response.close();
+        }
+
+        assertThat(transport.getConnectionsCreated(), is(2L));
+        assertThat(transport.getConnectionsReused(), is(0L));
+        assertThat(transport.getConnectionsEvicted(), is(1L));
+    }
+
+    /**
+     * Test that the number of connections per host is limited.
+     */
+    @Test
+    public void testExhausted() throws IOException {
+        PooledTransport transport = new PooledTransport();
+        transport.setMaxConnectionsPerHost(1);
+        transport.setConnectTimeout(100);
+
+        TransportResponse response = transport.send("GET", new URL(baseUrl + "test"),
+                        new HashMap<String, String>(), null);
+        try {
+            transport.send("GET", new URL(baseUrl + "test"), new HashMap<String, String>(), null);
+            fail("pool was not exhausted");
+        } catch (IOException ex) {
+            // expected
+        }
+        response.close();
+
+        TransportResponse response2 = transport.send("GET", new URL(baseUrl + "test"),
+                        new HashMap<String, String>(), null);
+        response2.close();
+        assertThat(transport.getConnectionsCreated(), is(1L));
+    }
+
+    /**
+     * Test that a non-idempotent request is not sent again if a reused connection was
+     * closed after the request was sent.
+     */
+    @Test
+    public void testNoResendPost() throws IOException {
+        PooledTransport transport = new PooledTransport();
+
+        TransportResponse response = transport.send("POST", new URL(baseUrl + "test"),
+                        new HashMap<String, String>(), "{}".getBytes("utf-8"));
+        read(response);
+        response.close();
+
+        try {
+            transport.send("POST", new URL(baseUrl + "drop"),
+                            new HashMap<String, String>(), "{}".getBytes("utf-8"));
+            fail("dropped connection was not detected");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        assertThat(dropped.get(), is(1));
+        assertThat(transport.getConnectionsCreated(), is(1L));
+        assertThat(transport.getConnectionsReused(), is(1L));
+    }
+
+    /**
+     * Test that an idempotent request is sent again if a reused connection was closed
+     * after the request was sent.
+     */
+    @Test
+    public void testResendGet() throws IOException {
+        PooledTransport transport = new PooledTransport();
+
+        TransportResponse response = transport.send("GET", new URL(baseUrl + "test"),
+                        new HashMap<String, String>(), null);
+        read(response);
+        response.close();
+
+        try {
+            transport.send("GET", new URL(baseUrl + "drop"), new HashMap<String, String>(), null);
+            fail("dropped connection was not detected");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        assertThat(dropped.get(), is(2));
+        assertThat(transport.getConnectionsCreated(), is(2L));
+        assertThat(transport.getConnectionsEvicted(), is(1L));
+    }
+
+    /**
+     * Test that a {@link FlattrConnector} uses the transport.
+     */
+    @Test
+    public void testConnector() throws Exception {
+        PooledTransport transport = new PooledTransport();
+
+        FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(baseUrl);
+        connector.setTransport(transport);
+
+        Collection<FlattrObject> result = connector.create(RequestType.GET)
+                        .call("things/:id")
+                        .parameter("id", "123")
+                        .result();
+        assertThat(result.size(), is(1));
+        assertThat(result.iterator().next().get("path"), is("/things/123"));
+
+        FlattrObject single = connector.create().call("user").singleResult();
+        assertThat(single.get("path"), is("/user"));
+
+        assertThat(transport.getConnectionsCreated(), is(1L));
+        assertThat(transport.getConnectionsReused(), is(1L));
+    }
+
+    private static String read(TransportResponse response) throws IOException {
+        return read(response.getBody());
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16];
+        int len;
+        while ((len = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, len);
+        }
+        return out.toString("utf-8");
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+
+/**
+ * Unit tests for {@link RateLimitScheduler}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class RateLimitSchedulerTest {
+
+    /**
+     * Test that requests pass if the budget is unknown.
+     */
+    @Test
+    public void testUnknown() throws FlattrException {
+        RateLimitScheduler scheduler = new RateLimitScheduler();
+        for (int ix = 0; ix < 100; ix++) {
+            scheduler.acquire(false);
+        }
+        assertThat(scheduler.getRemaining(), is(nullValue()));
+    }
+
+    /**
+     * Test that the budget is consumed, and the reserve is kept for interactive requests.
+     */
+    @Test
+    public void testReserve() throws FlattrException {
+        RateLimitScheduler scheduler = new RateLimitScheduler();
+        scheduler.setReserve(2);
+        scheduler.setMaxWait(0L);
+        scheduler.update(rateLimit(5L, 60000L));
+
+        scheduler.acquire(false);
+        scheduler.acquire(false);
+        scheduler.acquire(false);
+        assertThat(scheduler.getRemaining(), is(2L));
+
+        try {
+            scheduler.acquire(false);
+            fail("background request was not held back");
+        } catch (RateLimitExceededException ex) {
+            // expected
+        }
+
+        scheduler.acquire(true);
+        scheduler.acquire(true);
+        assertThat(scheduler.getRemaining(), is(0L));
+
+        try {
+            scheduler.acquire(true);
+            fail("interactive request was not held back");
+        } catch (RateLimitExceededException ex) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that requests wait until the budget is reset.
+     */
+    @Test
+    public void testWaitForReset() throws FlattrException {
+        RateLimitScheduler scheduler = new RateLimitScheduler();
+        scheduler.setReserve(0);
+        scheduler.update(rateLimit(0L, 300L));
+
+        long start = System.currentTimeMillis();
+        scheduler.acquire(false);
+        assertThat(System.currentTimeMillis() - start, is(greaterThanOrEqualTo(250L)));
+        assertThat(scheduler.getRemaining(), is(9L));
+    }
+
+    /**
+     * Test that a server update releases waiting requests.
+     */
+    @Test
+    public void testUpdate() throws Exception {
+        final RateLimitScheduler scheduler = new RateLimitScheduler();
+        scheduler.update(rateLimit(0L, 60000L));
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200L);
+                } catch (InterruptedException ex) {
+                    // ignore
+                }
+                scheduler.update(rateLimit(5L, 60000L));
+            }
+        };
+        thread.start();
+
+        scheduler.acquire(true);
+        assertThat(scheduler.getRemaining(), is(4L));
+        thread.join();
+    }
+
+    private static RateLimit rateLimit(long remaining, long resetIn) {
+        RateLimit limit = new RateLimit();
+        limit.setLimit(10L);
+        limit.setRemaining(remaining);
+        limit.setReset(new Date(System.currentTimeMillis() + resetIn));
+        return limit;
+    }
+
+}
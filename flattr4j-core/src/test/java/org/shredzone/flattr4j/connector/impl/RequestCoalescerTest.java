@@ -0,0 +1,228 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link RequestCoalescer}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class RequestCoalescerTest {
+
+    private EmbeddedServer server;
+    private String baseUrl;
+    private ExecutorService executor;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+
+                EmbeddedServer.respond(exchange, 200, "{\"path\":\"" + exchange.getRequestURI().getPath() + "\"}");
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void stopServer() {
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    /**
+     * Test that concurrent identical requests share a single call.
+     */
+    @Test
+    public void testCoalesce() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(baseUrl);
+        connector.setCoalescer(coalescer);
+
+        List<Future<FlattrObject>> futures = new ArrayList<Future<FlattrObject>>();
+        for (int ix = 0; ix < 5; ix++) {
+            futures.add(executor.submit(new Callable<FlattrObject>() {
+                @Override
+                public FlattrObject call() throws FlattrException {
+                    return connector.create().call("things/1").singleResult();
+                }
+            }));
+        }
+
+        awaitCoalesced(coalescer, 4);
+        release.countDown();
+
+        List<FlattrObject> results = new ArrayList<FlattrObject>();
+        for (Future<FlattrObject> future : futures) {
+            FlattrObject result = future.get(5, TimeUnit.SECONDS);
+            assertThat(result.get("path"), is("/things/1"));
+            for (FlattrObject other : results) {
+                assertThat(result, not(sameInstance(other)));
+            }
+            results.add(result);
+        }
+
+        assertThat(requests.get(), is(1));
+        assertThat(coalescer.getInFlight(), is(0));
+
+        // Sequential requests are not coalesced
+        Collection<FlattrObject> again = connector.create().call("things/1").result();
+        assertThat(again.size(), is(1));
+        assertThat(requests.get(), is(2));
+    }
+
+    /**
+     * Test that all waiting requests get the exception of the failed request.
+     */
+    @Test
+    public void testFailure() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CountDownLatch fail = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        final Callable<List<String>> call = new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                calls.incrementAndGet();
+                fail.await(5, TimeUnit.SECONDS);
+                throw new NotFoundException("not_found", "thing not found");
+            }
+        };
+
+        List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+        for (int ix = 0; ix < 3; ix++) {
+            futures.add(executor.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws FlattrException {
+                    return coalescer.execute("GET things/404", call);
+                }
+            }));
+        }
+
+        awaitCoalesced(coalescer, 2);
+        fail.countDown();
+
+        for (Future<List<String>> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("no exception was thrown");
+            } catch (ExecutionException ex) {
+                assertThat(ex.getCause(), is(instanceOf(NotFoundException.class)));
+            }
+        }
+
+        assertThat(calls.get(), is(1));
+        assertThat(coalescer.execute("GET things/1", new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return Arrays.asList("{}");
+            }
+        }), contains("{}"));
+    }
+
+    /**
+     * Test that the access token is neither used as key nor exposed in exceptions.
+     */
+    @Test
+    public void testTokenNotExposed() throws Exception {
+        final String secret = "s3cr3t-t0k3n";
+        final List<String> keys = new ArrayList<String>();
+
+        RequestCoalescer coalescer = new RequestCoalescer() {
+            @Override
+            public List<String> execute(String key, Callable<List<String>> call) throws FlattrException {
+                keys.add(key);
+                return super.execute(key, call);
+            }
+        };
+
+        FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(baseUrl);
+        connector.setCoalescer(coalescer);
+        connector.setAccessToken(new AccessToken(secret));
+        release.countDown();
+
+        connector.create().call("things/1").singleResult();
+        assertThat(keys.size(), is(1));
+        assertThat(keys.get(0), not(containsString(secret)));
+
+        try {
+            coalescer.execute(keys.get(0) + ' ' + secret, new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    throw new IOException("connection reset");
+                }
+            });
+            fail("no exception was thrown");
+        } catch (FlattrException ex) {
+            assertThat(ex.getMessage(), not(containsString(secret)));
+            assertThat(ex.getCause(), is(instanceOf(IOException.class)));
+        }
+    }
+
+    private static void awaitCoalesced(RequestCoalescer coalescer, long count) throws InterruptedException {
+        for (int ix = 0; ix < 500 && coalescer.getCoalesced() < count; ix++) {
+            Thread.sleep(10);
+        }
+        assertThat(coalescer.getCoalesced(), is(count));
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.FlattrServiceException;
+import org.shredzone.flattr4j.exception.RateLimitExceededException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link RetryPolicy}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class RetryPolicyTest {
+
+    private EmbeddedServer server;
+    private String baseUrl;
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile int failureStatus;
+    private volatile String failureError;
+    private volatile boolean rateLimitHeaders;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+
+                int status = 200;
+                String body = "{\"result\":\"ok\"}";
+                if (failures.getAndDecrement() > 0) {
+                    status = failureStatus;
+                    body = "{\"error\":\"" + failureError + "\",\"error_description\":\"failed\"}";
+                }
+
+                if (rateLimitHeaders) {
+                    long reset = System.currentTimeMillis() / 1000L + 1800L;
+                    exchange.getResponseHeaders().add("X-RateLimit-Limit", "1000");
+                    exchange.getResponseHeaders().add("X-RateLimit-Remaining", "999");
+                    exchange.getResponseHeaders().add("X-RateLimit-Current", "1");
+                    exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(reset));
+                }
+                EmbeddedServer.respond(exchange, status, body);
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test which request types are idempotent by default.
+     */
+    @Test
+    public void testIdempotent() {
+        RetryPolicy policy = new RetryPolicy();
+        assertThat(policy.isIdempotent(RequestType.GET), is(true));
+        assertThat(policy.isIdempotent(RequestType.DELETE), is(true));
+        assertThat(policy.isIdempotent(RequestType.PUT), is(false));
+        assertThat(policy.isIdempotent(RequestType.POST), is(false));
+    }
+
+    /**
+     * Test the retry decisions on connection failures.
+     */
+    @Test
+    public void testConnectionFailure() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setInitialDelay(100L);
+
+        assertThat(policy.getRetryDelay(1, true, new SocketTimeoutException()),
+                        allOf(greaterThanOrEqualTo(50L), lessThanOrEqualTo(100L)));
+        assertThat(policy.getRetryDelay(2, true, new SocketTimeoutException()),
+                        allOf(greaterThanOrEqualTo(100L), lessThanOrEqualTo(200L)));
+        assertThat(policy.getRetryDelay(3, true, new SocketTimeoutException()), is(-1L));
+
+        assertThat(policy.getRetryDelay(1, false, new SocketTimeoutException()), is(-1L));
+        assertThat(policy.getRetryDelay(1, false, new ConnectException()),
+                        is(greaterThanOrEqualTo(50L)));
+    }
+
+    /**
+     * Test the retry decisions on error responses.
+     */
+    @Test
+    public void testErrorResponse() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setInitialDelay(100L);
+        policy.setMaxDelay(10000L);
+
+        FlattrException serverError = new FlattrServiceException("server_error", "failed");
+        FlattrException rateLimit = new RateLimitExceededException("rate_limit_exceeded", "failed");
+
+        assertThat(policy.getRetryDelay(1, true, 503, serverError, null),
+                        is(greaterThanOrEqualTo(50L)));
+        assertThat(policy.getRetryDelay(1, true, 404, serverError, null), is(-1L));
+        assertThat(policy.getRetryDelay(1, false, 503, serverError, null), is(-1L));
+        assertThat(policy.getRetryDelay(1, false, 400, rateLimit, null),
+                        is(greaterThanOrEqualTo(50L)));
+
+        Date soon = new Date(System.currentTimeMillis() + 5000L);
+        assertThat(policy.getRetryDelay(1, false, 429, rateLimit, soon),
+                        allOf(greaterThan(4000L), lessThanOrEqualTo(5000L)));
+
+        Date late = new Date(System.currentTimeMillis() + 60000L);
+        assertThat(policy.getRetryDelay(1, false, 429, rateLimit, late), is(-1L));
+    }
+
+    /**
+     * Test that a GET request is retried on a temporary server error.
+     */
+    @Test
+    public void testRetryGet() throws FlattrException {
+        failures.set(2);
+        failureStatus = 503;
+        failureError = "server_error";
+
+        FlattrObject result = createConnector().create(RequestType.GET).call("test").singleResult();
+        assertThat(result.get("result"), is("ok"));
+        assertThat(requests.get(), is(3));
+    }
+
+    /**
+     * Test that a GET request is retried on a temporary server error, even if the
+     * response carries the rate limit headers that Flattr sends with every response.
+     */
+    @Test
+    public void testRetryGetWithRateLimitHeaders() throws FlattrException {
+        failures.set(1);
+        failureStatus = 503;
+        failureError = "server_error";
+        rateLimitHeaders = true;
+
+        FlattrObject result = createConnector().create(RequestType.GET).call("test").singleResult();
+        assertThat(result.get("result"), is("ok"));
+        assertThat(requests.get(), is(2));
+    }
+
+    /**
+     * Test that a POST request is not retried on a temporary server error.
+     */
+    @Test
+    public void testNoRetryPost() {
+        failures.set(1);
+        failureStatus = 503;
+        failureError = "server_error";
+
+        try {
+            createConnector().create(RequestType.POST).call("test").singleResult();
+            fail("request was retried");
+        } catch (FlattrException ex) {
+            assertThat(ex, instanceOf(FlattrServiceException.class));
+        }
+        assertThat(requests.get(), is(1));
+    }
+
+    /**
+     * Test that a PUT request that was sent is not retried, as it might toggle a state.
+     */
+    @Test
+    public void testNoRetryPut() {
+        failures.set(1);
+        failureStatus = 503;
+        failureError = "server_error";
+
+        try {
+            createConnector().create(RequestType.PUT).call("test").singleResult();
+            fail("request was retried");
+        } catch (FlattrException ex) {
+            assertThat(ex, instanceOf(FlattrServiceException.class));
+        }
+        assertThat(requests.get(), is(1));
+    }
+
+    /**
+     * Test that a PUT request is retried if it was marked as idempotent.
+     */
+    @Test
+    public void testRetryIdempotentPut() throws FlattrException {
+        failures.set(1);
+        failureStatus = 503;
+        failureError = "server_error";
+
+        FlattrConnection conn = (FlattrConnection) createConnector().create(RequestType.PUT);
+        FlattrObject result = conn.idempotent().call("test").singleResult();
+        assertThat(result.get("result"), is("ok"));
+        assertThat(requests.get(), is(2));
+    }
+
+    /**
+     * Test that a POST request is retried when the rate limit was exceeded.
+     */
+    @Test
+    public void testRetryRateLimit() throws FlattrException {
+        failures.set(1);
+        failureStatus = 429;
+        failureError = "rate_limit_exceeded";
+
+        FlattrObject result = createConnector().create(RequestType.POST).call("test").singleResult();
+        assertThat(result.get("result"), is("ok"));
+        assertThat(requests.get(), is(2));
+    }
+
+    private FlattrConnector createConnector() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setInitialDelay(10L);
+
+        FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(baseUrl);
+        connector.setRetryPolicy(policy);
+        return connector;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link StatisticsMetricsListener}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class StatisticsMetricsListenerTest {
+
+    private EmbeddedServer server;
+    private FlattrConnector connector;
+    private StatisticsMetricsListener listener;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int status = 200;
+                StringBuilder body = new StringBuilder("[");
+                if (exchange.getRequestURI().getPath().endsWith("/404")) {
+                    status = 404;
+                    body = new StringBuilder("{\"error\":\"not_found\",\"error_description\":\"not found\"");
+                } else {
+                    for (int ix = 0; ix < 100; ix++) {
+                        body.append(ix > 0 ? "," : "").append("{\"id\":").append(ix).append(",\"title\":\"Thing\"}");
+                    }
+                }
+                body.append(status == 200 ? "]" : "}");
+
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                GZIPOutputStream gz = new GZIPOutputStream(bos);
+                gz.write(body.toString().getBytes("utf-8"));
+                gz.close();
+                byte[] data = bos.toByteArray();
+
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", "42");
+                exchange.getResponseHeaders().add("X-RateLimit-Limit", "100");
+                EmbeddedServer.respond(exchange, status, data);
+            }
+        });
+        server.start();
+
+        listener = new StatisticsMetricsListener();
+        connector = new FlattrConnector();
+        connector.setBaseUrl(server.getBaseUrl());
+        connector.setMetricsListener(listener);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test that the metrics of successful and failed requests are collected.
+     */
+    @Test
+    public void testStatistics() throws FlattrException {
+        for (int ix = 0; ix < 3; ix++) {
+            assertThat(connector.create().call("things/:id").parameter("id", String.valueOf(ix))
+                            .result().size(), is(100));
+        }
+
+        try {
+            connector.create().call("things/:id").parameter("id", "404").result();
+            fail("no exception was thrown");
+        } catch (NotFoundException ex) {
+            // expected
+        }
+
+        EndpointStatistics stats = listener.getStatistics("GET things/:id");
+        assertThat(stats, is(notNullValue()));
+        assertThat(stats.getRequests(), is(4L));
+        assertThat(stats.getFailures(), is(1L));
+        assertThat(stats.getRetries(), is(0L));
+        assertThat(stats.getStatusCodes().get(200), is(3L));
+        assertThat(stats.getStatusCodes().get(404), is(1L));
+        assertThat(stats.getErrorCodes().get("not_found"), is(1L));
+        assertThat(stats.getTotalTime().getCount(), is(4L));
+        assertThat(stats.getTotalTime().getMax(), is(greaterThan(0L)));
+        assertThat(stats.getFirstByteTime().getMax(), is(lessThanOrEqualTo(stats.getTotalTime().getMax())));
+        assertThat(stats.getConnectTime().getCount(), is(4L));
+        assertThat(stats.getConnectTime().getMax(), is(lessThanOrEqualTo(stats.getFirstByteTime().getMax())));
+        assertThat(stats.getContentBytes(), is(greaterThan(stats.getResponseBytes())));
+        assertThat(stats.getCompressionRatio(), is(greaterThan(0.0)));
+        assertThat(stats.getCompressionRatio(), is(lessThan(1.0)));
+
+        assertThat(listener.getRateLimit().getRemaining(), is(42L));
+        assertThat(listener.getRateLimit().getLimit(), is(100L));
+        assertThat(listener.getStatistics("POST things/:id"), is(nullValue()));
+        assertThat(listener.getStatistics().size(), is(1));
+
+        connector.create(RequestType.POST).call("things/1/flattr").result();
+        assertThat(listener.getStatistics("POST things/1/flattr").getRequests(), is(1L));
+
+        listener.reset();
+        assertThat(listener.getStatistics().size(), is(0));
+    }
+
+}
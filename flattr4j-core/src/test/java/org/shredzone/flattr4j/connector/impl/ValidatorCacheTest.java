@@ -0,0 +1,171 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.connector.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.RequestType;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.oauth.AccessToken;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link ValidatorCache}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class ValidatorCacheTest {
+
+    private EmbeddedServer server;
+    private String baseUrl;
+    private volatile String version = "v1";
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setHandler(new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String etag = "\"" + version + "\"";
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                fullResponses.incrementAndGet();
+                String path = exchange.getRequestURI().getPath();
+                EmbeddedServer.respond(exchange, 200, "[{\"path\":\"" + path + "\",\"version\":\""
+                                + version + "\"},{\"path\":\"" + path + "\"}]");
+            }
+        });
+        server.start();
+        baseUrl = server.getBaseUrl();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test that unmodified resources are taken from the cache.
+     */
+    @Test
+    public void testNotModified() throws FlattrException {
+        FlattrConnector connector = createConnector(new ValidatorCache());
+
+        Collection<FlattrObject> result1 = connector.create().call("things/1").result();
+        assertThat(result1.size(), is(2));
+        result1.iterator().next().put("path", "changed");
+
+        Collection<FlattrObject> result2 = connector.create().call("things/1").result();
+        assertThat(result2.size(), is(2));
+        assertThat(result2.iterator().next().get("path"), is("/things/1"));
+        assertThat(result2.iterator().next().get("version"), is("v1"));
+
+        assertThat(fullResponses.get(), is(1));
+        assertThat(notModified.get(), is(1));
+    }
+
+    /**
+     * Test that modified resources are fetched again.
+     */
+    @Test
+    public void testModified() throws FlattrException {
+        FlattrConnector connector = createConnector(new ValidatorCache());
+
+        connector.create().call("things/1").result();
+        version = "v2";
+        Collection<FlattrObject> result = connector.create().call("things/1").result();
+        assertThat(result.iterator().next().get("version"), is("v2"));
+
+        connector.create().call("things/1").result();
+        assertThat(fullResponses.get(), is(2));
+        assertThat(notModified.get(), is(1));
+    }
+
+    /**
+     * Test that the cache distinguishes between URLs and access tokens, and that only
+     * GET requests are cached.
+     */
+    @Test
+    public void testKeys() throws FlattrException {
+        ValidatorCache cache = new ValidatorCache();
+        FlattrConnector connector = createConnector(cache);
+
+        connector.create().call("things/1").result();
+        connector.create().call("things/2").result();
+        connector.create(RequestType.POST).call("things/2/flattr").result();
+        connector.create(RequestType.POST).call("things/2/flattr").result();
+        assertThat(cache.getSize(), is(2));
+
+        connector.setAccessToken(new AccessToken("abc123"));
+        connector.create().call("things/1").result();
+        assertThat(cache.getSize(), is(3));
+
+        assertThat(fullResponses.get(), is(5));
+        assertThat(notModified.get(), is(0));
+    }
+
+    /**
+     * Test that the least recently used entry is evicted.
+     */
+    @Test
+    public void testEviction() {
+        ValidatorCache cache = new ValidatorCache(2);
+        cache.put("a", "\"a\"", null, Collections.<String>emptyList());
+        cache.put("b", null, "Mon, 01 May 2017 00:00:00 GMT", Arrays.asList("{}"));
+        cache.get("a");
+        cache.put("c", "\"c\"", null, Collections.<String>emptyList());
+
+        assertThat(cache.getSize(), is(2));
+        assertThat(cache.get("a").getETag(), is("\"a\""));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("c").getETag(), is("\"c\""));
+
+        cache.put("c", null, null, Collections.<String>emptyList());
+        assertThat(cache.get("c"), is(nullValue()));
+    }
+
+    private FlattrConnector createConnector(ValidatorCache cache) {
+        FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(baseUrl);
+        connector.setValidatorCache(cache);
+        return connector;
+    }
+
+}
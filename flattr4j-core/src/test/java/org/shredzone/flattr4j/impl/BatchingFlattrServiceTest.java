@@ -0,0 +1,157 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+
+/**
+ * Unit tests for {@link BatchingFlattrService}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class BatchingFlattrServiceTest {
+
+    private FlattrService mockService;
+    private BatchingFlattrService service;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() throws FlattrException {
+        mockService = mock(FlattrService.class);
+        when(mockService.getThings(any(Collection.class))).thenAnswer(new Answer<List<Thing>>() {
+            @Override
+            public List<Thing> answer(InvocationOnMock invocation) throws Throwable {
+                List<Thing> result = new ArrayList<Thing>();
+                for (Object thingId : (Collection<?>) invocation.getArguments()[0]) {
+                    String id = ((ThingId) thingId).getThingId();
+                    if (!"404".equals(id)) {
+                        result.add(createThing(id));
+                    }
+                }
+                return result;
+            }
+        });
+        when(mockService.getThing(any(ThingId.class))).thenAnswer(new Answer<Thing>() {
+            @Override
+            public Thing answer(InvocationOnMock invocation) throws Throwable {
+                return createThing(((ThingId) invocation.getArguments()[0]).getThingId());
+            }
+        });
+
+        service = new BatchingFlattrService(mockService);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that concurrent calls are fetched in a single batch.
+     */
+    @Test
+    public void testBatch() throws Exception {
+        service.setWindow(500L);
+        service.setMaxBatchSize(4);
+
+        List<Future<Thing>> futures = new ArrayList<Future<Thing>>();
+        for (String id : new String[] {"1", "2", "404", "2"}) {
+            futures.add(submit(id));
+        }
+
+        assertThat(futures.get(0).get(5, TimeUnit.SECONDS).getThingId(), is("1"));
+        assertThat(futures.get(1).get(5, TimeUnit.SECONDS).getThingId(), is("2"));
+        try {
+            futures.get(2).get(5, TimeUnit.SECONDS);
+            fail("no exception was thrown");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), is(instanceOf(NotFoundException.class)));
+        }
+        assertThat(futures.get(3).get(5, TimeUnit.SECONDS).getThingId(), is("2"));
+        assertThat(futures.get(3).get(), not(sameInstance(futures.get(1).get())));
+
+        verify(mockService, times(1)).getThings(any(Collection.class));
+        verify(mockService, never()).getThing(any(ThingId.class));
+    }
+
+    /**
+     * Test that a single call is delegated to getThing after the window has elapsed.
+     */
+    @Test
+    public void testSingle() throws FlattrException {
+        service.setWindow(20L);
+
+        Thing thing = service.getThing(Thing.withId("1"));
+        assertThat(thing.getThingId(), is("1"));
+
+        verify(mockService, times(1)).getThing(any(ThingId.class));
+        verify(mockService, never()).getThings(any(Collection.class));
+    }
+
+    /**
+     * Test that batching can be disabled.
+     */
+    @Test
+    public void testDisabled() throws FlattrException {
+        service.setWindow(0L);
+        service.getThing(Thing.withId("1"));
+        service.getThing(Thing.withId("2"));
+        verify(mockService, times(2)).getThing(any(ThingId.class));
+    }
+
+    private Future<Thing> submit(final String id) {
+        return executor.submit(new Callable<Thing>() {
+            @Override
+            public Thing call() throws FlattrException {
+                return service.getThing(Thing.withId(id));
+            }
+        });
+    }
+
+    private static Thing createThing(String id) {
+        return new Thing(new FlattrObject("{\"id\":" + id + ",\"title\":\"Thing " + id + "\"}"));
+    }
+
+}
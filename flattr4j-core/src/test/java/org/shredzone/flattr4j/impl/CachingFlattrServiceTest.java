@@ -0,0 +1,194 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+import org.shredzone.flattr4j.model.User;
+import org.shredzone.flattr4j.model.UserId;
+
+/**
+ * Unit tests for {@link CachingFlattrService}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class CachingFlattrServiceTest {
+
+    private FlattrService mockService;
+    private CachingFlattrService service;
+
+    @Before
+    public void setup() throws FlattrException {
+        mockService = mock(FlattrService.class);
+        when(mockService.getThing(any(ThingId.class))).thenAnswer(new Answer<Thing>() {
+            @Override
+            public Thing answer(InvocationOnMock invocation) throws Throwable {
+                ThingId thingId = (ThingId) invocation.getArguments()[0];
+                if ("404".equals(thingId.getThingId())) {
+                    throw new NotFoundException("not_found", "thing not found");
+                }
+                return new Thing(new FlattrObject("{\"id\":" + thingId.getThingId() + ",\"title\":\"Title\"}"));
+            }
+        });
+
+        service = new CachingFlattrService(mockService, 2);
+    }
+
+    /**
+     * Test that things are cached, and copies are returned.
+     */
+    @Test
+    public void testThing() throws FlattrException {
+        Thing t1 = service.getThing(Thing.withId("1"));
+        t1.setTitle("Changed");
+
+        Thing t2 = service.getThing(Thing.withId("1"));
+        assertThat(t2.getTitle(), is("Title"));
+        assertThat(t2, not(sameInstance(t1)));
+
+        verify(mockService, times(1)).getThing(any(ThingId.class));
+        assertThat(service.getHits(), is(1L));
+        assertThat(service.getMisses(), is(1L));
+    }
+
+    /**
+     * Test that a {@link NotFoundException} is cached.
+     */
+    @Test
+    public void testNotFound() throws FlattrException {
+        for (int ix = 0; ix < 2; ix++) {
+            try {
+                service.getThing(Thing.withId("404"));
+                fail("no exception was thrown");
+            } catch (NotFoundException ex) {
+                assertThat(ex.getCode(), is("not_found"));
+            }
+        }
+
+        verify(mockService, times(1)).getThing(any(ThingId.class));
+    }
+
+    /**
+     * Test that the least recently used entry is evicted.
+     */
+    @Test
+    public void testEviction() throws FlattrException {
+        service.getThing(Thing.withId("1"));
+        service.getThing(Thing.withId("2"));
+        service.getThing(Thing.withId("1"));
+        service.getThing(Thing.withId("3"));
+        assertThat(service.getSize(), is(2));
+
+        service.getThing(Thing.withId("1"));
+        verify(mockService, times(3)).getThing(any(ThingId.class));
+
+        service.getThing(Thing.withId("2"));
+        verify(mockService, times(4)).getThing(any(ThingId.class));
+    }
+
+    /**
+     * Test that writes invalidate the cached thing.
+     */
+    @Test
+    public void testInvalidation() throws FlattrException {
+        Thing thing = service.getThing(Thing.withId("1"));
+        service.flattr(thing);
+        service.getThing(Thing.withId("1"));
+        verify(mockService, times(2)).getThing(any(ThingId.class));
+
+        service.update(thing);
+        service.getThing(Thing.withId("1"));
+        verify(mockService, times(3)).getThing(any(ThingId.class));
+
+        service.pauseSubscription(thing, true);
+        service.getThing(Thing.withId("1"));
+        verify(mockService, times(4)).getThing(any(ThingId.class));
+    }
+
+    /**
+     * Test that expired entries are not used.
+     */
+    @Test
+    public void testTtl() throws FlattrException {
+        service.setThingTtl(0L);
+        service.getThing(Thing.withId("1"));
+        service.getThing(Thing.withId("1"));
+        verify(mockService, times(2)).getThing(any(ThingId.class));
+    }
+
+    /**
+     * Test that users are cached, and copies are returned.
+     */
+    @Test
+    public void testUser() throws FlattrException {
+        User user = new User(new FlattrObject("{\"username\":\"simon_g\"}"));
+        when(mockService.getUser(any(UserId.class))).thenReturn(user);
+
+        User u1 = service.getUser(User.withId("simon_g"));
+        User u2 = service.getUser(User.withId("simon_g"));
+        assertThat(u1.getUsername(), is("simon_g"));
+        assertThat(u1, not(sameInstance(user)));
+        assertThat(u2, not(sameInstance(u1)));
+        assertThat(u2.toFlattrObject(), not(sameInstance(u1.toFlattrObject())));
+        verify(mockService, times(1)).getUser(any(UserId.class));
+    }
+
+    /**
+     * Test that categories are cached, and unmodifiable copies are returned.
+     */
+    @Test
+    public void testCategories() throws FlattrException {
+        List<Category> categories = new ArrayList<Category>();
+        categories.add(new Category(new FlattrObject("{\"id\":\"text\",\"text\":\"Text\"}")));
+        when(mockService.getCategories()).thenReturn(categories);
+
+        List<Category> c1 = service.getCategories();
+        try {
+            c1.clear();
+            fail("list is modifiable");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+        c1.get(0).toFlattrObject().put("text", "Changed");
+
+        List<Category> c2 = service.getCategories();
+        assertThat(c2, contains(categories.get(0)));
+        assertThat(c2.get(0).getName(), is("Text"));
+        assertThat(c2.get(0), not(sameInstance(categories.get(0))));
+        verify(mockService, times(1)).getCategories();
+    }
+
+}
@@ -0,0 +1,335 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.connector.impl.EmbeddedServer;
+import org.shredzone.flattr4j.connector.impl.FlattrConnector;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.model.Subscription;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Unit tests for {@link FlattrServiceImpl}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class FlattrServiceImplTest {
+
+    private EmbeddedServer server;
+    private FlattrServiceImpl service;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final Map<String, Boolean> subscriptions = Collections.synchronizedMap(new TreeMap<String, Boolean>());
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EmbeddedServer();
+        server.setHandler("/things/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String ids = exchange.getRequestURI().getPath().substring("/things/".length());
+                requests.add(ids);
+
+                if (ids.endsWith("/subscriptions")) {
+                    String id = ids.substring(0, ids.indexOf('/'));
+                    String method = exchange.getRequestMethod();
+                    String result = "{}";
+                    if ("POST".equals(method)) {
+                        subscriptions.put(id, true);
+                    } else if ("DELETE".equals(method)) {
+                        subscriptions.remove(id);
+                    } else if ("PUT".equals(method)) {
+                        boolean active = !subscriptions.get(id);
+                        subscriptions.put(id, active);
+                        result = "{\"message\":\"" + (active ? "active" : "paused") + "\"}";
+                    }
+                    EmbeddedServer.respond(exchange, 200, result);
+                    return;
+                }
+
+                // Return the things in reverse order, and skip unknown things
+                List<String> idList = Arrays.asList(ids.split(","));
+                Collections.reverse(idList);
+
+                StringBuilder sb = new StringBuilder("[");
+                for (String id : idList) {
+                    if (!"999".equals(id)) {
+                        if (sb.length() > 1) {
+                            sb.append(',');
+                        }
+                        sb.append("{\"id\":").append(id).append('}');
+                    }
+                }
+                sb.append(']');
+
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(1000 - requests.size()));
+                EmbeddedServer.respond(exchange, 200, sb.toString());
+            }
+        });
+        server.setHandler("/user/subscriptions", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.add("subscriptions");
+
+                StringBuilder sb = new StringBuilder("[");
+                synchronized (subscriptions) {
+                    for (Map.Entry<String, Boolean> entry : subscriptions.entrySet()) {
+                        if (sb.length() > 1) {
+                            sb.append(',');
+                        }
+                        sb.append("{\"thing\":{\"id\":").append(entry.getKey())
+                          .append("},\"active\":").append(entry.getValue()).append('}');
+                    }
+                }
+                sb.append(']');
+                EmbeddedServer.respond(exchange, 200, sb.toString());
+            }
+        });
+        server.start();
+
+        FlattrConnector connector = new FlattrConnector();
+        connector.setBaseUrl(server.getBaseUrl());
+        service = new FlattrServiceImpl(connector);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test that small collections are fetched by a single request.
+     */
+    @Test
+    public void testGetThings() throws Exception {
+        List<Thing> things = service.getThings(ids("3", "1", "999", "2", "1"));
+
+        assertThat(requests, contains("3,1,999,2"));
+        assertThat(idsOf(things), contains("3", "1", "2"));
+        assertThat(service.getLastRateLimit().getRemaining(), is(999L));
+    }
+
+    /**
+     * Test that large collections are fetched in chunks.
+     */
+    @Test
+    public void testChunks() throws Exception {
+        service.setChunkSize(2);
+
+        List<Thing> things = service.getThings(ids("5", "4", "3", "2", "1"));
+
+        assertThat(requests, contains("5,4", "3,2", "1"));
+        assertThat(idsOf(things), contains("5", "4", "3", "2", "1"));
+    }
+
+    /**
+     * Test that chunks are fetched concurrently if an executor is set.
+     */
+    @Test
+    public void testConcurrentChunks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            service.setChunkSize(3);
+            service.setExecutor(executor);
+
+            List<ThingId> ids = new ArrayList<ThingId>();
+            for (int ix = 100; ix > 0; ix--) {
+                ids.add(Thing.withId(String.valueOf(ix)));
+            }
+            ids.add(Thing.withId("50"));
+            ids.add(Thing.withId("999"));
+
+            List<Thing> things = service.getThings(ids);
+
+            assertThat(requests.size(), is(34));
+            assertThat(things.size(), is(100));
+            for (int ix = 0; ix < 100; ix++) {
+                assertThat(things.get(ix).getThingId(), is(String.valueOf(100 - ix)));
+            }
+            assertThat(service.getLastRateLimit().getRemaining(),
+                            allOf(greaterThanOrEqualTo(966L), lessThan(1000L)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that fetching chunks does not deadlock if it is invoked by a thread of the
+     * executor itself.
+     */
+    @Test
+    public void testChunksInExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            service.setChunkSize(2);
+            service.setExecutor(executor);
+
+            Future<List<Thing>> future = executor.submit(new Callable<List<Thing>>() {
+                @Override
+                public List<Thing> call() throws Exception {
+                    return service.getThings(ids("5", "4", "3", "2", "1"));
+                }
+            });
+
+            List<Thing> things = future.get(10, TimeUnit.SECONDS);
+            assertThat(requests.size(), is(3));
+            assertThat(idsOf(things), contains("5", "4", "3", "2", "1"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that the rate limit is tracked per thread.
+     */
+    @Test
+    public void testThreadRateLimit() throws Exception {
+        assertThat(service.getThreadRateLimit(), is(nullValue()));
+
+        service.getThings(ids("1"));
+        final RateLimit mainLimit = service.getThreadRateLimit();
+        assertThat(mainLimit.getRemaining(), is(999L));
+        assertThat(service.getLastRateLimit().getRemaining(), is(999L));
+
+        final RateLimit[] threadLimit = new RateLimit[2];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    threadLimit[0] = service.getThreadRateLimit();
+                    service.getThings(ids("2"));
+                    threadLimit[1] = service.getThreadRateLimit();
+                } catch (FlattrException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertThat(threadLimit[0], is(nullValue()));
+        assertThat(threadLimit[1].getRemaining(), is(998L));
+        assertThat(service.getLastRateLimit().getRemaining(), is(998L));
+        assertThat(service.getThreadRateLimit().getRemaining(), is(999L));
+
+        service.clearThreadRateLimit();
+        assertThat(service.getThreadRateLimit(), is(nullValue()));
+    }
+
+    /**
+     * Test that the rate limit snapshots cannot be changed by the caller.
+     */
+    @Test
+    public void testRateLimitCopies() throws Exception {
+        service.getThings(ids("1"));
+
+        RateLimit last = service.getLastRateLimit();
+        last.setRemaining(0L);
+        assertThat(service.getLastRateLimit(), is(not(sameInstance(last))));
+        assertThat(service.getLastRateLimit().getRemaining(), is(999L));
+
+        RateLimit thread = service.getThreadRateLimit();
+        thread.setRemaining(0L);
+        assertThat(service.getThreadRateLimit().getRemaining(), is(999L));
+    }
+
+    /**
+     * Test that subscriptions are looked up in the index.
+     */
+    @Test
+    public void testSubscriptionIndex() throws Exception {
+        subscriptions.put("1", true);
+        subscriptions.put("2", false);
+
+        // getMySubscriptions() does not fill the index
+        assertThat(service.getMySubscriptions().size(), is(2));
+        assertThat(service.getSubscription(Thing.withId("1")).isActive(), is(true));
+        assertThat(service.getSubscription(Thing.withId("2")).isActive(), is(false));
+        assertThat(service.getSubscription(Thing.withId("3")), is(nullValue()));
+        assertThat(requests, contains("subscriptions", "subscriptions"));
+
+        requests.clear();
+        service.pauseSubscription(Thing.withId("1"), true);
+        service.unsubscribe(Thing.withId("2"));
+        assertThat(service.getSubscription(Thing.withId("1")).isActive(), is(false));
+        assertThat(service.getSubscription(Thing.withId("2")), is(nullValue()));
+        assertThat(requests, not(hasItem("subscriptions")));
+
+        requests.clear();
+        service.subscribe(Thing.withId("3"));
+        Subscription sub3 = service.getSubscription(Thing.withId("3"));
+        assertThat(sub3.getThingId(), is("3"));
+        assertThat(sub3.isActive(), is(true));
+        assertThat(service.getSubscription(Thing.withId("1")).isActive(), is(false));
+        assertThat(requests, contains("3/subscriptions", "subscriptions"));
+    }
+
+    /**
+     * Test that the subscription list is fetched on every call if the index is disabled.
+     */
+    @Test
+    public void testNoSubscriptionIndex() throws Exception {
+        service.setSubscriptionTtl(0L);
+        subscriptions.put("1", true);
+
+        assertThat(service.getSubscription(Thing.withId("1")).isActive(), is(true));
+        assertThat(service.getSubscription(Thing.withId("2")), is(nullValue()));
+        assertThat(requests, contains("subscriptions", "subscriptions"));
+    }
+
+    private static List<ThingId> ids(String... ids) {
+        List<ThingId> result = new ArrayList<ThingId>();
+        for (String id : ids) {
+            result.add(Thing.withId(id));
+        }
+        return result;
+    }
+
+    private static List<String> idsOf(List<Thing> things) {
+        List<String> result = new ArrayList<String>();
+        for (Thing thing : things) {
+            result.add(thing.getThingId());
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.impl;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.exception.IterationException;
+import org.shredzone.flattr4j.exception.NotFoundException;
+
+/**
+ * Unit tests for {@link Pager}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class PagerTest {
+
+    @Test
+    public void testSynchronous() {
+        TestPager pager = new TestPager(10, 25, null);
+
+        assertThat(collect(pager), is(range(25)));
+        assertThat(pager.requested, contains(1, 2, 3));
+    }
+
+    @Test
+    public void testFullLastPage() {
+        TestPager pager = new TestPager(10, 20, null);
+
+        assertThat(collect(pager), is(range(20)));
+        assertThat(pager.requested, contains(1, 2, 3));
+    }
+
+    @Test
+    public void testLazy() {
+        TestPager pager = new TestPager(10, 25, null);
+
+        Iterator<Integer> it = pager.iterator();
+        assertThat(pager.requested, is(empty()));
+
+        for (int ix = 0; ix < 10; ix++) {
+            assertThat(it.next(), is(ix));
+        }
+        assertThat(pager.requested, contains(1));
+
+        assertThat(it.hasNext(), is(true));
+        assertThat(pager.requested, contains(1, 2));
+    }
+
+    @Test
+    public void testPrefetch() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TestPager pager = new TestPager(10, 35, executor);
+            assertThat(collect(pager), is(range(35)));
+            assertThat(pager.requested, contains(1, 2, 3, 4));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        TestPager pager = new TestPager(10, 35, null);
+        pager.failingPage = 2;
+
+        Iterator<Integer> it = pager.iterator();
+        for (int ix = 0; ix < 10; ix++) {
+            it.next();
+        }
+
+        try {
+            it.hasNext();
+            fail("no exception was thrown");
+        } catch (IterationException ex) {
+            assertThat(ex.getCause(), instanceOf(NotFoundException.class));
+        }
+
+        assertThat(it.hasNext(), is(false));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        TestPager pager = new TestPager(10, 0, null);
+        Iterator<Integer> it = pager.iterator();
+        assertThat(it.hasNext(), is(false));
+        it.next();
+    }
+
+    private static List<Integer> collect(Iterable<Integer> iterable) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (Integer value : iterable) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static List<Integer> range(int size) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int ix = 0; ix < size; ix++) {
+            result.add(ix);
+        }
+        return result;
+    }
+
+    /**
+     * {@link Pager} that returns a sequence of numbers.
+     */
+    private static class TestPager extends Pager<Integer> {
+        private final int total;
+        private final List<Integer> requested = new ArrayList<Integer>();
+        private int failingPage = -1;
+
+        public TestPager(int pageSize, int total, ExecutorService executor) {
+            super(pageSize, executor);
+            this.total = total;
+        }
+
+        @Override
+        protected List<Integer> fetch(int count, int page) throws FlattrException {
+            synchronized (requested) {
+                requested.add(page);
+            }
+
+            if (page == failingPage) {
+                throw new NotFoundException("not_found", "page not found");
+            }
+
+            List<Integer> result = new ArrayList<Integer>();
+            for (int ix = (page - 1) * count; ix < Math.min(page * count, total); ix++) {
+                result.add(ix);
+            }
+            return result;
+        }
+    }
+
+}
@@ -18,7 +18,12 @@
  */
 package org.shredzone.flattr4j.model;
 
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 import org.junit.Test;
 import org.shredzone.flattr4j.exception.FlattrException;
@@ -34,6 +39,33 @@ public class ActivityTest {
     public void testModel() throws FlattrException, IOException {
         Activity activity = ModelGenerator.createActivity();
         ModelGenerator.assertActivity(activity);
+
+        // Parsed date is cached, but cannot be changed by the caller
+        Date published = activity.getPublished();
+        published.setTime(0L);
+        ModelGenerator.assertActivity(activity);
+    }
+
+    @Test
+    public void testParseDate() throws Exception {
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+        String[] samples = {
+            "2012-01-04T10:07:12+0100", "1970-01-01T00:00:00+0000", "2000-02-29T23:59:59-0930",
+            "1999-12-31T12:00:00+1400", "2100-03-01T01:02:03-0000", "1600-01-01T00:00:00+0000",
+        };
+        for (String sample : samples) {
+            assertThat(sample, Activity.parseDate(sample), is(fmt.parse(sample)));
+        }
+
+        assertThat(Activity.parseDate("2012-01-04T10:07:12+01:00"), is(fmt.parse("2012-01-04T10:07:12+0100")));
+        assertThat(Activity.parseDate("2012-01-04T09:07:12Z"), is(fmt.parse("2012-01-04T10:07:12+0100")));
+        assertThat(Activity.parseDate("2012-01-04T09:07:12.345Z"), is(fmt.parse("2012-01-04T10:07:12+0100")));
+
+        for (String bad : new String[] {"", "2012-01-04", "2012-01-04T10:07:12", "2012-13-04T10:07:12Z",
+                        "2012-01-04T10:07:12+1:00", "2012-01-04T10:07:12Zulu", "2012-01-04 10:07:12Z",
+                        "2012-01-04T10:07:1xZ"}) {
+            assertThat(bad, Activity.parseDate(bad), is(nullValue()));
+        }
     }
 
 }
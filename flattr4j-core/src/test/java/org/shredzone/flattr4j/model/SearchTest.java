@@ -31,6 +31,7 @@ import org.junit.Test;
 import org.shredzone.flattr4j.connector.Connection;
 import org.shredzone.flattr4j.connector.FlattrObject;
 import org.shredzone.flattr4j.connector.RateLimit;
+import org.shredzone.flattr4j.connector.ResultHandler;
 import org.shredzone.flattr4j.exception.FlattrException;
 import org.shredzone.flattr4j.model.SearchQuery.Order;
 import org.shredzone.flattr4j.oauth.AccessToken;
@@ -164,6 +165,11 @@ public class SearchTest {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void result(ResultHandler handler) throws FlattrException {
+            throw new UnsupportedOperationException();
+        }
+
         public String getQuery(String name) {
             return query.get(name);
         }
@@ -0,0 +1,269 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.connector.impl.Logger;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.model.Thing;
+
+/**
+ * Resolves the URLs of web pages to their {@link Thing} at Flattr, so buttons can be
+ * rendered on server side, e.g. with their click counts.
+ * <p>
+ * Flattr offers no way to look up several URLs in one request. For this reason, the
+ * resolver remembers which {@link Thing} belongs to a URL. Unknown URLs are looked up
+ * one by one, but things that are known already are refreshed in a single
+ * {@link FlattrService#getThings(Collection)} call when their TTL has expired. URLs that
+ * are not registered at Flattr are remembered as well.
+ * <p>
+ * As unknown URLs are looked up one by one, only a limited number of them is looked up
+ * per call. The remaining URLs are missing in the result, and are looked up by the next
+ * calls. Failed lookups are logged, and are retried by the next call. If the refresh
+ * fails, the expired things are returned instead, so a failure never discards the other
+ * results.
+ * <p>
+ * The cache is limited in size, and the least recently used entries are evicted first.
+ * {@link Thing} are mutable, so copies of the cached things are returned. This class is
+ * threadsafe, and is meant to be shared by all requests of a web application.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class ThingResolver {
+    private static final Logger LOG = new Logger("flattr4j", ThingResolver.class.getName());
+
+    private final FlattrService service;
+    private final Map<String, Entry> cache;
+
+    private volatile long ttl = 60L * 1000L;
+    private volatile long notFoundTtl = 10L * 60L * 1000L;
+    private volatile int maxLookups = 10;
+
+    /**
+     * Creates a new {@link ThingResolver} with a maximum of 1000 cached URLs.
+     *
+     * @param service
+     *            {@link FlattrService} to be used for resolving
+     */
+    public ThingResolver(FlattrService service) {
+        this(service, 1000);
+    }
+
+    /**
+     * Creates a new {@link ThingResolver}.
+     *
+     * @param service
+     *            {@link FlattrService} to be used for resolving
+     * @param maxSize
+     *            Maximum number of cached URLs
+     */
+    public ThingResolver(FlattrService service, final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.service = service;
+        cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = -6171585129335540381L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Time-to-live of a resolved {@link Thing}, in milliseconds. After that, the thing
+     * is refreshed. Defaults to 1 minute.
+     */
+    public long getTtl()                        { return ttl; }
+    public void setTtl(long ttl)                { this.ttl = ttl; }
+
+    /**
+     * Time-to-live of URLs that are not registered at Flattr, in milliseconds. Defaults
+     * to 10 minutes.
+     */
+    public long getNotFoundTtl()                { return notFoundTtl; }
+    public void setNotFoundTtl(long notFoundTtl) { this.notFoundTtl = notFoundTtl; }
+
+    /**
+     * Maximum number of unknown URLs that are looked up by a single
+     * {@link #resolve(Collection)} call. Defaults to 10.
+     */
+    public int getMaxLookups()                  { return maxLookups; }
+    public void setMaxLookups(int maxLookups)   { this.maxLookups = maxLookups; }
+
+    /**
+     * Returns the current number of cached URLs, including expired ones.
+     */
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Resolves a single URL.
+     *
+     * @param url
+     *            URL to resolve
+     * @return {@link Thing} of that URL, or {@code null} if the URL is not registered at
+     *         Flattr, or could not be resolved
+     */
+    public Thing resolve(String url) {
+        return resolve(Collections.singleton(url)).get(url);
+    }
+
+    /**
+     * Resolves a collection of URLs.
+     *
+     * @param urls
+     *            URLs to resolve
+     * @return Map of URLs and their {@link Thing}. URLs that are not registered at
+     *         Flattr, or that could not be resolved yet, are missing in the map.
+     */
+    public Map<String, Thing> resolve(Collection<String> urls) {
+        Map<String, Thing> result = new HashMap<String, Thing>();
+        List<String> unknown = new ArrayList<String>();
+        Map<String, String> expired = new LinkedHashMap<String, String>();
+        List<Thing> expiredThings = new ArrayList<Thing>();
+        long now = System.currentTimeMillis();
+
+        synchronized (cache) {
+            for (String url : new LinkedHashSet<String>(urls)) {
+                Entry entry = cache.get(url);
+                if (entry == null) {
+                    unknown.add(url);
+                } else if (entry.expires > now) {
+                    if (entry.thing != null) {
+                        result.put(url, entry.thing);
+                    }
+                } else if (entry.thing != null) {
+                    expired.put(entry.thing.getThingId(), url);
+                    expiredThings.add(entry.thing);
+                } else {
+                    unknown.add(url);
+                }
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            try {
+                Set<String> found = new HashSet<String>();
+                for (Thing thing : service.getThings(expiredThings)) {
+                    String url = expired.get(thing.getThingId());
+                    if (url != null) {
+                        put(url, thing, ttl);
+                        result.put(url, thing);
+                        found.add(thing.getThingId());
+                    }
+                }
+
+                for (Map.Entry<String, String> e : expired.entrySet()) {
+                    if (!found.contains(e.getKey())) {
+                        // Thing was deleted, so look up the URL again
+                        unknown.add(e.getValue());
+                    }
+                }
+            } catch (FlattrException ex) {
+                LOG.error("Could not refresh {0} Flattr things: {1}", expired.size(), ex.getMessage());
+                // Return the expired things, they will be refreshed by the next call
+                for (Thing thing : expiredThings) {
+                    result.put(expired.get(thing.getThingId()), thing);
+                }
+            }
+        }
+
+        int lookups = Math.max(0, Math.min(unknown.size(), maxLookups));
+        for (String url : unknown.subList(0, lookups)) {
+            try {
+                Thing thing = service.getThingByUrl(url);
+                if (thing != null) {
+                    put(url, thing, ttl);
+                    result.put(url, thing);
+                } else {
+                    put(url, null, notFoundTtl);
+                }
+            } catch (FlattrException ex) {
+                LOG.error("Could not resolve Flattr thing of {0}: {1}", url, ex.getMessage());
+            }
+        }
+
+        // Things are mutable, so always return copies
+        for (Map.Entry<String, Thing> e : result.entrySet()) {
+            e.setValue(new Thing(new FlattrObject(e.getValue().toJSON())));
+        }
+
+        return result;
+    }
+
+    /**
+     * Puts a {@link Thing} into the cache.
+     *
+     * @param url
+     *            URL of the thing
+     * @param thing
+     *            {@link Thing}, or {@code null} if the URL is not registered
+     * @param entryTtl
+     *            Time-to-live of the entry
+     */
+    private void put(String url, Thing thing, long entryTtl) {
+        if (entryTtl > 0) {
+            synchronized (cache) {
+                cache.put(url, new Entry(thing, System.currentTimeMillis() + entryTtl));
+            }
+        }
+    }
+
+    /**
+     * A cache entry.
+     */
+    private static class Entry {
+        private final Thing thing;
+        private final long expires;
+
+        public Entry(Thing thing, long expires) {
+            this.thing = thing;
+            this.expires = expires;
+        }
+    }
+
+}
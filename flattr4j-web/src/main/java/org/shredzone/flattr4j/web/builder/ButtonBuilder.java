@@ -18,6 +18,7 @@
  */
 package org.shredzone.flattr4j.web.builder;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
@@ -42,6 +43,9 @@ import org.shredzone.flattr4j.web.ButtonType;
  * daisy-chained.
  * <p>
  * Example: <code>String button = new ButtonBuilder().url(myUrl).toString();</code>
+ * <p>
+ * The button can also be written to a {@link java.io.Writer} by
+ * {@link #writeTo(Appendable)}, without building a string first.
  *
  * @author Richard "Shred" Körber
  */
@@ -71,6 +75,40 @@ public class ButtonBuilder implements Serializable {
     private String prefix = "data-flattr";
     private TreeMap<String, String> attributes = new TreeMap<String, String>();
 
+    /**
+     * Creates a new {@link ButtonBuilder}.
+     */
+    public ButtonBuilder() {
+        // Default constructor
+    }
+
+    /**
+     * Creates a new {@link ButtonBuilder} with a copy of the setup of another
+     * {@link ButtonBuilder}.
+     *
+     * @param builder
+     *            {@link ButtonBuilder} to copy
+     * @since 2.15
+     */
+    public ButtonBuilder(ButtonBuilder builder) {
+        this.url = builder.url;
+        this.uid = builder.uid;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.category = builder.category;
+        this.language = builder.language;
+        this.tags = new ArrayList<String>(builder.tags);
+        this.revsharekey = builder.revsharekey;
+        this.type = builder.type;
+        this.hidden = builder.hidden;
+        this.popout = builder.popout;
+        this.style = builder.style;
+        this.styleClass = builder.styleClass;
+        this.html5 = builder.html5;
+        this.prefix = builder.prefix;
+        this.attributes = new TreeMap<String, String>(builder.attributes);
+    }
+
     /**
      * Unique URL to the thing. Always required!
      */
@@ -101,14 +139,7 @@ public class ButtonBuilder implements Serializable {
      * be between 5 and 100 characters long, and must not contain HTML.
      */
     public ButtonBuilder title(String title) {
-        if (title.length() < MIN_TITLE_LENGTH) {
-            throw new IllegalArgumentException("title must have at least "
-                + MIN_TITLE_LENGTH + " characters.");
-        }
-        if (title.length() > MAX_TITLE_LENGTH) {
-            throw new IllegalArgumentException("title must not exceed "
-                + MAX_TITLE_LENGTH + " characters.");
-        }
+        checkTitle(title);
         this.title = title;
         return this;
     }
@@ -119,14 +150,7 @@ public class ButtonBuilder implements Serializable {
      * of &lt;br&gt; which is converted to newline).
      */
     public ButtonBuilder description(String description) {
-        if (description.length() < MIN_DESCRIPTION_LENGTH) {
-            throw new IllegalArgumentException("description must have at least "
-                + MIN_DESCRIPTION_LENGTH + " characters.");
-        }
-        if (description.length() > MAX_DESCRIPTION_LENGTH) {
-            throw new IllegalArgumentException("description must not exceed "
-                + MAX_DESCRIPTION_LENGTH + " characters.");
-        }
+        checkDescription(description);
         this.description = description;
         return this;
     }
@@ -317,207 +341,285 @@ public class ButtonBuilder implements Serializable {
     }
 
     /**
-     * Builds a button of the current setup.
+     * Writes a button of the current setup to the given {@link Appendable}.
+     *
+     * @param out
+     *            {@link Appendable} to write the button to, e.g. a {@link java.io.Writer}
+     * @since 2.15
      */
-    @Override
-    public String toString() {
+    public void writeTo(Appendable out) throws IOException {
         if (url == null) {
             throw new IllegalStateException("url is required, but missing");
         }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("<a");
+        writeStart(out);
 
-        sb.append(" class=\"FlattrButton");
-        if (styleClass != null) {
-            sb.append(' ').append(escape(styleClass));
+        out.append(" href=\"");
+        HtmlEscaper.escape(url, out);
+        out.append('"');
+
+        if (title != null) {
+            out.append(" title=\"");
+            HtmlEscaper.escape(title, out);
+            out.append('"');
         }
-        sb.append('"');
 
-        if (style != null) {
-            sb.append(" style=\"").append(escape(style)).append('"');
+        writeAttributes(out);
+
+        out.append('>');
+
+        if (description != null) {
+            out.append(description);
         }
 
-        sb.append(" href=\"").append(escape(url)).append('"');
+        out.append("</a>");
+    }
 
-        if (title != null) {
-            sb.append(" title=\"").append(escape(title)).append('"');
+    /**
+     * Writes the start of the link tag, up to the href attribute.
+     *
+     * @param out
+     *            {@link Appendable} to write to
+     */
+    void writeStart(Appendable out) throws IOException {
+        out.append("<a");
+
+        out.append(" class=\"FlattrButton");
+        if (styleClass != null) {
+            out.append(' ');
+            HtmlEscaper.escape(styleClass, out);
         }
+        out.append('"');
 
+        if (style != null) {
+            out.append(" style=\"");
+            HtmlEscaper.escape(style, out);
+            out.append('"');
+        }
+    }
+
+    /**
+     * Writes all attributes of the link tag that follow the title attribute.
+     *
+     * @param out
+     *            {@link Appendable} to write to
+     */
+    void writeAttributes(Appendable out) throws IOException {
         if (language != null) {
-            sb.append(" lang=\"").append(escape(language)).append('"');
+            out.append(" lang=\"");
+            HtmlEscaper.escape(language, out);
+            out.append('"');
         }
 
         if (html5) {
-            appendHtml5(sb);
+            appendHtml5(out);
         } else {
-            appendAttributes(sb);
+            appendAttributes(out);
         }
 
         if (!attributes.isEmpty()) {
             for (Map.Entry<String, String> entry : attributes.entrySet()) {
-                sb.append(' ').append(entry.getKey()).append("=\"");
-                sb.append(escape(entry.getValue()));
-                sb.append('"');
+                out.append(' ').append(entry.getKey()).append("=\"");
+                HtmlEscaper.escape(entry.getValue(), out);
+                out.append('"');
             }
         }
+    }
 
-        sb.append('>');
-
-        if (description != null) {
-            sb.append(description);
+    /**
+     * Builds a button of the current setup.
+     */
+    @Override
+    public String toString() {
+        try {
+            StringBuilder sb = new StringBuilder(256);
+            writeTo(sb);
+            return sb.toString();
+        } catch (IOException ex) {
+            // should never be thrown, as StringBuilder does not throw IOException
+            throw new IllegalStateException(ex);
         }
+    }
 
-        sb.append("</a>");
+    /**
+     * Checks if the title is valid.
+     *
+     * @param title
+     *            Title to check
+     * @throws IllegalArgumentException
+     *             if the title is too short or too long
+     */
+    static void checkTitle(String title) {
+        if (title.length() < MIN_TITLE_LENGTH) {
+            throw new IllegalArgumentException("title must have at least "
+                + MIN_TITLE_LENGTH + " characters.");
+        }
+        if (title.length() > MAX_TITLE_LENGTH) {
+            throw new IllegalArgumentException("title must not exceed "
+                + MAX_TITLE_LENGTH + " characters.");
+        }
+    }
 
-        return sb.toString();
+    /**
+     * Checks if the description is valid.
+     *
+     * @param description
+     *            Description to check
+     * @throws IllegalArgumentException
+     *             if the description is too short or too long
+     */
+    static void checkDescription(String description) {
+        if (description.length() < MIN_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("description must have at least "
+                + MIN_DESCRIPTION_LENGTH + " characters.");
+        }
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("description must not exceed "
+                + MAX_DESCRIPTION_LENGTH + " characters.");
+        }
     }
 
     /**
-     * Appends thing attributes to the {@link StringBuilder}.
+     * Appends thing attributes to the {@link Appendable}.
      *
-     * @param sb
-     *            {@link StringBuilder} to append the attributes to
+     * @param out
+     *            {@link Appendable} to append the attributes to
      */
-    private void appendAttributes(StringBuilder sb) {
+    private void appendAttributes(Appendable out) throws IOException {
         boolean header = false;
 
         if (uid != null) {
-            appendAttributesHeader(sb);
+            appendAttributesHeader(out);
             header = true;
-            sb.append("uid:").append(escape(uid)).append(';');
+            out.append("uid:");
+            HtmlEscaper.escape(uid, out);
+            out.append(';');
         }
 
         if (category != null) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("category:").append(escape(category)).append(';');
+            out.append("category:");
+            HtmlEscaper.escape(category, out);
+            out.append(';');
         }
 
         if (!tags.isEmpty()) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("tags:");
-            appendTagList(sb);
-            sb.append(';');
+            out.append("tags:");
+            appendTagList(out);
+            out.append(';');
         }
 
         if (revsharekey != null) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("revsharekey:").append(escape(revsharekey)).append(';');
+            out.append("revsharekey:");
+            HtmlEscaper.escape(revsharekey, out);
+            out.append(';');
         }
 
         if (type != null && type == ButtonType.COMPACT) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("button:compact;");
+            out.append("button:compact;");
         }
 
         if (popout != null) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("popout:").append(popout.booleanValue() ? 1 : 0).append(';');
+            out.append("popout:").append(popout.booleanValue() ? '1' : '0').append(';');
         }
 
         if (hidden) {
-            if (!header) appendAttributesHeader(sb);
+            if (!header) appendAttributesHeader(out);
             header = true;
-            sb.append("hidden:1;");
+            out.append("hidden:1;");
         }
 
         if (header) {
-            sb.append('"');
+            out.append('"');
         }
     }
 
     /**
      * Appends the header for non-http5 attributes.
      *
-     * @param sb
-     *            {@link StringBuilder} to append the attributes to
+     * @param out
+     *            {@link Appendable} to append the attributes to
      */
-    private void appendAttributesHeader(StringBuilder sb) {
-        sb.append(" rel=\"flattr;");
+    private void appendAttributesHeader(Appendable out) throws IOException {
+        out.append(" rel=\"flattr;");
     }
 
     /**
-     * Appends thing attributes as HTML 5 attributes {@link StringBuilder}.
+     * Appends thing attributes as HTML 5 attributes {@link Appendable}.
      *
-     * @param sb
-     *            {@link StringBuilder} to append the attributes to
+     * @param out
+     *            {@link Appendable} to append the attributes to
      */
-    private void appendHtml5(StringBuilder sb) {
+    private void appendHtml5(Appendable out) throws IOException {
         if (uid != null) {
-            appendHtml5Attribute(sb, "uid", uid);
+            appendHtml5Attribute(out, "uid", uid);
         }
 
         if (category != null) {
-            appendHtml5Attribute(sb, "category", category);
+            appendHtml5Attribute(out, "category", category);
         }
 
         if (!tags.isEmpty()) {
-            sb.append(' ').append(prefix).append("-tags=\"");
-            appendTagList(sb);
-            sb.append('"');
+            out.append(' ').append(prefix).append("-tags=\"");
+            appendTagList(out);
+            out.append('"');
         }
 
         if (revsharekey != null) {
-            appendHtml5Attribute(sb, "revsharekey", revsharekey);
+            appendHtml5Attribute(out, "revsharekey", revsharekey);
         }
 
         if (type != null && type == ButtonType.COMPACT) {
-            appendHtml5Attribute(sb, "button", "compact");
+            appendHtml5Attribute(out, "button", "compact");
         }
 
         if (popout != null) {
-            appendHtml5Attribute(sb, "popout", popout.booleanValue() ? "1" : "0");
+            appendHtml5Attribute(out, "popout", popout.booleanValue() ? "1" : "0");
         }
 
         if (hidden) {
-            appendHtml5Attribute(sb, "hidden", "1");
+            appendHtml5Attribute(out, "hidden", "1");
         }
     }
 
     /**
      * Appends a single HTML5 attribute.
      *
-     * @param sb
-     *            {@link StringBuilder} to append the attribute to
+     * @param out
+     *            {@link Appendable} to append the attribute to
      * @param key
      *            Attribute key
      * @param value
      *            Value (unescaped)
      */
-    private void appendHtml5Attribute(StringBuilder sb, String key, String value) {
-        sb.append(' ').append(prefix).append('-').append(key).append("=\"");
-        sb.append(escape(value)).append('"');
+    private void appendHtml5Attribute(Appendable out, String key, String value) throws IOException {
+        out.append(' ').append(prefix).append('-').append(key).append("=\"");
+        HtmlEscaper.escape(value, out);
+        out.append('"');
     }
 
     /**
      * Appends a list of all tags, separated by comma.
      *
-     * @param sb
-     *            {@link StringBuilder} to append the tags to
+     * @param out
+     *            {@link Appendable} to append the tags to
      */
-    private void appendTagList(StringBuilder sb) {
+    private void appendTagList(Appendable out) throws IOException {
         boolean needsSeparator = false;
         for (String tag : tags) {
-            if (needsSeparator) sb.append(',');
-            sb.append(escape(tag));
+            if (needsSeparator) out.append(',');
+            HtmlEscaper.escape(tag, out);
             needsSeparator = true;
         }
     }
 
-    /**
-     * Escapes a string for use in HTML attributes.
-     *
-     * @param str
-     *            Attribute to be escaped
-     * @return Escaped attribute
-     */
-    private String escape(String str) {
-        return str.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
-    }
-
 }
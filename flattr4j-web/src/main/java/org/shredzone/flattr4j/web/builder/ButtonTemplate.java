@@ -0,0 +1,273 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.builder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.shredzone.flattr4j.model.Thing;
+
+/**
+ * A precompiled Flattr button. The static parts of the button markup are rendered once
+ * from a {@link ButtonBuilder}, so only the url, title and description need to be
+ * spliced in when the button is rendered.
+ * <p>
+ * Buttons that are rendered from a {@link Thing} are cached, keyed by the thing ID. A
+ * cached button is rendered again if the thing has been updated since.
+ * <p>
+ * Example:
+ * <pre>
+ * ButtonTemplate template = new ButtonTemplate(new ButtonBuilder().html5().button(ButtonType.COMPACT));
+ * for (Item item : items) {
+ *     template.writeTo(out, item.getUrl(), item.getTitle(), null);
+ * }
+ * </pre>
+ * <p>
+ * A {@link ButtonTemplate} is thread safe. The button setup is fixed when the template
+ * is created, so changes to the {@link ButtonBuilder} afterwards are not reflected. The
+ * only mutable state is the cache of rendered {@link Thing} buttons, which is a
+ * synchronized LRU map of limited size. Its entries are replaced when a thing has been
+ * updated, and it can be cleared by {@link #clearCache()}.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class ButtonTemplate implements Serializable {
+    private static final long serialVersionUID = 3412250938245126753L;
+
+    private static final int DEFAULT_CACHE_SIZE = 500;
+
+    private final ButtonBuilder builder;
+    private final String start;
+    private final String attributes;
+    private final Map<String, CacheEntry> cache;
+
+    /**
+     * Creates a new {@link ButtonTemplate} with a default cache size.
+     *
+     * @param builder
+     *            {@link ButtonBuilder} with the button setup. A url, title and
+     *            description that are set are ignored.
+     */
+    public ButtonTemplate(ButtonBuilder builder) {
+        this(builder, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new {@link ButtonTemplate}.
+     *
+     * @param builder
+     *            {@link ButtonBuilder} with the button setup. A url, title and
+     *            description that are set are ignored.
+     * @param cacheSize
+     *            Maximum number of {@link Thing} buttons to be cached. 0 disables the
+     *            cache.
+     */
+    public ButtonTemplate(ButtonBuilder builder, final int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative");
+        }
+
+        this.builder = new ButtonBuilder(builder);
+
+        try {
+            StringBuilder sb = new StringBuilder();
+            this.builder.writeStart(sb);
+            start = sb.toString();
+
+            sb.setLength(0);
+            this.builder.writeAttributes(sb);
+            attributes = sb.toString();
+        } catch (IOException ex) {
+            // StringBuilder never throws an IOException
+            throw new IllegalStateException(ex);
+        }
+
+        if (cacheSize > 0) {
+            cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 8186543521973206472L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Writes a button.
+     *
+     * @param out
+     *            {@link Appendable} to write the button to
+     * @param url
+     *            Unique URL to the thing, required
+     * @param title
+     *            Title of the thing, or {@code null}. If set, it must be between 5 and
+     *            100 characters long, and must not contain HTML.
+     * @param description
+     *            Description of the thing, or {@code null}. If set, it must be between 5
+     *            and 1000 characters long. It is written unescaped.
+     */
+    public void writeTo(Appendable out, String url, String title, String description)
+        throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("url is required, but missing");
+        }
+        if (title != null) {
+            ButtonBuilder.checkTitle(title);
+        }
+        if (description != null) {
+            ButtonBuilder.checkDescription(description);
+        }
+
+        out.append(start);
+
+        out.append(" href=\"");
+        HtmlEscaper.escape(url, out);
+        out.append('"');
+
+        if (title != null) {
+            out.append(" title=\"");
+            HtmlEscaper.escape(title, out);
+            out.append('"');
+        }
+
+        out.append(attributes);
+
+        out.append('>');
+
+        if (description != null) {
+            out.append(description);
+        }
+
+        out.append("</a>");
+    }
+
+    /**
+     * Renders a button.
+     *
+     * @param url
+     *            Unique URL to the thing, required
+     * @param title
+     *            Title of the thing, or {@code null}
+     * @param description
+     *            Description of the thing, or {@code null}
+     * @return Button markup
+     * @see #writeTo(Appendable, String, String, String)
+     */
+    public String render(String url, String title, String description) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            writeTo(sb, url, title, description);
+            return sb.toString();
+        } catch (IOException ex) {
+            // StringBuilder never throws an IOException
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes a button for a {@link Thing}. The thing's properties are used as described
+     * in {@link ButtonBuilder#thing(Thing)}.
+     *
+     * @param out
+     *            {@link Appendable} to write the button to
+     * @param thing
+     *            {@link Thing} to write a button for
+     */
+    public void writeTo(Appendable out, Thing thing) throws IOException {
+        out.append(render(thing));
+    }
+
+    /**
+     * Renders a button for a {@link Thing}. The result is taken from the cache if
+     * possible.
+     *
+     * @param thing
+     *            {@link Thing} to render a button for
+     * @return Button markup
+     */
+    public String render(Thing thing) {
+        if (cache == null) {
+            return new ButtonBuilder(builder).thing(thing).toString();
+        }
+
+        String thingId = thing.getThingId();
+        long updated = (thing.getUpdated() != null ? thing.getUpdated().getTime() : 0L);
+
+        synchronized (cache) {
+            CacheEntry entry = cache.get(thingId);
+            if (entry != null && entry.updated == updated) {
+                return entry.markup;
+            }
+        }
+
+        String markup = new ButtonBuilder(builder).thing(thing).toString();
+
+        synchronized (cache) {
+            cache.put(thingId, new CacheEntry(updated, markup));
+        }
+
+        return markup;
+    }
+
+    /**
+     * Returns the number of {@link Thing} buttons that are currently cached.
+     */
+    public int getCacheSize() {
+        if (cache == null) {
+            return 0;
+        }
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Clears the cache of {@link Thing} buttons.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            synchronized (cache) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * A rendered button of a {@link Thing}.
+     */
+    private static class CacheEntry implements Serializable {
+        private static final long serialVersionUID = -2247916373504936512L;
+
+        private final long updated;
+        private final String markup;
+
+        public CacheEntry(long updated, String markup) {
+            this.updated = updated;
+            this.markup = markup;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.builder;
+
+import java.io.IOException;
+
+/**
+ * Escapes strings for use in HTML attributes.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+final class HtmlEscaper {
+
+    private HtmlEscaper() {
+        // Utility class without constructor
+    }
+
+    /**
+     * Escapes a string for use in HTML attributes, and appends it to the given
+     * {@link Appendable}. '&amp;', '&lt;' and '"' are escaped. The string is scanned in a
+     * single pass, and unescaped parts are appended without copying.
+     *
+     * @param str
+     *            String to be escaped
+     * @param out
+     *            {@link Appendable} to append the escaped string to
+     */
+    public static void escape(CharSequence str, Appendable out) throws IOException {
+        int start = 0;
+        int len = str.length();
+        for (int ix = 0; ix < len; ix++) {
+            String entity;
+            switch (str.charAt(ix)) {
+                case '&':
+                    entity = "&amp;";
+                    break;
+
+                case '<':
+                    entity = "&lt;";
+                    break;
+
+                case '"':
+                    entity = "&quot;";
+                    break;
+
+                default:
+                    continue;
+            }
+
+            out.append(str, start, ix).append(entity);
+            start = ix + 1;
+        }
+        out.append(str, start, len);
+    }
+
+}
@@ -18,6 +18,7 @@
  */
 package org.shredzone.flattr4j.web.builder;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import org.shredzone.flattr4j.model.Category;
@@ -36,6 +37,9 @@ import org.shredzone.flattr4j.web.ButtonType;
  * daisy-chained.
  * <p>
  * Example: <code>String loader = new LoaderBuilder().uid("123456").toString();</code>
+ * <p>
+ * The script can also be written to a {@link java.io.Writer} by
+ * {@link #writeTo(Appendable)}, without building a string first.
  *
  * @author Richard "Shred" Körber
  */
@@ -177,80 +181,96 @@ public class LoaderBuilder implements Serializable {
     }
 
     /**
-     * Builds a loader script of the current setup.
+     * Writes a loader script of the current setup to the given {@link Appendable}.
+     *
+     * @param out
+     *            {@link Appendable} to write the script to, e.g. a {@link java.io.Writer}
+     * @since 2.15
      */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
+    public void writeTo(Appendable out) throws IOException {
         char separator = '?';
 
         if (!bare) {
-            sb.append("<script type=\"text/javascript\">/* <![CDATA[ */\n");
+            out.append("<script type=\"text/javascript\">/* <![CDATA[ */\n");
         }
 
-        String url = baseUrl;
-        if (https) {
-            url = url.replaceFirst("^http://", "https://");
+        out.append("(function() {");
+        out.append("var s = document.createElement('script'),");
+        out.append("t = document.getElementsByTagName('script')[0];");
+        out.append("s.type = 'text/javascript';");
+        out.append("s.async = true;");
+        out.append("s.src = '");
+        if (https && baseUrl.startsWith("http://")) {
+            out.append("https://").append(baseUrl, "http://".length(), baseUrl.length());
+        } else {
+            out.append(baseUrl);
         }
-
-        sb.append("(function() {");
-        sb.append("var s = document.createElement('script'),");
-        sb.append("t = document.getElementsByTagName('script')[0];");
-        sb.append("s.type = 'text/javascript';");
-        sb.append("s.async = true;");
-        sb.append("s.src = '").append(url).append("/js/").append(version).append("/load.js");
+        out.append("/js/").append(version).append("/load.js");
 
         if (automatic) {
-            sb.append(separator).append("mode=auto");
+            out.append(separator).append("mode=auto");
             separator = '&';
         }
 
         if (popout != null) {
-            sb.append(separator).append("popout=").append(popout.booleanValue() ? 1 : 0);
+            out.append(separator).append("popout=").append(popout.booleanValue() ? '1' : '0');
             separator = '&';
         }
 
         if (uid != null) {
-            sb.append(separator).append("uid=").append(uid);
+            out.append(separator).append("uid=").append(uid);
             separator = '&';
         }
 
         if (type != null) {
-            sb.append(separator).append("button=");
+            out.append(separator).append("button=");
             switch (type) {
             case COMPACT:
-                sb.append("compact");
+                out.append("compact");
                 break;
             case DEFAULT:
-                sb.append("default");
+                out.append("default");
                 break;
             }
             separator = '&';
         }
 
         if (language != null) {
-            sb.append(separator).append("language=").append(language);
+            out.append(separator).append("language=").append(language);
             separator = '&';
         }
 
         if (category != null) {
-            sb.append(separator).append("category=").append(category);
+            out.append(separator).append("category=").append(category);
             separator = '&';
         }
 
         if (prefix != null) {
-            sb.append(separator).append("html5-key-prefix=").append(prefix);
+            out.append(separator).append("html5-key-prefix=").append(prefix);
         }
 
-        sb.append("';");
-        sb.append("t.parentNode.insertBefore(s, t);");
-        sb.append("})();");
+        out.append("';");
+        out.append("t.parentNode.insertBefore(s, t);");
+        out.append("})();");
 
         if (!bare) {
-            sb.append("\n/* ]]> */</script>");
+            out.append("\n/* ]]> */</script>");
         }
+    }
 
-        return sb.toString();
+    /**
+     * Builds a loader script of the current setup.
+     */
+    @Override
+    public String toString() {
+        try {
+            StringBuilder sb = new StringBuilder(512);
+            writeTo(sb);
+            return sb.toString();
+        } catch (IOException ex) {
+            // should never be thrown, as StringBuilder does not throw IOException
+            throw new IllegalStateException(ex);
+        }
     }
 
 }
@@ -18,6 +18,7 @@
  */
 package org.shredzone.flattr4j.web.builder;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.Map;
@@ -37,6 +38,9 @@ import org.shredzone.flattr4j.web.BadgeType;
  * <p>
  * Example:
  * <code>String button = new StaticButtonBuilder().url(thingUrl).toString();</code>
+ * <p>
+ * The button can also be written to a {@link java.io.Writer} by
+ * {@link #writeTo(Appendable)}, without building a string first.
  *
  * @author Richard "Shred" Körber
  */
@@ -142,37 +146,47 @@ public class StaticButtonBuilder implements Serializable {
     }
 
     /**
-     * Builds a static button tag of the current setup.
+     * Writes a static button tag of the current setup to the given {@link Appendable}.
+     *
+     * @param out
+     *            {@link Appendable} to write the button to, e.g. a {@link java.io.Writer}
+     * @since 2.15
      */
-    @Override
-    public String toString() {
+    public void writeTo(Appendable out) throws IOException {
         if (url == null) {
             throw new IllegalStateException("thing url is required, but missing");
         }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("<a");
+        out.append("<a");
 
         if (styleClass != null) {
-            sb.append(" class=\"").append(escape(styleClass)).append('"');
+            out.append(" class=\"");
+            HtmlEscaper.escape(styleClass, out);
+            out.append('"');
         }
 
         if (style != null) {
-            sb.append(" style=\"").append(escape(style)).append('"');
+            out.append(" style=\"");
+            HtmlEscaper.escape(style, out);
+            out.append('"');
         }
 
-        sb.append(" href=\"").append(escape(url)).append('"');
+        out.append(" href=\"");
+        HtmlEscaper.escape(url, out);
+        out.append('"');
 
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
-            sb.append(' ').append(entry.getKey()).append("=\"");
-            sb.append(escape(entry.getValue()));
-            sb.append('"');
+            out.append(' ').append(entry.getKey()).append("=\"");
+            HtmlEscaper.escape(entry.getValue(), out);
+            out.append('"');
         }
 
-        sb.append('>');
+        out.append('>');
 
         if (badgeUrl != null) {
-            sb.append("<img src=\"").append(escape(badgeUrl)).append('"')
+            out.append("<img src=\"");
+            HtmlEscaper.escape(badgeUrl, out);
+            out.append('"')
                             .append(" alt=\"Flattr this\"")
                             .append(" title=\"Flattr this\"")
                             .append(" border=\"0\"")
@@ -180,29 +194,31 @@ public class StaticButtonBuilder implements Serializable {
 
         } else {
             BadgeType useType = (type != null ? type : BadgeType.DEFAULT);
-            sb.append("<img src=\"").append(useType.getUrl()).append('"')
-                            .append(" width=\"").append(useType.getWidth()).append('"')
-                            .append(" height=\"").append(useType.getHeight()).append('"')
+            out.append("<img src=\"").append(useType.getUrl()).append('"')
+                            .append(" width=\"").append(String.valueOf(useType.getWidth())).append('"')
+                            .append(" height=\"").append(String.valueOf(useType.getHeight())).append('"')
                             .append(" alt=\"Flattr this\"")
                             .append(" title=\"Flattr this\"")
                             .append(" border=\"0\"")
                             .append(" />");
         }
 
-        sb.append("</a>");
-
-        return sb.toString();
+        out.append("</a>");
     }
 
     /**
-     * Escapes a string for use in HTML attributes.
-     *
-     * @param str
-     *            Attribute to be escaped
-     * @return Escaped attribute
+     * Builds a static button tag of the current setup.
      */
-    private String escape(String str) {
-        return str.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    @Override
+    public String toString() {
+        try {
+            StringBuilder sb = new StringBuilder(256);
+            writeTo(sb);
+            return sb.toString();
+        } catch (IOException ex) {
+            // should never be thrown, as StringBuilder does not throw IOException
+            throw new IllegalStateException(ex);
+        }
     }
 
 }
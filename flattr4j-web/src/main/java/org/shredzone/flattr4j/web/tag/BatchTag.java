@@ -0,0 +1,142 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.tag;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.BodyContent;
+import javax.servlet.jsp.tagext.BodyTagSupport;
+
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.web.ThingResolver;
+
+/**
+ * Collects the URLs of all nested {@link ClicksTag}, and resolves them in a single pass
+ * when the end of the body is reached. The click counts are then rendered into the
+ * body, so the browser does not need to fetch them from Flattr.
+ * <p>
+ * If a thing could not be resolved, or if no {@link ThingResolver} is set, the fallback
+ * text is rendered instead.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class BatchTag extends BodyTagSupport {
+    private static final long serialVersionUID = 5021846712365187140L;
+
+    private static final char MARKER = '\u0000';
+    private static final String PLACEHOLDER = MARKER + "f4j-clicks:";
+
+    private ThingResolver resolver;
+    private List<String> urls;
+    private List<String> fallbacks;
+
+    public void setResolver(ThingResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Registers the URL of a thing.
+     *
+     * @param url
+     *            URL of the thing
+     * @param fallback
+     *            Text to be rendered if the URL could not be resolved, may be
+     *            {@code null}
+     * @return Placeholder to be written to the body. It is replaced by the click count
+     *         when the body is rendered.
+     */
+    public String register(String url, String fallback) {
+        urls.add(url);
+        fallbacks.add(fallback != null ? fallback : "");
+        return PLACEHOLDER + (urls.size() - 1) + MARKER;
+    }
+
+    @Override
+    public int doStartTag() throws JspException {
+        urls = new ArrayList<String>();
+        fallbacks = new ArrayList<String>();
+        return EVAL_BODY_BUFFERED;
+    }
+
+    @Override
+    public int doEndTag() throws JspException {
+        BodyContent bc = getBodyContent();
+        String body = (bc != null ? bc.getString() : "");
+
+        if (resolver == null && !urls.isEmpty()) {
+            pageContext.getServletContext().log("No ThingResolver set, rendering fallbacks");
+        }
+
+        try {
+            render(body, pageContext.getOut());
+        } catch (IOException ex) {
+            throw new JspException(ex);
+        }
+
+        urls = null;
+        fallbacks = null;
+        return EVAL_PAGE;
+    }
+
+    /**
+     * Resolves all registered URLs, and writes the body with the placeholders replaced
+     * by the click counts or the fallback texts.
+     *
+     * @param body
+     *            Body containing the placeholders
+     * @param out
+     *            {@link Writer} to write the rendered body to
+     */
+    void render(String body, Writer out) throws IOException {
+        Map<String, Thing> things = Collections.emptyMap();
+        if (resolver != null && !urls.isEmpty()) {
+            things = resolver.resolve(urls);
+        }
+
+        int pos = 0;
+        int start;
+        while ((start = body.indexOf(PLACEHOLDER, pos)) >= 0) {
+            int end = body.indexOf(MARKER, start + PLACEHOLDER.length());
+            if (end < 0) {
+                break;
+            }
+
+            out.write(body, pos, start - pos);
+
+            int index = Integer.parseInt(body.substring(start + PLACEHOLDER.length(), end));
+            Thing thing = things.get(urls.get(index));
+            if (thing != null) {
+                out.write(String.valueOf(thing.getClicks()));
+            } else {
+                out.write(fallbacks.get(index));
+            }
+
+            pos = end + 1;
+        }
+        out.write(body, pos, body.length() - pos);
+    }
+
+}
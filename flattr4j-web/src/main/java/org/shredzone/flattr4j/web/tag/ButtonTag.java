@@ -182,14 +182,12 @@ public class ButtonTag extends BodyTagSupport implements Attributed {
             }
         }
 
-        String tag = builder.toString();
-
         if (var != null) {
-            TagUtils.setScopedAttribute(pageContext, var, tag, scope);
+            TagUtils.setScopedAttribute(pageContext, var, builder.toString(), scope);
 
         } else {
             try {
-                pageContext.getOut().print(tag);
+                builder.writeTo(pageContext.getOut());
             } catch (IOException ex) {
                 throw new JspException(ex);
             }
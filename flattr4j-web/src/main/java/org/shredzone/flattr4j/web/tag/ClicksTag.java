@@ -0,0 +1,68 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.tag;
+
+import java.io.IOException;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.BodyTagSupport;
+
+/**
+ * Renders the click count of a thing. It must be nested in a {@link BatchTag}, which
+ * resolves the click counts of all nested tags in a single pass.
+ *
+ * @author Richard "Shred" Körber
+ * @since 2.15
+ */
+public class ClicksTag extends BodyTagSupport {
+    private static final long serialVersionUID = -1806279306617394728L;
+
+    private String url;
+    private String fallback;
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public void setFallback(String fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public int doStartTag() throws JspException {
+        return SKIP_BODY;
+    }
+
+    @Override
+    public int doEndTag() throws JspException {
+        BatchTag batch = TagUtils.findAncestorWithType(this, BatchTag.class);
+        if (batch == null) {
+            throw new JspException("clicks tag must be nested in a batch tag");
+        }
+
+        try {
+            pageContext.getOut().write(batch.register(url, fallback));
+        } catch (IOException ex) {
+            throw new JspException(ex);
+        }
+
+        return EVAL_PAGE;
+    }
+
+}
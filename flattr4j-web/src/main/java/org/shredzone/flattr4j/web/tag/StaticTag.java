@@ -98,14 +98,12 @@ public class StaticTag extends BodyTagSupport implements Attributed {
 
     @Override
     public int doEndTag() throws JspException {
-        String tag = builder.toString();
-
         if (var != null) {
-            TagUtils.setScopedAttribute(pageContext, var, tag, scope);
+            TagUtils.setScopedAttribute(pageContext, var, builder.toString(), scope);
 
         } else {
             try {
-                pageContext.getOut().print(tag);
+                builder.writeTo(pageContext.getOut());
             } catch (IOException ex) {
                 throw new JspException(ex);
             }
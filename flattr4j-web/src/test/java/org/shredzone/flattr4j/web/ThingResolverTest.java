@@ -0,0 +1,205 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.model.ThingId;
+
+/**
+ * Unit tests for {@link ThingResolver}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class ThingResolverTest {
+
+    private FlattrService mockService;
+    private ThingResolver resolver;
+    private int clicks = 10;
+    private boolean refreshFails = false;
+
+    @Before
+    public void setup() throws FlattrException {
+        mockService = mock(FlattrService.class);
+        when(mockService.getThingByUrl(anyString())).thenAnswer(new Answer<Thing>() {
+            @Override
+            public Thing answer(InvocationOnMock invocation) throws Throwable {
+                String url = (String) invocation.getArguments()[0];
+                if (url.endsWith("/404")) {
+                    return null;
+                }
+                if (url.endsWith("/500")) {
+                    throw new FlattrException("server failed");
+                }
+                return createThing(url.substring(url.lastIndexOf('/') + 1), url);
+            }
+        });
+        when(mockService.getThings(anyCollection())).thenAnswer(new Answer<List<Thing>>() {
+            @Override
+            public List<Thing> answer(InvocationOnMock invocation) throws Throwable {
+                if (refreshFails) {
+                    throw new FlattrException("server failed");
+                }
+                List<Thing> result = new ArrayList<Thing>();
+                for (Object thing : (Collection<?>) invocation.getArguments()[0]) {
+                    String id = ((ThingId) thing).getThingId();
+                    result.add(createThing(id, "http://example.com/" + id));
+                }
+                return result;
+            }
+        });
+
+        resolver = new ThingResolver(mockService, 10);
+    }
+
+    /**
+     * Test that URLs are resolved and cached.
+     */
+    @Test
+    public void testResolve() throws FlattrException {
+        Map<String, Thing> result = resolver.resolve(Arrays.asList(
+                        "http://example.com/1", "http://example.com/2", "http://example.com/404"));
+        assertThat(result.size(), is(2));
+        assertThat(result.get("http://example.com/1").getThingId(), is("1"));
+        assertThat(result.get("http://example.com/2").getClicks(), is(10));
+        assertThat(result.get("http://example.com/404"), is(nullValue()));
+        assertThat(resolver.getSize(), is(3));
+
+        Thing thing = resolver.resolve("http://example.com/1");
+        assertThat(thing.getThingId(), is("1"));
+        assertThat(resolver.resolve("http://example.com/404"), is(nullValue()));
+
+        verify(mockService, times(3)).getThingByUrl(anyString());
+        verify(mockService, never()).getThings(anyCollection());
+    }
+
+    /**
+     * Test that expired things are refreshed in a single batch.
+     */
+    @Test
+    public void testRefresh() throws Exception {
+        List<String> urls = Arrays.asList(
+                        "http://example.com/1", "http://example.com/2", "http://example.com/3");
+
+        resolver.setTtl(1L);
+        resolver.resolve(urls);
+        verify(mockService, times(3)).getThingByUrl(anyString());
+
+        Thread.sleep(10L);
+        clicks = 20;
+        resolver.setTtl(60000L);
+
+        Map<String, Thing> result = resolver.resolve(urls);
+        assertThat(result.size(), is(3));
+        assertThat(result.get("http://example.com/3").getClicks(), is(20));
+
+        resolver.resolve(urls);
+        verify(mockService, times(3)).getThingByUrl(anyString());
+        verify(mockService, times(1)).getThings(anyCollection());
+    }
+
+    /**
+     * Test that failed lookups do not discard the other results, and are retried.
+     */
+    @Test
+    public void testLookupFailure() throws Exception {
+        List<String> urls = Arrays.asList(
+                        "http://example.com/1", "http://example.com/500", "http://example.com/2");
+
+        Map<String, Thing> result = resolver.resolve(urls);
+        assertThat(result.size(), is(2));
+        assertThat(result.get("http://example.com/1").getThingId(), is("1"));
+        assertThat(result.get("http://example.com/2").getThingId(), is("2"));
+        assertThat(resolver.getSize(), is(2));
+
+        resolver.resolve(urls);
+        verify(mockService, times(4)).getThingByUrl(anyString());
+    }
+
+    /**
+     * Test that expired things are returned if the refresh has failed.
+     */
+    @Test
+    public void testRefreshFailure() throws Exception {
+        List<String> urls = Arrays.asList("http://example.com/1", "http://example.com/2");
+
+        resolver.setTtl(1L);
+        resolver.resolve(urls);
+        Thread.sleep(10L);
+
+        refreshFails = true;
+
+        Map<String, Thing> result = resolver.resolve(urls);
+        assertThat(result.size(), is(2));
+        assertThat(result.get("http://example.com/2").getThingId(), is("2"));
+    }
+
+    /**
+     * Test that the number of lookups per call is limited.
+     */
+    @Test
+    public void testMaxLookups() throws Exception {
+        List<String> urls = Arrays.asList(
+                        "http://example.com/1", "http://example.com/2", "http://example.com/3");
+
+        resolver.setMaxLookups(2);
+        Map<String, Thing> result = resolver.resolve(urls);
+        assertThat(result.size(), is(2));
+        assertThat(result.get("http://example.com/3"), is(nullValue()));
+
+        result = resolver.resolve(urls);
+        assertThat(result.size(), is(3));
+        verify(mockService, times(3)).getThingByUrl(anyString());
+    }
+
+    /**
+     * Test that copies of the cached things are returned.
+     */
+    @Test
+    public void testCopies() throws FlattrException {
+        Thing t1 = resolver.resolve("http://example.com/1");
+        t1.setTitle("Changed");
+
+        Thing t2 = resolver.resolve("http://example.com/1");
+        assertThat(t2, not(sameInstance(t1)));
+        assertThat(t2.getTitle(), is("Title"));
+    }
+
+    private Thing createThing(String id, String url) {
+        return new Thing(new FlattrObject("{\"id\":" + id + ",\"url\":\"" + url
+            + "\",\"title\":\"Title\",\"flattrs\":" + clicks + "}"));
+    }
+
+}
@@ -19,8 +19,12 @@
 package org.shredzone.flattr4j.web.builder;
 
 import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.junit.Test;
 import org.shredzone.flattr4j.model.Category;
 import org.shredzone.flattr4j.model.Language;
@@ -161,6 +165,23 @@ public class ButtonBuilderTest {
                 + " onclick=\"window.alert(&quot;Hello World&quot;)\" target=\"_blank\"></a>"));
     }
 
+    @Test
+    public void testWriteTo() throws IOException {
+        ButtonBuilder builder = new ButtonBuilder();
+        builder.url("http://example.com/page?id=1&lang=en");
+        builder.title("<Cats & \"Dogs\">");
+        builder.tag("a&b");
+
+        StringWriter writer = new StringWriter();
+        writer.write("<p>");
+        builder.writeTo(writer);
+
+        assertThat(writer.toString(), is(
+                "<p><a class=\"FlattrButton\" href=\"http://example.com/page?id=1&amp;lang=en\""
+                + " title=\"&lt;Cats &amp; &quot;Dogs&quot;>\" rel=\"flattr;tags:a&amp;b;\"></a>"));
+        assertThat(builder, hasToString(writer.toString().substring(3)));
+    }
+
     /**
      * Creates a filled {@link Submission}.
      *
@@ -0,0 +1,176 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.builder;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.model.Category;
+import org.shredzone.flattr4j.model.Language;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.web.ButtonType;
+
+/**
+ * Unit test of the {@link ButtonTemplate} class.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class ButtonTemplateTest {
+
+    /**
+     * Test that the template renders the same markup as the {@link ButtonBuilder}.
+     */
+    @Test
+    public void testRender() throws IOException {
+        ButtonBuilder builder = new ButtonBuilder()
+                .style("display:none;")
+                .styleClass("my-button")
+                .category(Category.withId("text"))
+                .language(Language.withId("en_GB"))
+                .tag("foo")
+                .tag("bar")
+                .button(ButtonType.COMPACT);
+
+        ButtonTemplate template = new ButtonTemplate(builder);
+
+        String expected = new ButtonBuilder(builder)
+                .url("http://example.com/page/123")
+                .title("A thingy title")
+                .description("A <em>thingy</em> description")
+                .toString();
+
+        assertThat(template.render("http://example.com/page/123", "A thingy title",
+                        "A <em>thingy</em> description"), is(expected));
+
+        StringWriter writer = new StringWriter();
+        template.writeTo(writer, "http://example.com/page/123", "A thingy title",
+                        "A <em>thingy</em> description");
+        assertThat(writer.toString(), is(expected));
+
+        assertThat(template.render("http://example.com/page/123?a=1&b=2", null, null),
+                is(new ButtonBuilder(builder).url("http://example.com/page/123?a=1&b=2").toString()));
+    }
+
+    /**
+     * Test that the template renders the same HTML5 markup as the {@link ButtonBuilder}.
+     */
+    @Test
+    public void testRenderHtml5() {
+        ButtonBuilder builder = new ButtonBuilder()
+                .html5()
+                .prefix("data-my")
+                .hidden()
+                .popout(false);
+
+        ButtonTemplate template = new ButtonTemplate(builder);
+
+        assertThat(template.render("http://example.com/page/123", "A thingy title", null),
+                is(new ButtonBuilder(builder)
+                        .url("http://example.com/page/123")
+                        .title("A thingy title")
+                        .toString()));
+    }
+
+    /**
+     * Test that changes to the builder do not affect the template.
+     */
+    @Test
+    public void testImmutable() {
+        ButtonBuilder builder = new ButtonBuilder();
+        ButtonTemplate template = new ButtonTemplate(builder);
+        builder.styleClass("changed");
+
+        assertThat(template.render("http://example.com/page/123", null, null),
+                is("<a class=\"FlattrButton\" href=\"http://example.com/page/123\"></a>"));
+    }
+
+    /**
+     * Test that the url is required.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoUrl() {
+        new ButtonTemplate(new ButtonBuilder()).render(null, null, null);
+    }
+
+    /**
+     * Test that invalid titles are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadTitle() {
+        new ButtonTemplate(new ButtonBuilder()).render("http://example.com", "abc", null);
+    }
+
+    /**
+     * Test that {@link Thing} buttons are cached.
+     */
+    @Test
+    public void testThingCache() {
+        ButtonBuilder builder = new ButtonBuilder().button(ButtonType.COMPACT);
+        ButtonTemplate template = new ButtonTemplate(builder, 2);
+
+        Thing thing1 = createThing(1, "A first title", 1000L);
+        Thing thing2 = createThing(2, "A second title", 1000L);
+        Thing thing3 = createThing(3, "A third title", 1000L);
+
+        String markup1 = template.render(thing1);
+        assertThat(markup1, is(new ButtonBuilder(builder).thing(thing1).toString()));
+        assertThat(template.getCacheSize(), is(1));
+        assertThat(template.render(thing1), is(sameInstance(markup1)));
+
+        template.render(thing2);
+        template.render(thing3);
+        assertThat(template.getCacheSize(), is(2));
+        assertThat(template.render(thing1), is(not(sameInstance(markup1))));
+
+        Thing updated = createThing(3, "An updated title", 2000L);
+        assertThat(template.render(updated), containsString("An updated title"));
+
+        template.clearCache();
+        assertThat(template.getCacheSize(), is(0));
+    }
+
+    /**
+     * Test that {@link Thing} buttons are rendered if the cache is disabled.
+     */
+    @Test
+    public void testNoCache() {
+        ButtonTemplate template = new ButtonTemplate(new ButtonBuilder(), 0);
+        Thing thing = createThing(1, "A first title", 1000L);
+
+        assertThat(template.render(thing),
+                is(new ButtonBuilder().thing(thing).toString()));
+        assertThat(template.getCacheSize(), is(0));
+    }
+
+    private static Thing createThing(int id, String title, long updated) {
+        return new Thing(new FlattrObject("{\"id\":" + id
+            + ",\"url\":\"http://example.com/" + id + "\""
+            + ",\"title\":\"" + title + "\""
+            + ",\"description\":\"A thing description\""
+            + ",\"category\":\"text\",\"language\":\"en_GB\""
+            + ",\"tags\":[\"foo\"],\"hidden\":false"
+            + ",\"updated_at\":" + updated + "}"));
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.tag;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.shredzone.flattr4j.FlattrService;
+import org.shredzone.flattr4j.connector.FlattrObject;
+import org.shredzone.flattr4j.exception.FlattrException;
+import org.shredzone.flattr4j.model.Thing;
+import org.shredzone.flattr4j.web.ThingResolver;
+
+/**
+ * Unit tests for {@link BatchTag}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class BatchTagTest {
+
+    private FlattrService mockService;
+    private BatchTag batch;
+
+    @Before
+    public void setup() throws Exception {
+        mockService = mock(FlattrService.class);
+        when(mockService.getThingByUrl(anyString())).thenAnswer(new Answer<Thing>() {
+            @Override
+            public Thing answer(InvocationOnMock invocation) throws Throwable {
+                String url = (String) invocation.getArguments()[0];
+                if (url.endsWith("/404")) {
+                    return null;
+                }
+                if (url.endsWith("/500")) {
+                    throw new FlattrException("server failed");
+                }
+                String id = url.substring(url.lastIndexOf('/') + 1);
+                return new Thing(new FlattrObject("{\"id\":" + id + ",\"flattrs\":" + id + "2}"));
+            }
+        });
+
+        batch = new BatchTag();
+        batch.setResolver(new ThingResolver(mockService));
+        batch.doStartTag();
+    }
+
+    /**
+     * Test that the placeholders are replaced by the click counts.
+     */
+    @Test
+    public void testRender() throws Exception {
+        String body = "<p>" + batch.register("http://example.com/1", "-") + "</p>"
+                        + "<p>" + batch.register("http://example.com/2", "-") + "</p>"
+                        + batch.register("http://example.com/1", null);
+
+        assertThat(render(body), is("<p>12</p><p>22</p>12"));
+        verify(mockService, times(2)).getThingByUrl(anyString());
+    }
+
+    /**
+     * Test that the fallbacks are rendered for unknown or failed things.
+     */
+    @Test
+    public void testFallback() throws Exception {
+        String body = batch.register("http://example.com/404", "n/a") + ", "
+                        + batch.register("http://example.com/500", "?") + ", "
+                        + batch.register("http://example.com/3", "-") + ", "
+                        + batch.register("http://example.com/404", null) + ".";
+
+        assertThat(render(body), is("n/a, ?, 32, ."));
+    }
+
+    /**
+     * Test that the fallbacks are rendered if no resolver is set.
+     */
+    @Test
+    public void testNoResolver() throws Exception {
+        batch = new BatchTag();
+        batch.doStartTag();
+
+        String body = "<p>" + batch.register("http://example.com/1", "n/a") + "</p>";
+
+        assertThat(render(body), is("<p>n/a</p>"));
+        verify(mockService, never()).getThingByUrl(anyString());
+    }
+
+    /**
+     * Test that a body without placeholders is rendered unchanged.
+     */
+    @Test
+    public void testNoPlaceholders() throws Exception {
+        assertThat(render("<p>no clicks</p>"), is("<p>no clicks</p>"));
+        assertThat(render(""), is(""));
+        verify(mockService, never()).getThingByUrl(anyString());
+    }
+
+    private String render(String body) throws IOException {
+        StringWriter out = new StringWriter();
+        batch.render(body, out);
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * flattr4j - A Java library for Flattr
+ *
+ * Copyright (C) 2017 Richard "Shred" Körber
+ *   http://flattr4j.shredzone.org
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License / GNU Lesser
+ * General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.shredzone.flattr4j.web.tag;
+
+import static org.junit.Assert.*;
+
+import javax.servlet.jsp.JspException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ClicksTag}.
+ *
+ * @author Richard "Shred" Körber
+ */
+public class ClicksTagTest {
+
+    /**
+     * Test that the clicks tag is rejected if it is not nested in a batch tag.
+     */
+    @Test
+    public void testNotNested() {
+        ClicksTag tag = new ClicksTag();
+        tag.setUrl("http://example.com/1");
+
+        try {
+            tag.doStartTag();
+            tag.doEndTag();
+            fail("clicks tag without batch tag was accepted");
+        } catch (JspException ex) {
+            // expected
+        }
+    }
+
+}